@@ -0,0 +1,86 @@
+// k6 load test comparing platform-thread and virtual-thread request handling.
+//
+// Mixes the catalog read path with the blocking login, cart and checkout paths, so it shows whether
+// catalog latency holds up while the database-bound endpoints are saturated.
+//
+// Run it once against each mode and compare the summaries (http_reqs rate, p(95) and p(99) per scenario):
+//   VIRTUAL_THREADS_ENABLED=false java -jar target/e-commerce-0.0.1-SNAPSHOT.jar
+//   k6 run -e BASE_URL=http://localhost:8080 -e API_KEY=<api key> load-tests/checkout-mix.js
+//   VIRTUAL_THREADS_ENABLED=true java -jar target/e-commerce-0.0.1-SNAPSHOT.jar   (built with -P java21)
+//   k6 run -e BASE_URL=http://localhost:8080 -e API_KEY=<api key> load-tests/checkout-mix.js
+//
+// PRODUCT_ID must point at a product with enough stock for the run (default 1).
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const API_KEY = __ENV.API_KEY;
+const PRODUCT_ID = Number(__ENV.PRODUCT_ID || 1);
+const PASSWORD = 'load-test-password';
+
+export const options = {
+    scenarios: {
+        catalog: {
+            executor: 'constant-arrival-rate',
+            exec: 'browseCatalog',
+            rate: Number(__ENV.CATALOG_RATE || 500),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+        shoppers: {
+            executor: 'ramping-vus',
+            exec: 'shop',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: Number(__ENV.SHOPPERS || 300) },
+                { duration: __ENV.DURATION || '2m', target: Number(__ENV.SHOPPERS || 300) },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:catalog}': ['p(95)<250', 'p(99)<500'],
+        'http_req_duration{scenario:shoppers}': ['p(95)<2000'],
+    },
+};
+
+function headers(token) {
+    const result = { 'Content-Type': 'application/json', 'X-Api-Key': API_KEY };
+    if (token) {
+        result['Authorization'] = `Bearer ${token}`;
+    }
+    return { headers: result };
+}
+
+export function browseCatalog() {
+    const page = 1 + Math.floor(Math.random() * 5);
+    const response = http.get(`${BASE_URL}/api/v1/products/public?page=${page}&size=20`, headers());
+    check(response, { 'catalog 200': (r) => r.status === 200 });
+}
+
+// Each virtual user signs up once, then repeatedly signs in, adds to its cart and checks out
+export function shop() {
+    const email = `load-${__VU}@gridiron.test`;
+    if (__ITER === 0) {
+        http.post(`${BASE_URL}/api/v1/users/public/customer`, JSON.stringify({
+            firstName: 'Load', lastName: `User${__VU}`, email, password: PASSWORD,
+        }), headers());
+    }
+
+    const login = http.post(`${BASE_URL}/api/v1/users/public/authenticate`,
+        JSON.stringify({ email, password: PASSWORD }), headers());
+    if (!check(login, { 'login 200': (r) => r.status === 200 })) {
+        return;
+    }
+    const token = login.json('data.token');
+
+    const added = http.post(`${BASE_URL}/api/v1/carts/private`,
+        JSON.stringify({ productId: PRODUCT_ID, quantity: 1 }), headers(token));
+    check(added, { 'add to cart 200': (r) => r.status === 200 });
+
+    const order = http.post(`${BASE_URL}/api/v1/orders/customer`, null, headers(token));
+    check(order, { 'checkout accepted': (r) => r.status === 200 || r.status === 202 });
+}
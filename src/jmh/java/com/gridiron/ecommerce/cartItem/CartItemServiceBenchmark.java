@@ -0,0 +1,45 @@
+package com.gridiron.ecommerce.cartItem;
+
+import com.gridiron.ecommerce.product.Product;
+import com.gridiron.ecommerce.product.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats a page of cart items into responses, the work done for every cart view.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CartItemServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private CartItemService cartItemService;
+    private List<CartItem> cartItems;
+
+    @Setup
+    public void setUp() {
+        cartItemService = new CartItemService(null, new ProductService(null, null, null, null, null, null));
+        cartItems = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Product product = new Product("Product " + i, new BigDecimal("19.99"), "Description of product " + i, 100);
+            product.setId((long) i);
+            CartItem cartItem = new CartItem();
+            cartItem.setId((long) i);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(2);
+            cartItems.add(cartItem);
+        }
+    }
+
+    @Benchmark
+    public Object formatCartItems() {
+        return cartItemService.formatCartItems(cartItems);
+    }
+}
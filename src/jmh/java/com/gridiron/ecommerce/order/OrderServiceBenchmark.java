@@ -0,0 +1,40 @@
+package com.gridiron.ecommerce.order;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats a page of order summaries into responses, the work done for every admin order listing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private OrderService orderService;
+    private List<OrderSummary> orders;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderService(null, null, null, null);
+        orders = new ArrayList<>(pageSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            orders.add(new OrderSummary((long) i, (long) i, new BigDecimal("59.97"), OrderStatus.PENDING,
+                    now, null, null, null, 3L));
+        }
+    }
+
+    @Benchmark
+    public Object formatOrders() {
+        return orderService.formatOrders(orders);
+    }
+}
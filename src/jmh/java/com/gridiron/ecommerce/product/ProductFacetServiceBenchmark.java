@@ -0,0 +1,55 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters the catalog by a wide and a narrow price range with the facet counts, the work done for every filtered
+ * product listing. The cost should stay flat as the catalog grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProductFacetServiceBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int catalogSize;
+
+    private ProductFacetService productFacetService;
+
+    @Setup
+    public void setUp() {
+        ProductCatalog productCatalog = new ProductCatalog(null, null, null, 1000);
+        productFacetService = new ProductFacetService(productCatalog,
+                List.of(new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100")));
+        LocalDateTime createdAt = LocalDateTime.of(2024, 10, 1, 12, 0);
+        List<ProductChangedEvent> changes = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            changes.add(ProductChangedEvent.saved(ProductResponse.builder()
+                    .productId((long) i)
+                    .name("Product " + i)
+                    .description("Description of product " + i)
+                    .availabilityQuantity(i % 5)
+                    .price(BigDecimal.valueOf((i * 7919L) % 20000, 2))
+                    .build(), createdAt.plusSeconds(i)));
+        }
+        changes.forEach(productCatalog::onProductChanged);
+        productCatalog.compact();
+    }
+
+    @Benchmark
+    public Object fetchWidePriceRangeInStock() {
+        return productFacetService.fetchProducts(new BigDecimal("20"), new BigDecimal("150"), true, 1, 10);
+    }
+
+    @Benchmark
+    public Object fetchNarrowPriceRange() {
+        return productFacetService.fetchProducts(new BigDecimal("20.00"), new BigDecimal("20.05"), null, 1, 10);
+    }
+}
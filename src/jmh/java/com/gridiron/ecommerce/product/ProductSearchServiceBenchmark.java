@@ -0,0 +1,52 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches an in-memory catalog with a full word and with a short prefix, the work done for every product search.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ProductSearchServiceBenchmark {
+
+    private static final String[] WORDS = {"leather", "wallet", "travel", "bag", "desk", "lamp", "steel", "kettle",
+            "oak", "table", "wool", "scarf", "ceramic", "mug", "cotton", "shirt"};
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private ProductSearchService productSearchService;
+
+    @Setup
+    public void setUp() {
+        ProductCatalog productCatalog = new ProductCatalog(null, null, null, 1000);
+        productSearchService = new ProductSearchService(productCatalog);
+        for (int i = 0; i < catalogSize; i++) {
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            productCatalog.onProductChanged(ProductChangedEvent.saved(ProductResponse.builder()
+                    .productId((long) i)
+                    .name(name)
+                    .description("Description of " + name)
+                    .availabilityQuantity(100)
+                    .price(new BigDecimal("19.99"))
+                    .build(), LocalDateTime.now()));
+        }
+        productCatalog.compact();
+    }
+
+    @Benchmark
+    public Object searchTwoWords() {
+        return productSearchService.search("steel kettle", 1, 10);
+    }
+
+    @Benchmark
+    public Object searchPrefix() {
+        return productSearchService.search("ce", 1, 10);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gridiron.ecommerce.product;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats a page of products into responses, the work done for every public product listing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ProductService productService;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        productService = new ProductService(null, null, null, null, null, null);
+        products = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Product product = new Product("Product " + i, new BigDecimal("19.99"), "Description of product " + i, 100);
+            product.setId((long) i);
+            products.add(product);
+        }
+    }
+
+    @Benchmark
+    public Object formatProductsToProductResponse() {
+        return productService.formatProductsToProductResponse(products);
+    }
+}
@@ -0,0 +1,54 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests products for a one letter and a three letter prefix, the work done for every keystroke in the search box.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProductSuggestServiceBenchmark {
+
+    private static final String[] WORDS = {"leather", "wallet", "travel", "bag", "desk", "lamp", "steel", "kettle",
+            "oak", "table", "wool", "scarf", "ceramic", "mug", "cotton", "shirt"};
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private ProductSuggestService productSuggestService;
+
+    @Setup
+    public void setUp() {
+        ProductCatalog productCatalog = new ProductCatalog(null, null, null, 1000);
+        productSuggestService = new ProductSuggestService(productCatalog);
+        for (int i = 0; i < catalogSize; i++) {
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            productCatalog.onProductChanged(ProductChangedEvent.saved(ProductResponse.builder()
+                    .productId((long) i)
+                    .name(name)
+                    .description("Description of " + name)
+                    .availabilityQuantity(100)
+                    .price(new BigDecimal("19.99"))
+                    .build(), LocalDateTime.now()));
+            productCatalog.onProductStockChanged(new ProductStockChangedEvent(Map.of((long) i, -(i % 997))));
+        }
+        productCatalog.compact();
+    }
+
+    @Benchmark
+    public Object suggestOneLetter() {
+        return productSuggestService.suggest("s", 10);
+    }
+
+    @Benchmark
+    public Object suggestThreeLetters() {
+        return productSuggestService.suggest("ste", 10);
+    }
+}
@@ -0,0 +1,55 @@
+package com.gridiron.ecommerce.utility;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes an ApiResponse wrapping a page of products with an ObjectMapper configured like Spring Boot's,
+ * the serialization done for every listing response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse pageResponse;
+    private ApiResponse errorResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductResponse> products = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            products.add(new ProductResponse((long) i, "Product " + i, "Description of product " + i,
+                    100, new BigDecimal("19.99")));
+        }
+        pageResponse = new ApiResponse(true, "Fetched Products Successfully", PaginatedData.builder()
+                .totalPage(10)
+                .totalSize(10L * pageSize)
+                .currentSize(pageSize)
+                .data(products)
+                .build());
+        errorResponse = new ApiResponse(false, "Invalid or missing JWT", null);
+    }
+
+    @Benchmark
+    public byte[] writePaginatedData() throws Exception {
+        return objectMapper.writeValueAsBytes(pageResponse);
+    }
+
+    @Benchmark
+    public byte[] writeErrorResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gridiron.ecommerce.utility.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks requests against the rate limiter from several threads, either all on one user or spread over many.
+ * The limits are set high enough that requests are allowed, so this measures the cost added to every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    private int users;
+
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties(true, Duration.ofMinutes(10), List.of(
+                new RateLimitProperties.Rule("/api", KeyType.USER, 1_000_000_000, 1_000_000_000),
+                new RateLimitProperties.Rule("/api/v1/users/public/authenticate", KeyType.USER, 10, 20)));
+        rateLimiter = new RateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        long userId = ThreadLocalRandom.current().nextInt(users);
+        return rateLimiter.tryAcquire(KeyType.USER, userId, "/api/v1/carts/private");
+    }
+}
@@ -0,0 +1,32 @@
+package com.gridiron.ecommerce.utility.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies request paths as open or secured, the check done by the request filter on every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DefaultRouteValidatorBenchmark {
+
+    @Param({"/api/v1/products/public", "/api/v1/carts/private/items", "/api/v1/orders/admin/42"})
+    private String path;
+
+    private DefaultRouteValidator routeValidator;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        routeValidator = new DefaultRouteValidator();
+        request = new MockHttpServletRequest("GET", path);
+    }
+
+    @Benchmark
+    public boolean isSecured() {
+        return routeValidator.isSecured.test(request);
+    }
+}
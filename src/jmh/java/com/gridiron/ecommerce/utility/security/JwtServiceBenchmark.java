@@ -0,0 +1,38 @@
+package com.gridiron.ecommerce.utility.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and verifies a token the way every secured request does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String token;
+    private String bearerToken;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        jwtService.secretKey = "2407d055-6c7f-471f-b7a5-cb08a00d216d";
+        token = jwtService.generateToken("benchmark@gridiron.com", Map.of("userId", 42L, "role", List.of("CUSTOMER")));
+        bearerToken = "Bearer " + token;
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public Long extractUserId() {
+        return jwtService.extractUserId(bearerToken);
+    }
+}
@@ -20,7 +20,7 @@ public class Cart extends GeneralEntity {
     @Column(name = "user_id", nullable = false, unique = true)
     private Long userId;
 
-    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
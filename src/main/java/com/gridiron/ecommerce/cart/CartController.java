@@ -2,8 +2,9 @@ package com.gridiron.ecommerce.cart;
 
 import com.gridiron.ecommerce.cartItem.CartItemService;
 import com.gridiron.ecommerce.cartItem.request.CreateCartItemRequest;
+import com.gridiron.ecommerce.cartItem.request.CreateCartItemsRequest;
 import com.gridiron.ecommerce.utility.ApiResponse;
-import com.gridiron.ecommerce.utility.security.JwtService;
+import com.gridiron.ecommerce.utility.security.RequestFilter;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,7 +16,6 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
-    private final JwtService jwtService;
     private final CartItemService cartItemService;
 
 
@@ -23,14 +23,28 @@ public class CartController {
      * This endpoint add a new cartItem to the users cart.
      * It is secured and only accessible to authorized users with role CUSTOMER
      * @param createCartItemRequest json request of cart item, including productId, and qunantity
-     * @param token user authorization token, to extract userId from
+     * @param userId The id of the authenticated user, set by the request filter
      */
     @PostMapping("/private")
     private ResponseEntity<ApiResponse> addItemToCart(@RequestBody @Valid CreateCartItemRequest createCartItemRequest,
-                                                      @RequestHeader("Authorization") String token){
+                                                      @RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId){
 
-        System.out.println(createCartItemRequest);
-        cartService.addItemToCart(jwtService.extractUserId(token),createCartItemRequest);
+        cartService.addItemToCart(userId,createCartItemRequest);
+        return ResponseEntity.ok(new ApiResponse(true, "Added to cart successfully", null));
+    }
+
+    /**
+     * This endpoint adds several cartItems to the users cart at once, for restoring a saved cart or adding a bundle.
+     * Either every item is added or none is.
+     * It is secured and only accessible to authorized users with role CUSTOMER
+     * @param createCartItemsRequest json request with the list of cart items, each including productId, and quantity
+     * @param userId The id of the authenticated user, set by the request filter
+     */
+    @PostMapping("/private/batch")
+    private ResponseEntity<ApiResponse> addItemsToCart(@RequestBody @Valid CreateCartItemsRequest createCartItemsRequest,
+                                                       @RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId){
+
+        cartService.addItemsToCart(userId, createCartItemsRequest.items());
         return ResponseEntity.ok(new ApiResponse(true, "Added to cart successfully", null));
     }
 
@@ -38,13 +52,13 @@ public class CartController {
      * This endpoint removes a new cartItem to the users cart.
      * It is secured and only accessible to authorized users with role CUSTOMER
      * @param cartItemId The id of the cartItem to be removed
-     * @param token user authorization token, to extract userId from
+     * @param userId The id of the authenticated user, set by the request filter
      */
     @PutMapping("/private")
-    private ResponseEntity<ApiResponse> removeItemFromCart(@RequestHeader("Authorization") String token,
+    private ResponseEntity<ApiResponse> removeItemFromCart(@RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId,
                                                            @RequestParam("cartItemId") Long cartItemId){
 
-        cartService.deleteItemFromCart(jwtService.extractUserId(token),cartItemId);
+        cartService.deleteItemFromCart(userId,cartItemId);
 
         return ResponseEntity.ok(new ApiResponse(true, "Product removed successfully", null));
     }
@@ -52,17 +66,17 @@ public class CartController {
     /**
      * This endpoint fetches the items in a user cart
      * It is secured and only accessible to authorized users with role CUSTOMER
-     * @param token user authorization token, to extract userId from
+     * @param userId The id of the authenticated user, set by the request filter
      * @param page the page number to be fetched
      * @param size the size of items to be fetched for the page
      */
     @GetMapping("/private")
-    private ResponseEntity<ApiResponse> fetchItemInCart(@RequestHeader("Authorization") String token,
+    private ResponseEntity<ApiResponse> fetchItemInCart(@RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId,
                                                         @RequestParam(value = "page", required = false, defaultValue = "1") int page,
                                                         @RequestParam(value = "size", required = false, defaultValue = "10") int size){
 
         return ResponseEntity.ok(new ApiResponse(true, "Product fetched successfully",
-                cartService.fetchProductInCartByCartId(jwtService.extractUserId(token), page, size)));
+                cartService.fetchProductInCartByCartId(userId, page, size)));
     }
 
 
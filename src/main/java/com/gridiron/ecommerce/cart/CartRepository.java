@@ -1,12 +1,41 @@
 package com.gridiron.ecommerce.cart;
 
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUserId(Long userId);
+
+    //the cart of a user never changes once created, so its id is cached. A missing cart is not cached
+    @Cacheable(cacheNames = CacheConfig.CART_IDS, unless = "#result == null")
+    @Query("SELECT c.id FROM Cart c WHERE c.userId = :userId")
+    Optional<Long> findIdByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "cartItems")
+    Optional<Cart> findWithItemsByUserId(Long userId);
+
+    //checkout reads every item and its product price, so they are all fetched with the cart in one query
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
+    Optional<Cart> findForCheckoutByUserId(Long userId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :updatedAt WHERE c.id = :cartId")
+    void updateUpdatedAt(Long cartId, LocalDateTime updatedAt);
+
+    boolean existsByUserIdAndCartItemsIsNotEmpty(Long userId);
+
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.userId IN :userIds")
+    List<Cart> findAllWithItemsByUserIdIn(Collection<Long> userIds);
 }
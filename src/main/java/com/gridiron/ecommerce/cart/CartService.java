@@ -1,17 +1,27 @@
 package com.gridiron.ecommerce.cart;
 
 import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.cartItem.CartItemRepository;
 import com.gridiron.ecommerce.cartItem.CartItemService;
 import com.gridiron.ecommerce.cartItem.request.CreateCartItemRequest;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.product.ProductService;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.reservation.ReservationService;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,7 +30,11 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
+    private final ProductService productService;
     private final CartItemService cartItemService;
+    private final CartItemRepository cartItemRepository;
+    private final ReservationService reservationService;
+    private final CartStore cartStore;
 
     /**
      * This method updates a cart
@@ -43,62 +57,129 @@ public class CartService {
     }
 
     /**
-     * This method adds an item to the user cart
+     * This method adds an item to the user cart.
+     * The cart line is written with a single upsert on the unique (cart_id, product_id) key, so the cart is never loaded
      * @param userId The userId of the users cart
      * @param createCartItemRequest The request containing the productId, and quantity
      */
+    @Transactional
     public void addItemToCart(Long userId, CreateCartItemRequest createCartItemRequest) {
 
-        //check to confirm products exists before adding to cart (extendable to confirm the quantity as well)
-        Product product = productRepository.findById(createCartItemRequest.productId()).orElseThrow(
-                () -> new ResourceNotFoundException("Product with id " + createCartItemRequest.productId() + " not found")
-        );
+        //check to confirm products exists before adding to cart, served from the product cache when possible
+        ProductResponse product = productService.fetchProductById(createCartItemRequest.productId());
 
-        if(createCartItemRequest.quantity()>product.getAvailabilityQuantity()){
+        if(createCartItemRequest.quantity()>product.availabilityQuantity()){
             throw new InvalidInputException("Product Quantity Exceeded");
         }
 
-        Optional<Cart> cart = cartRepository.findByUserId(userId);
-        if(cart.isEmpty()){
-            cart = Optional.of(initializeCartForUser(userId));
+        if (cartStore.isEnabled()) {
+            cartStore.addItem(userId, product.productId(), createCartItemRequest.quantity(), product.availabilityQuantity());
+            return;
+        }
+
+        Long cartId = findOrCreateCartId(userId);
+
+        //adds to the line if the cart already has the product, without loading the cart or its items
+        int cartQuantity = cartItemRepository.upsertQuantity(cartId, product.productId(),
+                createCartItemRequest.quantity(), LocalDateTime.now());
+
+        //hold the stock for the whole cart line, this fails if other carts already hold what is left
+        //and the upsert is rolled back with the transaction. The hold is put back if the transaction rolls back
+        reservationService.reserveInTransaction(userId, product.productId(), cartQuantity, product.availabilityQuantity());
+        cartRepository.updateUpdatedAt(cartId, LocalDateTime.now());
+    }
+
+
+    /**
+     * This method adds several items to the user cart in one transaction.
+     * The products are fetched with one query and the cart is written once, and if any item cannot be added
+     * the cart is left unchanged. Items of the same product are added together
+     * @param userId The userId of the users cart
+     * @param createCartItemRequests The requests containing the productId, and quantity of every item
+     * @throws ResourceNotFoundException if any product does not exist
+     * @throws InvalidInputException if the stock of any product does not cover its quantity
+     */
+    @Transactional
+    public void addItemsToCart(Long userId, List<CreateCartItemRequest> createCartItemRequests) {
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CreateCartItemRequest createCartItemRequest : createCartItemRequests) {
+            quantities.merge(createCartItemRequest.productId(), createCartItemRequest.quantity(), Integer::sum);
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        Map<Long, Integer> availableQuantities = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product with id " + line.getKey() + " not found");
+            }
+            if (line.getValue() > product.getAvailabilityQuantity()) {
+                throw new InvalidInputException("Product Quantity Exceeded");
+            }
+            availableQuantities.put(product.getId(), product.getAvailabilityQuantity());
+        }
+
+        if (cartStore.isEnabled()) {
+            cartStore.addItems(userId, quantities, availableQuantities);
+            return;
         }
 
-        Optional<CartItem> existingItem = cart.get().getCartItems().stream()
-                .filter(item -> item.getProduct().getId().equals(createCartItemRequest.productId()))
-                .findFirst();
-
-        if (existingItem.isPresent()) {
-            existingItem.get().setQuantity(existingItem.get().getQuantity() + createCartItemRequest.quantity());
-        }else{
-            CartItem cartItem = new CartItem();
-            cartItem.setCart(cart.get());
-            cartItem.setProduct(product);
-            cartItem.setQuantity(createCartItemRequest.quantity());
-            cart.get().getCartItems().add(cartItem);
+        Cart cart = cartRepository.findWithItemsByUserId(userId).orElseGet(() -> initializeCartForUser(userId));
+        Map<Long, CartItem> existingItems = new HashMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            existingItems.put(cartItem.getProduct().getId(), cartItem);
         }
 
-        updateCart(cart.get());
+        //hold the stock for every cart line before anything is changed, either all of them are held or none
+        Map<Long, Integer> cartQuantities = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            CartItem existingItem = existingItems.get(productId);
+            cartQuantities.put(productId, (existingItem == null ? 0 : existingItem.getQuantity()) + quantity);
+        });
+        reservationService.reserveAllInTransaction(userId, cartQuantities, availableQuantities);
+
+        cartQuantities.forEach((productId, cartQuantity) -> {
+            CartItem existingItem = existingItems.get(productId);
+            if (existingItem != null) {
+                existingItem.setQuantity(cartQuantity);
+            } else {
+                CartItem cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(products.get(productId));
+                cartItem.setQuantity(cartQuantity);
+                cart.getCartItems().add(cartItem);
+            }
+        });
+
+        updateCart(cart);
     }
 
 
     /**
-     * This method updates a cart, removing a product from the cart using the cartItemId
+     * This method updates a cart, removing a product from the cart using the cartItemId.
+     * The item is looked up and deleted by its id within the user's cart, so the cart is never loaded
      * @param userId The userId of the cart owner
      * @param cartItemId the cartItemId of the cart.
      */
+    @Transactional
     public void deleteItemFromCart(Long userId, Long cartItemId) {
-        Cart cart = findCartByUserId(userId);
+        if (cartStore.isEnabled()) {
+            cartStore.deleteItem(userId, cartItemId);
+            return;
+        }
 
-        Optional<CartItem> existingItem = cart.getCartItems().stream()
-                .filter(item -> item.getId().equals(cartItemId))
-                .findFirst();
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        Long productId = cartItemRepository.findProductIdByIdAndCartId(cartItemId, cartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Item with id " + cartItemId + " not found"));
 
-        if (existingItem.isPresent()) {
-            cart.getCartItems().remove(existingItem.get());
-            updateCart(cart);
-        }else{
-            throw new ResourceNotFoundException("Item with id " + cartItemId + " not found");
-        }
+        cartItemRepository.deleteByCartItemId(cartItemId);
+        cartRepository.updateUpdatedAt(cartId, LocalDateTime.now());
+        reservationService.releaseAfterCommit(userId, productId);
     }
 
     /**
@@ -109,25 +190,54 @@ public class CartService {
      */
     public PaginatedData fetchProductInCartByCartId(Long userId, int page, int size) {
 
-        Cart cart = findCartByUserId(userId);
-        return cartItemService.fetchCartItemsByCartId(cart.getId(), page, size);
+        //changes still in memory are written first, so the user reads their own changes
+        if (cartStore.isEnabled()) {
+            cartStore.flush(userId);
+        }
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        return cartItemService.fetchCartItemsByCartId(cartId, page, size);
     }
 
     /**
-     * This method fetches a cart by the userId
-     * @param userId the userId of the cart to be fetched
+     * This method fetches the id of the user cart, creating the cart if the user has none
+     * @param userId the userId of the cart owner
      */
-    private Cart findCartByUserId(Long userId) {
-        return cartRepository.findByUserId(userId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+    private Long findOrCreateCartId(Long userId) {
+        return cartRepository.findIdByUserId(userId).orElseGet(() -> initializeCartForUser(userId).getId());
+    }
+
+    /**
+     * This method returns true if the user has a cart with items in it
+     * @param userId The userId of the cart owner
+     */
+    public boolean hasItems(Long userId) {
+        if (cartStore.isEnabled()) {
+            return cartStore.hasItems(userId);
+        }
+        return cartRepository.existsByUserIdAndCartItemsIsNotEmpty(userId);
+    }
+
+    /**
+     * This method writes the changes to a user cart that are still in memory, in the checkout transaction.
+     * It must be called before the cart is read for checkout
+     * @param userId The userId of the cart owner
+     */
+    public void flushForCheckout(Long userId) {
+        if (cartStore.isEnabled()) {
+            cartStore.flushForCheckout(userId);
+        }
     }
 
     /**
-     * This method clear a user cart. It empties out all the items in the cart
+     * This method clear a user cart. It empties out all the items in the cart.
+     * The stock held for the cart is released once the surrounding transaction commits
      * @param cart The Cart instance to be emptied
      */
     public void clearCart(Cart cart) {
         cart.getCartItems().clear();
         updateCart(cart);
+        reservationService.releaseAllAfterCommit(cart.getUserId());
     }
 
 
@@ -0,0 +1,626 @@
+package com.gridiron.ecommerce.cart;
+
+import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.reservation.ReservationService;
+import com.gridiron.ecommerce.utility.concurrency.DatabaseAccessLimiter;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CartStore keeps active carts in memory and writes them to the database behind the requests that change them,
+ * when application.cart.write-behind.enabled is set.
+ *
+ * Each user's cart is loaded once and then changed in place under that user's own lock, with its lines kept in a
+ * map by productId, so adding or removing an item neither loads nor saves the cart aggregate. Changed carts are
+ * marked dirty and a scheduled flush writes them in batches of one transaction each, so any number of changes to
+ * a cart between two flushes costs one write. A batch that fails is retried one cart per transaction, and carts
+ * that still fail stay dirty for the next flush.
+ *
+ * With durability ASYNC a change is acknowledged once it is in memory, and is lost if the process dies before the
+ * next flush. With durability SYNC every change is written before it is acknowledged, which keeps the cheaper
+ * mutations but not the coalescing. Either way the dirty carts are flushed before shutdown, and checkout flushes
+ * the user's cart in the checkout transaction and holds the user's lock until it completes.
+ *
+ * Cached carts and dirty carts are published as the `cart.store.carts` and `cart.store.dirty` gauges, and flush
+ * latency as the `cart.store.flush` timer.
+ */
+@Component
+@Log
+public class CartStore {
+
+    public enum Durability {
+        ASYNC,
+        SYNC
+    }
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ReservationService reservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseAccessLimiter databaseAccessLimiter;
+    private final boolean enabled;
+    private final Durability durability;
+    private final int batchSize;
+    private final long idleTimeoutMillis;
+    private final Clock clock;
+    private final Timer flushTimer;
+
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+
+    //users whose cart has changes that are not yet in the database
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CartStore(CartRepository cartRepository,
+                     ProductRepository productRepository,
+                     ReservationService reservationService,
+                     PlatformTransactionManager transactionManager,
+                     Optional<DatabaseAccessLimiter> databaseAccessLimiter,
+                     MeterRegistry meterRegistry,
+                     @Value("${application.cart.write-behind.enabled}") boolean enabled,
+                     @Value("${application.cart.write-behind.durability}") Durability durability,
+                     @Value("${application.cart.write-behind.batch-size}") int batchSize,
+                     @Value("${application.cart.write-behind.idle-timeout}") Duration idleTimeout) {
+        this(cartRepository, productRepository, reservationService, transactionManager,
+                databaseAccessLimiter.orElse(null), meterRegistry, enabled, durability, batchSize, idleTimeout,
+                Clock.systemDefaultZone());
+    }
+
+    CartStore(CartRepository cartRepository,
+              ProductRepository productRepository,
+              ReservationService reservationService,
+              PlatformTransactionManager transactionManager,
+              DatabaseAccessLimiter databaseAccessLimiter,
+              MeterRegistry meterRegistry,
+              boolean enabled,
+              Durability durability,
+              int batchSize,
+              Duration idleTimeout,
+              Clock clock) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.reservationService = reservationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseAccessLimiter = databaseAccessLimiter;
+        this.enabled = enabled;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.clock = clock;
+        this.flushTimer = Timer.builder("cart.store.flush")
+                .description("Time taken to write a batch of changed carts")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.carts", carts, Map::size)
+                .description("Carts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", dirtyUsers, Set::size)
+                .description("Carts with changes not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a quantity of a product to the user's cart, and holds the stock for the whole cart line
+     * @param userId The userId of the cart owner
+     * @param productId The id of the product to be added
+     * @param quantity The quantity to be added
+     * @param availableQuantity The quantity of the product in stock
+     * @throws com.gridiron.ecommerce.utility.exception.InvalidInputException if the stock cannot be held
+     */
+    public void addItem(Long userId, Long productId, int quantity, int availableQuantity) {
+        CartState state = lock(userId);
+        try {
+            Line line = state.linesByProduct.get(productId);
+            int cartQuantity = (line == null ? 0 : line.quantity) + quantity;
+            reservationService.reserve(userId, productId, cartQuantity, availableQuantity);
+
+            if (line == null) {
+                state.linesByProduct.put(productId, new Line(null, cartQuantity));
+            } else {
+                line.quantity = cartQuantity;
+            }
+            changed(state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds quantities of several products to the user's cart as one change, holding the stock for every line.
+     * If any line cannot be held the cart is left unchanged.
+     * @param userId The userId of the cart owner
+     * @param quantities The quantities to be added, by productId
+     * @param availableQuantities The quantities in stock, by productId
+     * @throws com.gridiron.ecommerce.utility.exception.InvalidInputException if the stock cannot be held
+     */
+    public void addItems(Long userId, Map<Long, Integer> quantities, Map<Long, Integer> availableQuantities) {
+        CartState state = lock(userId);
+        try {
+            Map<Long, Integer> cartQuantities = new HashMap<>();
+            quantities.forEach((productId, quantity) -> {
+                Line line = state.linesByProduct.get(productId);
+                cartQuantities.put(productId, (line == null ? 0 : line.quantity) + quantity);
+            });
+            reservationService.reserveAll(userId, cartQuantities, availableQuantities);
+
+            cartQuantities.forEach((productId, cartQuantity) -> {
+                Line line = state.linesByProduct.get(productId);
+                if (line == null) {
+                    state.linesByProduct.put(productId, new Line(null, cartQuantity));
+                } else {
+                    line.quantity = cartQuantity;
+                }
+            });
+            changed(state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a line from the user's cart, and releases the stock held for it
+     * @param userId The userId of the cart owner
+     * @param cartItemId The id of the cart item to be removed
+     * @throws ResourceNotFoundException if the cart has no item with the id
+     */
+    public void deleteItem(Long userId, Long cartItemId) {
+        CartState state = lock(userId);
+        try {
+            Long productId = state.productByItemId.remove(cartItemId);
+            if (productId == null) {
+                throw new ResourceNotFoundException("Item with id " + cartItemId + " not found");
+            }
+            state.linesByProduct.remove(productId);
+            reservationService.release(userId, productId);
+            changed(state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the user's cart has any item
+     * @param userId The userId of the cart owner
+     */
+    public boolean hasItems(Long userId) {
+        CartState state = lock(userId);
+        try {
+            return !state.linesByProduct.isEmpty();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the user's cart to the database if it has changes, so that it can be read from there
+     * @param userId The userId of the cart owner
+     */
+    public void flush(Long userId) {
+        CartState state = carts.get(userId);
+        if (state == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            if (!state.retired && state.isDirty()) {
+                write(List.of(state));
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the user's cart in the current transaction ahead of a checkout. The user's cart cannot change until the
+     * transaction completes, and once it commits the cart is dropped from memory, since the checkout cleared it.
+     * If it rolls back, the changes stay dirty and are written by a later flush.
+     * @param userId The userId of the cart owner
+     */
+    public void flushForCheckout(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush(userId);
+            return;
+        }
+
+        CartState state = lock(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    retire(state);
+                }
+                state.lock.unlock();
+            }
+        });
+        if (state.isDirty()) {
+            persist(List.of(state.snapshot()));
+        }
+    }
+
+    /**
+     * Removes a deleted product from every cart in memory once the current transaction commits. Its cart items are
+     * deleted from the database by the same transaction.
+     * @param productId The id of the product deleted
+     */
+    public void removeProductAfterCommit(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            removeProduct(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                removeProduct(productId);
+            }
+        });
+    }
+
+    /**
+     * Writes the dirty carts in batches, and drops the carts that have not been used within the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${application.cart.write-behind.flush-interval-ms}")
+    public void flushDirty() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(dirtyUsers);
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            flushBatch(userIds.subList(from, Math.min(from + batchSize, userIds.size())));
+        }
+        evictIdleCarts();
+    }
+
+    /**
+     * Writes every dirty cart before shutdown, so no acknowledged change is lost
+     */
+    @PreDestroy
+    void flushAll() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        //a cart locked by a request still in flight is skipped by a flush, so retry for a little while
+        for (int attempt = 0; attempt < 50 && !dirtyUsers.isEmpty(); attempt++) {
+            flushDirty();
+            if (!dirtyUsers.isEmpty()) {
+                Thread.sleep(100);
+            }
+        }
+        if (!dirtyUsers.isEmpty()) {
+            log.severe(dirtyUsers.size() + " carts could not be written before shutdown");
+        }
+    }
+
+    /**
+     * Returns the number of carts held in memory
+     */
+    public int size() {
+        return carts.size();
+    }
+
+    /**
+     * Returns the number of carts with changes not yet written to the database
+     */
+    public int dirtySize() {
+        return dirtyUsers.size();
+    }
+
+    /**
+     * Locks the user's cart, loading it from the database the first time it is used
+     * @param userId The userId of the cart owner
+     * @return The locked cart, to be unlocked by the caller
+     */
+    private CartState lock(Long userId) {
+        while (true) {
+            CartState state = carts.computeIfAbsent(userId, CartState::new);
+            state.lock.lock();
+            if (state.retired) {
+                //dropped from memory while this thread waited, use the one that replaced it
+                state.lock.unlock();
+                continue;
+            }
+            try {
+                state.load();
+            } catch (RuntimeException e) {
+                state.lock.unlock();
+                throw e;
+            }
+            state.lastUsedMillis = clock.millis();
+            return state;
+        }
+    }
+
+    /**
+     * Records a change to a locked cart, and writes it right away when durability is SYNC
+     * @param state The cart changed
+     */
+    private void changed(CartState state) {
+        state.version++;
+        state.updatedAt = LocalDateTime.now(clock);
+        dirtyUsers.add(state.userId);
+        if (durability == Durability.SYNC) {
+            write(List.of(state));
+        }
+    }
+
+    /**
+     * Writes the dirty carts that are not locked by a request, in one transaction. The carts stay locked while they
+     * are written; carts that are locked are left for the next flush.
+     * @param userIds The users whose carts are to be written
+     */
+    private void flushBatch(List<Long> userIds) {
+        List<CartState> locked = new ArrayList<>(userIds.size());
+        try {
+            for (Long userId : userIds) {
+                CartState state = carts.get(userId);
+                if (state == null || !state.lock.tryLock()) {
+                    continue;
+                }
+                locked.add(state);
+                if (state.retired || !state.isDirty()) {
+                    dirtyUsers.remove(userId);
+                }
+            }
+            List<CartState> dirty = locked.stream()
+                    .filter(state -> !state.retired && state.isDirty())
+                    .toList();
+            if (dirty.isEmpty()) {
+                return;
+            }
+            flushTimer.record(() -> {
+                try {
+                    write(dirty);
+                } catch (RuntimeException e) {
+                    if (dirty.size() == 1) {
+                        log.severe("Writing cart of user " + dirty.get(0).userId + " failed: " + e.getMessage());
+                        return;
+                    }
+                    log.info("Cart batch of " + dirty.size() + " rolled back, writing one by one: " + e.getMessage());
+                    for (CartState state : dirty) {
+                        try {
+                            write(List.of(state));
+                        } catch (RuntimeException ex) {
+                            log.severe("Writing cart of user " + state.userId + " failed: " + ex.getMessage());
+                        }
+                    }
+                }
+            });
+        } finally {
+            locked.forEach(state -> state.lock.unlock());
+        }
+    }
+
+    /**
+     * Runs the callback in a transaction, holding a database permit from before the transaction takes its connection
+     * @param callback The work of the transaction
+     */
+    private <T> T inTransaction(TransactionCallback<T> callback) {
+        if (databaseAccessLimiter == null) {
+            return transactionTemplate.execute(callback);
+        }
+        return databaseAccessLimiter.withPermit(() -> transactionTemplate.execute(callback));
+    }
+
+    /**
+     * Writes locked carts in a new transaction, and marks them clean once it commits
+     * @param states The locked carts to be written
+     */
+    private void write(List<CartState> states) {
+        List<CartSnapshot> snapshots = states.stream().map(CartState::snapshot).toList();
+        Map<Long, Map<Long, CartItem>> itemsByUser = inTransaction(status -> persist(snapshots));
+        for (int i = 0; i < states.size(); i++) {
+            CartState state = states.get(i);
+            state.written(snapshots.get(i), itemsByUser.get(state.userId));
+            if (!state.isDirty()) {
+                dirtyUsers.remove(state.userId);
+            }
+        }
+    }
+
+    /**
+     * Makes the carts in the database match the snapshots, in the current transaction.
+     * Lines are matched by product, so a cart with several changes since the last write is written once.
+     * @param snapshots The carts to be written
+     * @return The cart items of every cart by productId, whose ids are assigned once the transaction commits
+     */
+    private Map<Long, Map<Long, CartItem>> persist(List<CartSnapshot> snapshots) {
+        Map<Long, Cart> cartsByUser = new HashMap<>();
+        for (Cart cart : cartRepository.findAllWithItemsByUserIdIn(snapshots.stream().map(CartSnapshot::userId).toList())) {
+            cartsByUser.put(cart.getUserId(), cart);
+        }
+
+        Map<Long, Map<Long, CartItem>> itemsByUser = new HashMap<>();
+        for (CartSnapshot snapshot : snapshots) {
+            Cart cart = cartsByUser.get(snapshot.userId());
+            boolean newCart = cart == null;
+            if (newCart) {
+                cart = new Cart();
+                cart.setUserId(snapshot.userId());
+            }
+
+            Map<Long, CartItem> items = new HashMap<>();
+            Iterator<CartItem> iterator = cart.getCartItems().iterator();
+            while (iterator.hasNext()) {
+                CartItem cartItem = iterator.next();
+                Long productId = cartItem.getProduct().getId();
+                Integer quantity = snapshot.quantities().get(productId);
+                if (quantity == null) {
+                    //orphan removal deletes the row
+                    iterator.remove();
+                } else {
+                    if (cartItem.getQuantity() != quantity) {
+                        cartItem.setQuantity(quantity);
+                    }
+                    items.put(productId, cartItem);
+                }
+            }
+            for (Map.Entry<Long, Integer> line : snapshot.quantities().entrySet()) {
+                if (!items.containsKey(line.getKey())) {
+                    CartItem cartItem = new CartItem();
+                    cartItem.setCart(cart);
+                    cartItem.setProduct(productRepository.getReferenceById(line.getKey()));
+                    cartItem.setQuantity(line.getValue());
+                    cart.getCartItems().add(cartItem);
+                    items.put(line.getKey(), cartItem);
+                }
+            }
+            cart.setUpdatedAt(snapshot.updatedAt());
+
+            //a loaded cart is written by dirty checking, which also inserts its new items by cascade
+            if (newCart) {
+                cartRepository.save(cart);
+            }
+            itemsByUser.put(snapshot.userId(), items);
+        }
+        return itemsByUser;
+    }
+
+    private void removeProduct(Long productId) {
+        for (CartState state : carts.values()) {
+            state.lock.lock();
+            try {
+                Line line = state.linesByProduct.remove(productId);
+                if (line != null && line.itemId != null) {
+                    state.productByItemId.remove(line.itemId);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    private void evictIdleCarts() {
+        long idleSince = clock.millis() - idleTimeoutMillis;
+        for (CartState state : carts.values()) {
+            if (state.lastUsedMillis > idleSince || !state.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (!state.isDirty() && state.lastUsedMillis <= idleSince) {
+                    retire(state);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops a locked cart from memory, a request waiting for its lock loads the cart again
+     */
+    private void retire(CartState state) {
+        state.retired = true;
+        carts.remove(state.userId, state);
+        dirtyUsers.remove(state.userId);
+    }
+
+    record CartSnapshot(Long userId, long version, LocalDateTime updatedAt, Map<Long, Integer> quantities) {
+    }
+
+    private static final class Line {
+
+        private Long itemId;
+        private int quantity;
+
+        private Line(Long itemId, int quantity) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * A user's cart in memory. Every field is guarded by the lock.
+     */
+    private final class CartState {
+
+        private final Long userId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Line> linesByProduct = new LinkedHashMap<>();
+        private final Map<Long, Long> productByItemId = new HashMap<>();
+        private boolean loaded;
+        private boolean retired;
+        private long version;
+        private long writtenVersion;
+        private LocalDateTime updatedAt;
+        private volatile long lastUsedMillis;
+
+        private CartState(Long userId) {
+            this.userId = userId;
+        }
+
+        private void load() {
+            if (loaded) {
+                return;
+            }
+            cartRepository.findWithItemsByUserId(userId).ifPresent(cart -> {
+                for (CartItem cartItem : cart.getCartItems()) {
+                    Long productId = cartItem.getProduct().getId();
+                    linesByProduct.put(productId, new Line(cartItem.getId(), cartItem.getQuantity()));
+                    productByItemId.put(cartItem.getId(), productId);
+                }
+                updatedAt = cart.getUpdatedAt();
+            });
+            loaded = true;
+        }
+
+        private boolean isDirty() {
+            return version != writtenVersion;
+        }
+
+        private CartSnapshot snapshot() {
+            Map<Long, Integer> quantities = new HashMap<>();
+            linesByProduct.forEach((productId, line) -> quantities.put(productId, line.quantity));
+            return new CartSnapshot(userId, version, updatedAt, quantities);
+        }
+
+        /**
+         * Marks the snapshot as written, and gives new lines the ids of the items written for them
+         */
+        private void written(CartSnapshot snapshot, Map<Long, CartItem> items) {
+            writtenVersion = Math.max(writtenVersion, snapshot.version());
+            items.forEach((productId, cartItem) -> {
+                Line line = linesByProduct.get(productId);
+                if (line != null && line.itemId == null && cartItem.getId() != null) {
+                    line.itemId = cartItem.getId();
+                    productByItemId.put(cartItem.getId(), productId);
+                }
+            });
+        }
+    }
+}
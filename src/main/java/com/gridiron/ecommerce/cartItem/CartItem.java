@@ -11,7 +11,8 @@ import lombok.NoArgsConstructor;
 
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "cart_item")
+@Table(name = "cart_item", uniqueConstraints = @UniqueConstraint(name = "uk_cart_item_cart_product",
+        columnNames = {"cart_id", "product_id"}))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -8,11 +8,40 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
+    @Query(value = "SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.id = :cartId",
+            countQuery = "SELECT count(ci) FROM CartItem ci WHERE ci.cart.id = :cartId")
     Page<CartItem> findAllByCartId(Long cartId, Pageable pageable);
 
+    @Query("SELECT new com.gridiron.ecommerce.cartItem.CartLine(c.userId, ci.product.id, ci.quantity, c.updatedAt) " +
+            "FROM CartItem ci JOIN ci.cart c WHERE c.updatedAt > :since")
+    List<CartLine> findCartLinesUpdatedAfter(LocalDateTime since);
+
+    /**
+     * Adds a quantity of a product to a cart, inserting the line when the cart does not have the product yet.
+     * The line stays locked until the transaction ends, so concurrent adds to the same line are applied in turn.
+     * @return The quantity of the line after the add
+     */
+    @Query(value = "INSERT INTO cart_item (id, cart_id, product_id, quantity, created_at, updated_at) " +
+            "VALUES (nextval('cart_item_seq'), :cartId, :productId, :quantity, :now, :now) " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE " +
+            "SET quantity = cart_item.quantity + EXCLUDED.quantity, updated_at = EXCLUDED.updated_at " +
+            "RETURNING quantity", nativeQuery = true)
+    int upsertQuantity(Long cartId, Long productId, int quantity, LocalDateTime now);
+
+    @Query("SELECT ci.product.id FROM CartItem ci WHERE ci.id = :cartItemId AND ci.cart.id = :cartId")
+    Optional<Long> findProductIdByIdAndCartId(Long cartItemId, Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.id = :cartItemId")
+    void deleteByCartItemId(Long cartItemId);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM CartItem ci WHERE ci.product.id = :productId")
@@ -9,7 +9,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 @Service
 @AllArgsConstructor
@@ -18,9 +17,15 @@ public class CartItemService {
     private final CartItemRepository cartItemRepository;
     private final ProductService productService;
 
+    /**
+     * This method fetches the items in a cart with pagination.
+     * The products of the items are fetched in the same query, so rendering a page does not load them one by one
+     * @param cartId The id of the cart
+     * @param page The page number to be fetched
+     * @param size The number of items to be fetched on the page
+     */
     public PaginatedData fetchCartItemsByCartId(Long cartId, int page, int size) {
         Page<CartItem> cartItems = cartItemRepository.findAllByCartId(cartId, PageRequest.of(page-1, size));
-        System.out.println(cartItems.getContent());
         return new PaginatedData(cartItems.getTotalPages(),
                 cartItems.getNumberOfElements(),
                 cartItems.getTotalElements(),
@@ -28,12 +33,12 @@ public class CartItemService {
     }
 
     List<CartItemResponse> formatCartItems(List<CartItem> cartItems) {
-        List<CartItemResponse> cartItemResponses = new ArrayList<>();
+        List<CartItemResponse> cartItemResponses = new ArrayList<>(cartItems.size());
         for (CartItem cartItem : cartItems) {
 
             cartItemResponses.add(new CartItemResponse(
                     cartItem.getId(),
-                    productService.formatProductsToProductResponse(Set.of(cartItem.getProduct())).get(0),
+                    productService.formatProductToProductResponse(cartItem.getProduct()),
                     cartItem.getQuantity()
             ));
         }
@@ -0,0 +1,14 @@
+package com.gridiron.ecommerce.cartItem;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product line of a user's cart, with the time the cart was last changed
+ */
+public record CartLine(
+        Long userId,
+        Long productId,
+        int quantity,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,15 @@
+package com.gridiron.ecommerce.cartItem.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CreateCartItemsRequest(
+
+        @NotEmpty(message = "items are required")
+        @Size(max = 100, message = "at most 100 items can be added at once")
+        List<@Valid CreateCartItemRequest> items
+) {
+}
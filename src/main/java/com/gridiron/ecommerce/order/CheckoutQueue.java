@@ -0,0 +1,280 @@
+package com.gridiron.ecommerce.order;
+
+import com.gridiron.ecommerce.cart.CartService;
+import com.gridiron.ecommerce.order.response.CheckoutResponse;
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
+import com.gridiron.ecommerce.utility.concurrency.DatabaseAccessLimiter;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import com.gridiron.ecommerce.utility.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CheckoutQueue takes checkouts off the request thread when application.checkout.async.enabled is set.
+ *
+ * The endpoint only checks that the cart has items, puts a checkout command on a bounded queue and returns a
+ * reference the client polls for the outcome. When the queue is full the checkout is refused with a 429 so that
+ * a sale backs off at the edge instead of piling up connections. A fixed pool of workers drains the queue in
+ * micro-batches and places every order of a batch in one transaction, so the stock updates and inserts of the
+ * batch are committed together. If any checkout of a batch fails, the batch is rolled back and its checkouts are
+ * retried one transaction each, so a single rejected cart never fails the others. With virtual threads, a worker
+ * takes its database permit before it opens the transaction, so it never holds a connection while waiting for one.
+ *
+ * The outcome of every checkout is kept in the `checkouts` cache. Queue depth is published as the
+ * `checkout.queue.depth` gauge, batch latency as the `checkout.drain` timer and outcomes as `checkout.outcomes`.
+ */
+@Service
+@Log
+public class CheckoutQueue {
+
+    private final OrderService orderService;
+    private final CartService cartService;
+    private final TransactionTemplate transactionTemplate;
+    //only present with virtual threads
+    private final DatabaseAccessLimiter databaseAccessLimiter;
+    private final Cache checkouts;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final BlockingQueue<CheckoutCommand> queue;
+    private final Timer drainTimer;
+
+    //reference of the checkout waiting in the queue for each user, so a user cannot queue the same cart twice
+    private final Map<Long, String> pendingByUser = new ConcurrentHashMap<>();
+
+    private ExecutorService executorService;
+    private volatile boolean running;
+
+    record CheckoutCommand(String reference, Long userId) {
+    }
+
+    public CheckoutQueue(OrderService orderService,
+                         CartService cartService,
+                         PlatformTransactionManager transactionManager,
+                         Optional<DatabaseAccessLimiter> databaseAccessLimiter,
+                         CacheManager cacheManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${application.checkout.async.enabled}") boolean enabled,
+                         @Value("${application.checkout.async.queue-capacity}") int queueCapacity,
+                         @Value("${application.checkout.async.workers}") int workers,
+                         @Value("${application.checkout.async.batch-size}") int batchSize) {
+        this.orderService = orderService;
+        this.cartService = cartService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseAccessLimiter = databaseAccessLimiter.orElse(null);
+        this.checkouts = cacheManager.getCache(CacheConfig.CHECKOUTS);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.drainTimer = Timer.builder("checkout.drain")
+                .description("Time taken to place a batch of queued checkouts")
+                .register(meterRegistry);
+        Gauge.builder("checkout.queue.depth", queue, BlockingQueue::size)
+                .description("Checkouts waiting to be placed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the workers when asynchronous checkout is enabled
+     */
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        executorService = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            executorService.submit(this::drain);
+        }
+    }
+
+    /**
+     * Stops taking checkouts and places the ones already queued before shutting down
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executorService == null) {
+            return;
+        }
+        running = false;
+        executorService.shutdown();
+        if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warning(queue.size() + " queued checkouts were not placed before shutdown");
+            executorService.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a checkout of the user's cart.
+     * If the user already has a checkout waiting in the queue, that checkout is returned instead.
+     * @param userId The userId of the user that owns the cart
+     * @return The reference and status of the queued checkout
+     * @throws ResourceNotFoundException if the user has no cart or the cart is empty
+     * @throws TooManyRequestsException if the queue is full
+     */
+    public CheckoutResponse submit(Long userId) {
+        if (!cartService.hasItems(userId)) {
+            throw new ResourceNotFoundException("Cart is empty");
+        }
+
+        String reference = UUID.randomUUID().toString();
+        String pendingReference = pendingByUser.putIfAbsent(userId, reference);
+        if (pendingReference != null) {
+            CheckoutResponse pending = checkouts.get(pendingReference, CheckoutResponse.class);
+            if (pending != null) {
+                return pending;
+            }
+            pendingByUser.put(userId, reference);
+        }
+
+        CheckoutResponse queued = CheckoutResponse.builder()
+                .reference(reference)
+                .userId(userId)
+                .status(CheckoutStatus.QUEUED)
+                .build();
+        checkouts.put(reference, queued);
+
+        if (!queue.offer(new CheckoutCommand(reference, userId))) {
+            pendingByUser.remove(userId, reference);
+            checkouts.evict(reference);
+            throw new TooManyRequestsException("Too many checkouts in progress, please try again shortly");
+        }
+        return queued;
+    }
+
+    /**
+     * Fetches the outcome of a checkout
+     * @param reference The reference returned when the checkout was queued
+     * @param userId The userId of the user that owns the checkout
+     * @throws ResourceNotFoundException if there is no checkout with the reference for the user
+     */
+    public CheckoutResponse fetchCheckout(String reference, Long userId) {
+        CheckoutResponse checkout = checkouts.get(reference, CheckoutResponse.class);
+        if (checkout == null || !checkout.userId().equals(userId)) {
+            throw new ResourceNotFoundException("Checkout with reference " + reference + " not found");
+        }
+        return checkout;
+    }
+
+    /**
+     * Worker loop: takes a batch of checkouts off the queue and places it, until stopped and the queue is empty
+     */
+    private void drain() {
+        List<CheckoutCommand> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                CheckoutCommand first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                drainTimer.record(() -> placeBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.severe("Checkout worker failed: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Places every checkout of the batch in one transaction, falling back to one transaction per checkout
+     * when any of them fails
+     * @param batch The checkouts to be placed
+     */
+    void placeBatch(List<CheckoutCommand> batch) {
+        if (batch.size() > 1) {
+            try {
+                List<Long> orderIds = inTransaction(status -> batch.stream()
+                        .map(command -> orderService.createOrderForUser(command.userId()))
+                        .toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    complete(batch.get(i), CheckoutStatus.PLACED, orderIds.get(i), "Order Placed Successfully");
+                }
+                return;
+            } catch (RuntimeException e) {
+                log.info("Checkout batch of " + batch.size() + " rolled back, placing one by one: " + e.getMessage());
+            }
+        }
+        batch.forEach(this::placeOne);
+    }
+
+    /**
+     * Places a single checkout in its own transaction and records the outcome
+     * @param command The checkout to be placed
+     */
+    private void placeOne(CheckoutCommand command) {
+        try {
+            Long orderId = inTransaction(status -> orderService.createOrderForUser(command.userId()));
+            complete(command, CheckoutStatus.PLACED, orderId, "Order Placed Successfully");
+        } catch (InvalidInputException | ResourceNotFoundException e) {
+            complete(command, CheckoutStatus.REJECTED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            log.severe("Checkout " + command.reference() + " failed: " + e.getMessage());
+            complete(command, CheckoutStatus.REJECTED, null, "Oops something went wrong, Try Again");
+        }
+    }
+
+    /**
+     * Runs the callback in a transaction, holding a database permit from before the transaction takes its connection
+     * @param callback The work of the transaction
+     */
+    private <T> T inTransaction(TransactionCallback<T> callback) {
+        if (databaseAccessLimiter == null) {
+            return transactionTemplate.execute(callback);
+        }
+        return databaseAccessLimiter.withPermit(() -> transactionTemplate.execute(callback));
+    }
+
+    private void complete(CheckoutCommand command, CheckoutStatus status, Long orderId, String message) {
+        checkouts.put(command.reference(), CheckoutResponse.builder()
+                .reference(command.reference())
+                .userId(command.userId())
+                .status(status)
+                .orderId(orderId)
+                .message(message)
+                .build());
+        pendingByUser.remove(command.userId(), command.reference());
+        Counter.builder("checkout.outcomes")
+                .tag("status", status.name())
+                .register(meterRegistry)
+                .increment();
+    }
+}
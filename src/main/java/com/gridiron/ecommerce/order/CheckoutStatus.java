@@ -0,0 +1,7 @@
+package com.gridiron.ecommerce.order;
+
+public enum CheckoutStatus {
+    QUEUED,
+    PLACED,
+    REJECTED
+}
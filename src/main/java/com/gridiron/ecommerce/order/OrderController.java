@@ -2,8 +2,9 @@ package com.gridiron.ecommerce.order;
 
 import com.gridiron.ecommerce.orderItem.OrderItemService;
 import com.gridiron.ecommerce.utility.ApiResponse;
-import com.gridiron.ecommerce.utility.security.JwtService;
+import com.gridiron.ecommerce.utility.security.RequestFilter;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,19 +15,37 @@ public class OrderController {
 
     private final OrderService orderService;
     private final OrderItemService orderItemService;
-    private final JwtService jwtService;
+    private final CheckoutQueue checkoutQueue;
 
     /**
      * This endpoint create a new order for a user from the existing cart.
+     * When asynchronous checkout is enabled the order is queued, and the checkout reference to poll is returned
      * It is secured and only accessible to authenticated users with CUSTOMER role
-     * @param token user authorization token, to extract userId from
+     * @param userId The id of the authenticated user, set by the request filter
      */
     @PostMapping("/customer")
-    private ResponseEntity<ApiResponse> createOrderForUser(@RequestHeader("Authorization") String token){
-        orderService.createOrderForUser(jwtService.extractUserId(token));
+    private ResponseEntity<ApiResponse> createOrderForUser(@RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId){
+        if (checkoutQueue.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse(true, "Order Received", checkoutQueue.submit(userId)));
+        }
+        orderService.createOrderForUser(userId);
         return ResponseEntity.ok(new ApiResponse(true, "Order Placed Successfully", null));
     }
 
+    /**
+     * This endpoint fetches the outcome of a queued checkout
+     * It is secured and only accessible to authenticated users with CUSTOMER role
+     * @param userId The id of the authenticated user, set by the request filter
+     * @param reference The checkout reference returned when the order was received
+     */
+    @GetMapping("/customer/checkouts/{reference}")
+    private ResponseEntity<ApiResponse> fetchCheckout(@RequestAttribute(RequestFilter.USER_ID_ATTRIBUTE) Long userId,
+                                                      @PathVariable("reference") String reference){
+        return ResponseEntity.ok(new ApiResponse(true, "Fetched Checkout Successfully",
+                checkoutQueue.fetchCheckout(reference, userId)));
+    }
+
     /**
      * This endpoint updated the status of an order
      * It is secured and only accessible to authenticated users with ADMIN role
@@ -1,8 +1,21 @@
 package com.gridiron.ecommerce.order;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    @Query(value = "SELECT new com.gridiron.ecommerce.order.OrderSummary(" +
+            "o.id, o.userId, o.totalPrice, o.status, o.createdAt, " +
+            "o.orderShippedAt, o.orderDeliveredAt, o.orderCanceledAt, count(oi.id)) " +
+            "FROM Order o LEFT JOIN o.orderItems oi " +
+            "GROUP BY o.id, o.userId, o.totalPrice, o.status, o.createdAt, " +
+            "o.orderShippedAt, o.orderDeliveredAt, o.orderCanceledAt " +
+            "ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT count(o) FROM Order o")
+    Page<OrderSummary> findAllOrderSummaries(Pageable pageable);
 }
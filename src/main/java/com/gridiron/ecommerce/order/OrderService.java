@@ -18,7 +18,6 @@ import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -53,11 +52,14 @@ public class OrderService {
     /**
      * This method creates a new order for a user
      * @param userId The userId of the user that owns the order
+     * @return The id of the order created
      */
     @Transactional
-    public void createOrderForUser(Long userId) {
+    public Long createOrderForUser(Long userId) {
 
-        Cart cart = cartRepository.findByUserId(userId)
+        cartService.flushForCheckout(userId);
+        //the only read of the whole cart, its items and their products are fetched with it
+        Cart cart = cartRepository.findForCheckoutByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
 
         if (cart.getCartItems().isEmpty()) {
@@ -82,13 +84,14 @@ public class OrderService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         order.setTotalPrice(totalPrice);
 
+        //update product quantity first, so an order that cannot be fulfilled is rejected before anything is written
+        productService.updateProductQuantityFromOrderItem(orderItems,true);
         // Save the Order
         orderRepository.save(order);
         // Clear the Cart
         cartService.clearCart(cart);
-       //update product quantity
-        productService.updateProductQuantityFromOrderItem(orderItems,true);
 
+        return order.getId();
     }
 
 
@@ -113,6 +116,7 @@ public class OrderService {
      * @param orderId the id of the order to be updated
      * @param orderStatus the status to be updated to, PENDING,
      */
+    @Transactional
     public void updateOrderStatusByOrderId(Long orderId, OrderStatus orderStatus) {
 
         Order order = orderRepository.findById(orderId)
@@ -135,12 +139,14 @@ public class OrderService {
     }
 
     /**
-     * Fetches all the orders in the system with pagination
+     * Fetches all the orders in the system with pagination, newest first.
+     * The number of items of each order is counted by the database in the same query,
+     * so a page costs one query plus the count regardless of the number of orders or items
      * @param page The page number to be fetched for
      * @param size The number of orders to be fetched on the page
      */
     public PaginatedData fetchAllOrders(int page, int size){
-        Page<Order> orders = orderRepository.findAll(PageRequest.of(page-1, size, Sort.by(Sort.Order.desc("createdAt"))));
+        Page<OrderSummary> orders = orderRepository.findAllOrderSummaries(PageRequest.of(page-1, size));
 
         return PaginatedData.builder()
                 .totalPage(orders.getTotalPages())
@@ -151,25 +157,25 @@ public class OrderService {
     }
 
     /**
-     * Formats a list of orders to OrderResponse object
-     * @param orders List of orders
+     * Formats a list of order summaries to OrderResponse object
+     * @param orders List of order summaries
      * @return List of order response
      */
-    private List<OrderResponse> formatOrders(Collection<Order> orders) {
+    List<OrderResponse> formatOrders(Collection<OrderSummary> orders) {
 
-        List<OrderResponse> orderResponses = new ArrayList<>();
-        for (Order order : orders) {
+        List<OrderResponse> orderResponses = new ArrayList<>(orders.size());
+        for (OrderSummary order : orders) {
 
             orderResponses.add(OrderResponse.builder()
-                    .orderId(order.getId())
-                    .userId(order.getUserId())
-                    .numberOfItems(order.getOrderItems().size())
-                    .status(order.getStatus())
-                    .totalPrice(order.getTotalPrice())
-                    .shippedAt(order.getOrderShippedAt())
-                    .createdAt(order.getCreatedAt())
-                    .cancelledAt(order.getOrderCanceledAt())
-                    .deliveredAt(order.getOrderDeliveredAt())
+                    .orderId(order.orderId())
+                    .userId(order.userId())
+                    .numberOfItems(Math.toIntExact(order.numberOfItems()))
+                    .status(order.status())
+                    .totalPrice(order.totalPrice())
+                    .shippedAt(order.shippedAt())
+                    .createdAt(order.createdAt())
+                    .cancelledAt(order.canceledAt())
+                    .deliveredAt(order.deliveredAt())
                     .build()
             );
         }
@@ -0,0 +1,21 @@
+package com.gridiron.ecommerce.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read model of an order for listings, with the number of items computed by the database.
+ * It is built directly by the grouped query in OrderRepository, so listing orders never initializes the item collections.
+ */
+public record OrderSummary(
+        Long orderId,
+        Long userId,
+        BigDecimal totalPrice,
+        OrderStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime shippedAt,
+        LocalDateTime deliveredAt,
+        LocalDateTime canceledAt,
+        Long numberOfItems
+) {
+}
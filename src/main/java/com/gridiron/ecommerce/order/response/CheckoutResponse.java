@@ -0,0 +1,14 @@
+package com.gridiron.ecommerce.order.response;
+
+import com.gridiron.ecommerce.order.CheckoutStatus;
+import lombok.Builder;
+
+@Builder
+public record CheckoutResponse(
+        String reference,
+        Long userId,
+        CheckoutStatus status,
+        Long orderId,
+        String message
+) {
+}
@@ -0,0 +1,18 @@
+package com.gridiron.ecommerce.orderItem;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat read model of an order item and the product fields shown with it.
+ * It is built directly by the query in OrderItemRepository, so listing order items never loads OrderItem or Product entities.
+ */
+public record OrderItemProjection(
+        Long orderItemId,
+        int quantity,
+        Long productId,
+        String productName,
+        String productDescription,
+        int productAvailabilityQuantity,
+        BigDecimal productPrice
+) {
+}
@@ -3,10 +3,21 @@ package com.gridiron.ecommerce.orderItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
-    Page<OrderItem> findByOrderId(Long orderId, Pageable pageable);
+    @Query(value = "SELECT new com.gridiron.ecommerce.orderItem.OrderItemProjection(" +
+            "oi.id, oi.quantity, p.id, p.name, p.description, p.availabilityQuantity, p.price) " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id = :orderId ORDER BY oi.createdAt DESC, oi.id DESC",
+            countQuery = "SELECT count(oi) FROM OrderItem oi WHERE oi.order.id = :orderId")
+    Page<OrderItemProjection> findByOrderId(Long orderId, Pageable pageable);
+
+    @Query("SELECT new com.gridiron.ecommerce.orderItem.ProductPopularity(oi.product.id, SUM(oi.quantity)) " +
+            "FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductPopularity> findProductPopularity();
 }
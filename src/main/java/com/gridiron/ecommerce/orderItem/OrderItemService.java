@@ -1,36 +1,36 @@
 package com.gridiron.ecommerce.orderItem;
 
-import com.gridiron.ecommerce.cartItem.CartItem;
-import com.gridiron.ecommerce.cartItem.response.CartItemResponse;
 import com.gridiron.ecommerce.orderItem.response.OrderItemResponse;
-import com.gridiron.ecommerce.product.ProductService;
+import com.gridiron.ecommerce.product.response.ProductResponse;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 @Service
 public class OrderItemService {
 
     private final OrderItemRepository orderItemRepository;
-    private final ProductService productService;
 
 
-    public OrderItemService(OrderItemRepository orderItemRepository, ProductService productService) {
+    public OrderItemService(OrderItemRepository orderItemRepository) {
         this.orderItemRepository = orderItemRepository;
-        this.productService = productService;
     }
 
 
+    /**
+     * This method fetches the items of an order with pagination, newest first.
+     * Each page is read as a projection carrying the product fields, so it costs one query regardless of the page size
+     * @param orderId The id of the order
+     * @param page The page number to be fetched
+     * @param size The number of items to be fetched on the page
+     */
     public PaginatedData fetchAllOrderItemsByOrderId(Long orderId, int page, int size){
 
-        Page<OrderItem> orderItems = orderItemRepository.findByOrderId(
-                orderId, PageRequest.of(page-1, size, Sort.by(Sort.Order.desc("createdAt"))));
+        Page<OrderItemProjection> orderItems = orderItemRepository.findByOrderId(orderId, PageRequest.of(page-1, size));
 
         return PaginatedData.builder()
                 .currentSize(orderItems.getNumberOfElements())
@@ -41,14 +41,19 @@ public class OrderItemService {
     }
 
 
-    List<OrderItemResponse> formatOrderItems(List<OrderItem> orderItems) {
-        List<OrderItemResponse> orderItemResponses = new ArrayList<>();
-        for (OrderItem orderItem : orderItems) {
+    List<OrderItemResponse> formatOrderItems(List<OrderItemProjection> orderItems) {
+        List<OrderItemResponse> orderItemResponses = new ArrayList<>(orderItems.size());
+        for (OrderItemProjection orderItem : orderItems) {
 
             orderItemResponses.add(new OrderItemResponse(
-                    orderItem.getId(),
-                    productService.formatProductsToProductResponse(Set.of(orderItem.getProduct())).get(0),
-                    orderItem.getQuantity()
+                    orderItem.orderItemId(),
+                    new ProductResponse(
+                            orderItem.productId(),
+                            orderItem.productName(),
+                            orderItem.productDescription(),
+                            orderItem.productAvailabilityQuantity(),
+                            orderItem.productPrice()),
+                    orderItem.quantity()
             ));
         }
         return orderItemResponses;
@@ -0,0 +1,10 @@
+package com.gridiron.ecommerce.orderItem;
+
+/**
+ * The total quantity of a product across all orders
+ */
+public record ProductPopularity(
+        Long productId,
+        Long quantity
+) {
+}
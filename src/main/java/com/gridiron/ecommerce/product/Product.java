@@ -3,6 +3,7 @@ package com.gridiron.ecommerce.product;
 import com.gridiron.ecommerce.utility.GeneralEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -15,7 +16,7 @@ import java.math.BigDecimal;
 
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_created_at_id", columnList = "created_at, id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,528 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.orderItem.ProductPopularity;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ProductCatalog holds the products in memory for the indexes behind product search, suggestions and the filtered
+ * listing, which read it instead of the database.
+ *
+ * Every product is held once, in an immutable snapshot ordered newest first, with the product ids in a sorted
+ * primitive array so a product is found by binary search. Products that change are kept in a small map of pending
+ * changes that readers merge with the snapshot. The map is merged into a new snapshot on a short schedule, or on a
+ * background thread as soon as it holds too many changes, and never on the thread that committed the change.
+ * Each ProductCatalogIndex registered with the catalog derives its own structure from every new snapshot, and the
+ * structures are swapped in together with the snapshot, so a reader always sees them agree.
+ *
+ * The popularity of a product is the quantity ordered of it, read from the order items when the catalog is built and
+ * increased as orders deduct stock. Everything is rebuilt from the database once the application is ready and on a
+ * longer schedule, which picks up changes made by other instances.
+ */
+@Component
+@Log
+public class ProductCatalog {
+
+    //a merge is started in the background once there are this many pending changes, bounding the work of every read
+    static final int MAX_PENDING = 1000;
+
+    //the order of the snapshot, createdAt then id descending
+    static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingLong(Entry::createdAt)
+            .thenComparingLong(Entry::productId)
+            .reversed();
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final OrderItemRepository orderItemRepository;
+    private final int rebuildBatchSize;
+    private final List<ProductCatalogIndex<?>> indexes = new CopyOnWriteArrayList<>();
+
+    //serializes changes to the pending map and swaps of the state, reading does not take it. A lock rather than a
+    //monitor, so a virtual thread waiting for it to commit a change unmounts instead of pinning its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    //serializes the merges and rebuilds that replace the snapshot, which do their work outside writeLock
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+
+    private volatile State state = new State(Snapshot.of(List.of()), new ConcurrentHashMap<>(), Map.of());
+    private volatile ExecutorService compactor;
+
+    //product changes published while a rebuild is loading, replayed on the rebuilt catalog. Guarded by writeLock
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    public ProductCatalog(ProductRepository productRepository, ProductService productService,
+                          OrderItemRepository orderItemRepository,
+                          @Value("${application.catalog.rebuild-batch-size}") int rebuildBatchSize) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.orderItemRepository = orderItemRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    /**
+     * Starts the thread that merges the pending changes once there are too many
+     */
+    @PostConstruct
+    void start() {
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-catalog-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+
+    /**
+     * Registers an index, building its structure from the current snapshot and then from every new one
+     * @param index The index to be registered
+     */
+    void register(ProductCatalogIndex<?> index) {
+        compactLock.lock();
+        try {
+            Object built = index.build(state.snapshot());
+            writeLock.lock();
+            try {
+                indexes.add(index);
+                State current = state;
+                Map<ProductCatalogIndex<?>, Object> structures = new IdentityHashMap<>(current.structures());
+                structures.put(index, built);
+                state = new State(current.snapshot(), current.pending(), structures);
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current snapshot, its pending changes and the structure the index derived from the snapshot
+     * @param index A registered index
+     */
+    @SuppressWarnings("unchecked")
+    <T> View<T> view(ProductCatalogIndex<T> index) {
+        State current = state;
+        return new View<>(current.snapshot(), current.pending(), (T) current.structures().get(index));
+    }
+
+    /**
+     * Returns the number of products in the catalog
+     */
+    int size() {
+        State current = state;
+        return new View<>(current.snapshot(), current.pending(), null).size();
+    }
+
+    /**
+     * Adds, replaces or removes a product once the change is committed
+     * @param event The product that changed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        writeLock.lock();
+        try {
+            apply(state, event);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        requestCompactionIfFull();
+    }
+
+    /**
+     * Adjusts the quantities once a stock change is committed, and adds the quantities deducted by orders to the
+     * popularity of the products. Restored quantities are not taken off the popularity, so it matches the order items
+     * counted by a rebuild
+     * @param event The quantities added to or deducted from the products
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        writeLock.lock();
+        try {
+            State current = state;
+            event.quantityDeltas().forEach((productId, delta) -> {
+                Entry entry = current.find(productId);
+                if (entry != null) {
+                    current.pending().put(productId, entry.withStockChange(delta, event.ordered()));
+                }
+            });
+        } finally {
+            writeLock.unlock();
+        }
+        requestCompactionIfFull();
+    }
+
+    /**
+     * Merges the pending changes into a new snapshot, and every index with it, then swaps them in. The merge runs
+     * outside writeLock, so changes committed meanwhile are not held up and stay pending for the next merge
+     */
+    @Scheduled(fixedDelayString = "${application.catalog.compact-interval-ms}")
+    public void compact() {
+        compactionRequested.set(false);
+        compactLock.lock();
+        try {
+            State current = state;
+            if (current.pending().isEmpty()) {
+                return;
+            }
+            //changes put while copying are either copied or left pending, both of which are merged correctly
+            Map<Long, Entry> changes = Map.copyOf(current.pending());
+
+            Merge merge = current.snapshot().merge(changes);
+            Map<ProductCatalogIndex<?>, Object> structures = new IdentityHashMap<>();
+            for (ProductCatalogIndex<?> index : indexes) {
+                structures.put(index, mergeStructure(index, current.structures().get(index), merge));
+            }
+
+            writeLock.lock();
+            try {
+                Map<Long, Entry> remaining = new ConcurrentHashMap<>();
+                state.pending().forEach((productId, entry) -> {
+                    if (changes.get(productId) != entry) {
+                        remaining.put(productId, entry);
+                    }
+                });
+                state = new State(merge.merged(), remaining, structures);
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * Builds the catalog from the products table, in pages of the configured size, and from the quantities ordered of
+     * each product, then swaps it in once every index is built from it. If building fails the current catalog is kept
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.catalog.rebuild-interval-ms}",
+            initialDelayString = "${application.catalog.rebuild-interval-ms}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writeLock.lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                writeLock.unlock();
+            }
+
+            Map<Long, Long> popularity = new HashMap<>();
+            for (ProductPopularity productPopularity : orderItemRepository.findProductPopularity()) {
+                popularity.put(productPopularity.productId(), productPopularity.quantity());
+            }
+
+            //the keyset pages come newest first, the order of the snapshot
+            List<Entry> entries = new ArrayList<>();
+            Limit limit = Limit.of(rebuildBatchSize);
+            List<Product> products = productRepository.findFirstKeysetPage(limit);
+            while (!products.isEmpty()) {
+                for (Product product : products) {
+                    entries.add(new Entry(product.getId(), toNanos(product.getCreatedAt()),
+                            productService.formatProductToProductResponse(product),
+                            popularity.getOrDefault(product.getId(), 0L)));
+                }
+                if (products.size() < rebuildBatchSize) {
+                    break;
+                }
+                Product last = products.get(products.size() - 1);
+                products = productRepository.findKeysetPageAfter(last.getCreatedAt(), last.getId(), limit);
+            }
+            entries.sort(NEWEST_FIRST);
+            Snapshot snapshot = Snapshot.of(entries);
+
+            compactLock.lock();
+            try {
+                Map<ProductCatalogIndex<?>, Object> structures = new IdentityHashMap<>();
+                for (ProductCatalogIndex<?> index : indexes) {
+                    structures.put(index, index.build(snapshot));
+                }
+                writeLock.lock();
+                try {
+                    State rebuilt = new State(snapshot, new ConcurrentHashMap<>(), structures);
+                    changesDuringRebuild.forEach(change -> apply(rebuilt, change));
+                    state = rebuilt;
+                } finally {
+                    writeLock.unlock();
+                }
+            } finally {
+                compactLock.unlock();
+            }
+            log.info("Built the product catalog of " + entries.size() + " products");
+        } catch (RuntimeException e) {
+            log.warning("Rebuilding the product catalog failed, the current catalog is kept: " + e.getMessage());
+        } finally {
+            writeLock.lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Records a product change as pending, keeping the popularity the product already had. Called under writeLock
+     */
+    private void apply(State target, ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            target.pending().put(event.productId(), new Entry(event.productId(), 0, null, 0));
+            return;
+        }
+        Entry existing = target.find(event.productId());
+        target.pending().put(event.productId(), new Entry(event.productId(), toNanos(event.createdAt()),
+                event.product(), existing == null ? 0 : existing.popularity()));
+    }
+
+    /**
+     * Asks the compactor to merge the pending changes once there are too many to scan on every read, so the thread
+     * that committed the change never pays for the merge
+     */
+    private void requestCompactionIfFull() {
+        ExecutorService current = compactor;
+        if (current != null && state.pending().size() >= MAX_PENDING && compactionRequested.compareAndSet(false, true)) {
+            current.execute(this::compact);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T mergeStructure(ProductCatalogIndex<T> index, Object previous, Merge merge) {
+        return index.merge((T) previous, merge);
+    }
+
+    private static long toNanos(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdAt.getNano();
+    }
+
+    /**
+     * A product with its creation time in nanoseconds and the quantity ordered of it, or a deleted product when
+     * product is null
+     */
+    record Entry(long productId, long createdAt, ProductResponse product, long popularity) {
+
+        boolean isDeleted() {
+            return product == null;
+        }
+
+        Entry withStockChange(int delta, boolean ordered) {
+            return new Entry(productId, createdAt, ProductResponse.builder()
+                    .productId(product.productId())
+                    .name(product.name())
+                    .description(product.description())
+                    .availabilityQuantity(Math.max(product.availabilityQuantity() + delta, 0))
+                    .price(product.price())
+                    .build(), ordered && delta < 0 ? popularity - delta : popularity);
+        }
+    }
+
+    /**
+     * A snapshot with its pending changes and the structure an index derived from the snapshot, as read at one time
+     */
+    record View<T>(Snapshot snapshot, Map<Long, Entry> pending, T structure) {
+
+        /**
+         * Returns the product as it is now, or null if it does not exist
+         */
+        Entry find(long productId) {
+            Entry entry = pending.get(productId);
+            if (entry != null) {
+                return entry.isDeleted() ? null : entry;
+            }
+            return snapshot.find(productId);
+        }
+
+        int size() {
+            int size = snapshot.size();
+            for (Entry entry : pending.values()) {
+                size += (entry.isDeleted() ? 0 : 1) - (snapshot.position(entry.productId()) >= 0 ? 1 : 0);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * The snapshot, the changes made since it was built keyed by product id, and the structure of every index.
+     * Only the pending map is changed, under writeLock
+     */
+    private record State(Snapshot snapshot, Map<Long, Entry> pending, Map<ProductCatalogIndex<?>, Object> structures) {
+
+        Entry find(long productId) {
+            Entry entry = pending.get(productId);
+            if (entry != null) {
+                return entry.isDeleted() ? null : entry;
+            }
+            return snapshot.find(productId);
+        }
+    }
+
+    /**
+     * A snapshot merged with pending changes. newPositions holds the position in the merged snapshot of every
+     * position of the previous one, -1 if the product changed or was deleted, and changedPositions holds the
+     * positions of the changed products in the merged snapshot, ascending
+     */
+    record Merge(Snapshot previous, Snapshot merged, int[] newPositions, int[] changedPositions,
+                 Map<Long, Entry> changes) {
+    }
+
+    /**
+     * The products ordered newest first, with their ids sorted ascending next to their positions
+     */
+    static final class Snapshot {
+
+        private final Entry[] entries;
+        private final long[] ids;
+        private final int[] positions;
+
+        private Snapshot(Entry[] entries, long[] ids, int[] positions) {
+            this.entries = entries;
+            this.ids = ids;
+            this.positions = positions;
+        }
+
+        /**
+         * Builds a snapshot from products ordered newest first
+         */
+        static Snapshot of(List<Entry> newestFirst) {
+            Entry[] entries = newestFirst.toArray(new Entry[0]);
+            long[] ids = new long[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                ids[i] = entries[i].productId();
+            }
+            Arrays.sort(ids);
+            int[] positions = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                positions[Arrays.binarySearch(ids, entries[i].productId())] = i;
+            }
+            return new Snapshot(entries, ids, positions);
+        }
+
+        int size() {
+            return entries.length;
+        }
+
+        Entry entry(int position) {
+            return entries[position];
+        }
+
+        /**
+         * Returns the position of the product, -1 if it is not in the snapshot
+         */
+        int position(long productId) {
+            int index = Arrays.binarySearch(ids, productId);
+            return index < 0 ? -1 : positions[index];
+        }
+
+        Entry find(long productId) {
+            int position = position(productId);
+            return position < 0 ? null : entries[position];
+        }
+
+        /**
+         * Returns a new snapshot with the pending changes applied. The products kept are merged with the changed ones
+         * and renumbered, and the sorted ids are merged the same way, so nothing is sorted but the changes
+         */
+        Merge merge(Map<Long, Entry> pending) {
+            List<Entry> changed = new ArrayList<>(pending.size());
+            int removed = 0;
+            for (Entry entry : pending.values()) {
+                if (!entry.isDeleted()) {
+                    changed.add(entry);
+                }
+                if (position(entry.productId()) >= 0) {
+                    removed++;
+                }
+            }
+            changed.sort(NEWEST_FIRST);
+
+            int[] newPositions = new int[entries.length];
+            int[] changedPositions = new int[changed.size()];
+            Entry[] merged = new Entry[entries.length - removed + changed.size()];
+            int next = 0;
+            int position = 0;
+            for (int i = 0; i < entries.length; i++) {
+                if (pending.containsKey(entries[i].productId())) {
+                    newPositions[i] = -1;
+                    continue;
+                }
+                while (next < changed.size() && NEWEST_FIRST.compare(changed.get(next), entries[i]) < 0) {
+                    changedPositions[next] = position;
+                    merged[position++] = changed.get(next++);
+                }
+                newPositions[i] = position;
+                merged[position++] = entries[i];
+            }
+            while (next < changed.size()) {
+                changedPositions[next] = position;
+                merged[position++] = changed.get(next++);
+            }
+
+            //the changed products by id, merged with the ids kept
+            Integer[] changedById = new Integer[changed.size()];
+            for (int i = 0; i < changed.size(); i++) {
+                changedById[i] = i;
+            }
+            Arrays.sort(changedById, Comparator.comparingLong(i -> changed.get(i).productId()));
+            long[] mergedIds = new long[merged.length];
+            int[] mergedPositions = new int[merged.length];
+            next = 0;
+            int index = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int newPosition = newPositions[positions[i]];
+                if (newPosition < 0) {
+                    continue;
+                }
+                while (next < changedById.length && changed.get(changedById[next]).productId() < ids[i]) {
+                    mergedIds[index] = changed.get(changedById[next]).productId();
+                    mergedPositions[index++] = changedPositions[changedById[next++]];
+                }
+                mergedIds[index] = ids[i];
+                mergedPositions[index++] = newPosition;
+            }
+            while (next < changedById.length) {
+                mergedIds[index] = changed.get(changedById[next]).productId();
+                mergedPositions[index++] = changedPositions[changedById[next++]];
+            }
+            return new Merge(this, new Snapshot(merged, mergedIds, mergedPositions), newPositions, changedPositions,
+                    pending);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.gridiron.ecommerce.product;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A structure an index derives from the products of the ProductCatalog, such as the terms of a search index or
+ * the columns of the filtered listing. It is built from every snapshot loaded from the database, and merged with
+ * every snapshot the pending changes are merged into. Both run off the request path.
+ * @param <T> The type of the structure
+ */
+interface ProductCatalogIndex<T> {
+
+    /**
+     * Builds the structure from a whole snapshot
+     */
+    T build(ProductCatalog.Snapshot snapshot);
+
+    /**
+     * Returns the structure of the merged snapshot from the structure of the previous one. The previous structure may
+     * be changed in place, as long as readers still using it skip the changed products
+     */
+    T merge(T previous, ProductCatalog.Merge merge);
+
+    static <T> ProductCatalogIndex<T> of(Function<ProductCatalog.Snapshot, T> builder,
+                                         BiFunction<T, ProductCatalog.Merge, T> merger) {
+        return new ProductCatalogIndex<>() {
+            @Override
+            public T build(ProductCatalog.Snapshot snapshot) {
+                return builder.apply(snapshot);
+            }
+
+            @Override
+            public T merge(T previous, ProductCatalog.Merge merge) {
+                return merger.apply(previous, merge);
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by ProductService when a product is created, edited or deleted, so that in-memory views of the
+ * catalog can follow the change without reading the database.
+ * @param productId The id of the product that changed
+ * @param product The product as it is now, null if it was deleted
+ * @param createdAt When the product was created, null if it was deleted
+ */
+public record ProductChangedEvent(Long productId, ProductResponse product, LocalDateTime createdAt) {
+
+    public static ProductChangedEvent saved(ProductResponse product, LocalDateTime createdAt) {
+        return new ProductChangedEvent(product.productId(), product, createdAt);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
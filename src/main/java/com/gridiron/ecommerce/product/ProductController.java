@@ -2,19 +2,36 @@ package com.gridiron.ecommerce.product;
 
 import com.gridiron.ecommerce.product.request.CreateProductRequest;
 import com.gridiron.ecommerce.product.request.EditProductRequest;
+import com.gridiron.ecommerce.product.response.ProductImportJobResponse;
 import com.gridiron.ecommerce.utility.ApiResponse;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+
 @RestController
 @RequestMapping("/api/v1/products")
 @AllArgsConstructor
 public class ProductController {
 
+    //suggestions are requested on every keystroke and change slowly, so browsers and shared caches may reuse them
+    private static final CacheControl SUGGESTION_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5))
+            .cachePublic()
+            .staleWhileRevalidate(Duration.ofMinutes(1));
+
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductFacetService productFacetService;
+    private final ProductImportService productImportService;
 
     /**
      * This endpoint creates a new product
@@ -29,18 +46,113 @@ public class ProductController {
     }
 
     /**
-     * This endpoint creates a new product
+     * This endpoint creates and updates products in bulk from a CSV file with a header row, or from newline delimited
+     * JSON. Rows with a productId update that product and the others create a product. The body is read as it arrives,
+     * and the progress of the import can be fetched from the import job while it runs
+     * It is secured and only accessible by authenticated users with role ADMIN
+     * @param contentType text/csv or application/x-ndjson
+     * @param body the rows, UTF-8 encoded
+     */
+    @PostMapping(value = "/private/import", consumes = {"text/csv", "application/x-ndjson"})
+    private ResponseEntity<ApiResponse> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body) {
+
+        ProductImportJobResponse job = productImportService.importProducts(
+                ProductImportFormat.fromContentType(contentType), body);
+        if (job.status() == ProductImportJob.Status.FAILED) {
+            return new ResponseEntity<>(new ApiResponse(false, job.message(), job), HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "Products Imported Successfully", job));
+    }
+
+    /**
+     * This endpoint fetches the most recent import jobs, newest first
+     * It is secured and only accessible by authenticated users with role ADMIN
+     */
+    @GetMapping("/private/import")
+    private ResponseEntity<ApiResponse> fetchImportJobs() {
+
+        return ResponseEntity.ok(new ApiResponse(true, "Import Jobs Fetched Successfully",
+                productImportService.fetchImportJobs()));
+    }
+
+    /**
+     * This endpoint fetches the progress of an import job
+     * It is secured and only accessible by authenticated users with role ADMIN
+     */
+    @GetMapping("/private/import/{job-id}")
+    private ResponseEntity<ApiResponse> fetchImportJob(@PathVariable("job-id") String jobId) {
+
+        return ResponseEntity.ok(new ApiResponse(true, "Import Job Fetched Successfully",
+                productImportService.fetchImportJob(jobId)));
+    }
+
+    /**
+     * This endpoint fetches the products, newest first
      * It is not secured and accessible to all users
+     * @param after opaque cursor from the previous page. When present (empty for the first page) the cursor mode is used,
+     *              which returns a nextCursor instead of totals, otherwise the page number is used
+     * @param minPrice lowest price, inclusive. When any filter is present the products are filtered in memory and
+     *                 returned by page number with the facet counts
+     * @param maxPrice highest price, inclusive
+     * @param inStock true for products in stock only, false for products out of stock only
      */
     @GetMapping("/public")
     private ResponseEntity<ApiResponse> fetchProducts(@RequestParam(value = "page", required = false, defaultValue = "1") int page,
-                                                      @RequestParam(value = "size", required = false, defaultValue = "10") int size
+                                                      @RequestParam(value = "size", required = false, defaultValue = "10") int size,
+                                                      @RequestParam(value = "after", required = false) String after,
+                                                      @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                                      @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                                      @RequestParam(value = "inStock", required = false) Boolean inStock
                                                       ) {
 
+        if (minPrice != null || maxPrice != null || inStock != null) {
+            if (after != null) {
+                throw new InvalidInputException("Filters cannot be combined with a cursor, use page instead");
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Products Fetched Successfully",
+                    productFacetService.fetchProducts(minPrice, maxPrice, inStock, page, size)));
+        }
+
+        if (after != null) {
+            return ResponseEntity.ok(new ApiResponse(true, "Products Fetched Successfully",
+                    productService.fetchProductsAfter(after, size)));
+        }
+
         return ResponseEntity.ok(new ApiResponse(true, "Products Fetched Successfully",
                 productService.fetchProducts(page,size)));
     }
 
+    /**
+     * This endpoint searches the products by name and description, best matches first
+     * It is not secured and accessible to all users
+     * @param query the words to be searched for, the last letters of a word may be left out
+     */
+    @GetMapping("/public/search")
+    private ResponseEntity<ApiResponse> searchProducts(@RequestParam("q") String query,
+                                                       @RequestParam(value = "page", required = false, defaultValue = "1") int page,
+                                                       @RequestParam(value = "size", required = false, defaultValue = "10") int size) {
+
+        return ResponseEntity.ok(new ApiResponse(true, "Products Fetched Successfully",
+                productSearchService.search(query, page, size)));
+    }
+
+    /**
+     * This endpoint suggests the most ordered products whose name starts with the prefix, for autocompletion
+     * It is not secured and accessible to all users, and the response may be cached for five minutes
+     * @param prefix the beginning of a product name
+     * @param limit the number of suggestions, at most 20
+     */
+    @GetMapping("/public/suggest")
+    private ResponseEntity<ApiResponse> suggestProducts(@RequestParam("q") String prefix,
+                                                        @RequestParam(value = "limit", required = false, defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok()
+                .cacheControl(SUGGESTION_CACHE_CONTROL)
+                .body(new ApiResponse(true, "Suggestions Fetched Successfully",
+                        productSuggestService.suggest(prefix, limit)));
+    }
+
     /**
      * This endpoint edits a product by the productId
      * It is secured and only accessible by authenticated users with role ADMIN
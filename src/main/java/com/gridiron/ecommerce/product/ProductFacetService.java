@@ -0,0 +1,416 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductFacetsResponse;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.FacetedPaginatedData;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * ProductFacetService filters the products by price range and availability, newest first, and counts them by facet.
+ *
+ * The products of the ProductCatalog are ordered newest first, and their prices in cents and quantities are held in
+ * primitive columns in the same order. For each of in stock and out of stock, the positions of the products are also
+ * kept sorted by price, so the number of products in a price range is the distance between two binary searches,
+ * and every count costs O(log n) whatever the size of the catalog.
+ *
+ * A page is taken in one of two ways, whichever visits fewer products: scanning the columns newest first until the
+ * page is filled, which is quick when the filter matches many products, or sorting the positions of the products in
+ * the price range, which is quick when it matches few. Neither visits more than about sqrt(page * size * n) products.
+ * The pending changes of the catalog are merged with every query, and the columns follow every new snapshot.
+ */
+@Service
+public class ProductFacetService {
+
+    private final ProductCatalog productCatalog;
+    private final ProductCatalogIndex<Columns> columns = ProductCatalogIndex.of(Columns::build, Columns::merge);
+    private final List<BigDecimal> priceRangeBounds;
+
+    public ProductFacetService(ProductCatalog productCatalog,
+                               @Value("${application.facets.price-ranges}") List<BigDecimal> priceRangeBounds) {
+        this.productCatalog = productCatalog;
+        this.priceRangeBounds = priceRangeBounds.stream().sorted().distinct().toList();
+        productCatalog.register(columns);
+    }
+
+    /**
+     * This method fetches the products matching the filters, newest first, with the facet counts of the catalog
+     * @param minPrice the lowest price, inclusive, null for no lower bound
+     * @param maxPrice the highest price, inclusive, null for no upper bound
+     * @param inStock true for products in stock only, false for products out of stock only, null for both
+     * @param page page to be fetched
+     * @param size quantity of products to be fetched
+     * @return a FacetedPaginatedData object that includes the totalPages, currentSize, totalSize, the productResponse and the facet counts
+     * @throws InvalidInputException if the page or size is not positive, or minPrice is above maxPrice
+     */
+    public FacetedPaginatedData fetchProducts(BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int page, int size) {
+
+        if (page <= 0) {
+            throw new InvalidInputException("Page cannot be less than or equal to zero");
+        }
+        if (size <= 0) {
+            throw new InvalidInputException("Size cannot be less than or equal to zero");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidInputException("minPrice cannot be greater than maxPrice");
+        }
+
+        //prices are compared in cents, the bounds are rounded inwards
+        long from = minPrice == null ? Long.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING);
+        long to = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR);
+        if (to != Long.MAX_VALUE) {
+            to++;
+        }
+
+        Listing listing = new Listing(productCatalog.view(columns));
+        long totalSize = listing.count(inStock, from, to);
+        int offset = (int) Math.min((long) (page - 1) * size, totalSize);
+        int limit = (int) Math.min((long) page * size, totalSize);
+        List<ProductCatalog.Entry> newest = listing.newest(inStock, from, to, limit);
+
+        List<ProductResponse> products = new ArrayList<>(limit - offset);
+        for (ProductCatalog.Entry entry : newest.subList(Math.min(offset, newest.size()), Math.min(limit, newest.size()))) {
+            products.add(entry.product());
+        }
+
+        List<ProductFacetsResponse.PriceRangeCount> priceRanges = new ArrayList<>(priceRangeBounds.size() + 1);
+        BigDecimal lowerBound = null;
+        for (int i = 0; i <= priceRangeBounds.size(); i++) {
+            BigDecimal upperBound = i < priceRangeBounds.size() ? priceRangeBounds.get(i) : null;
+            long rangeFrom = lowerBound == null ? Long.MIN_VALUE : toCents(lowerBound, RoundingMode.CEILING);
+            long rangeTo = upperBound == null ? Long.MAX_VALUE : toCents(upperBound, RoundingMode.CEILING);
+            priceRanges.add(new ProductFacetsResponse.PriceRangeCount(lowerBound, upperBound,
+                    listing.count(inStock, rangeFrom, rangeTo)));
+            lowerBound = upperBound;
+        }
+
+        return FacetedPaginatedData.builder()
+                .totalPage((int) ((totalSize + size - 1) / size))
+                .currentSize(products.size())
+                .totalSize(totalSize)
+                .data(products)
+                .facets(ProductFacetsResponse.builder()
+                        .inStock(listing.count(true, from, to))
+                        .outOfStock(listing.count(false, from, to))
+                        .priceRanges(priceRanges)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Converts a price to cents, clamping prices too large for a long instead of rounding them
+     */
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        if (price.precision() - price.scale() > 16) {
+            return price.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return price.setScale(2, roundingMode).unscaledValue().longValue();
+    }
+
+    private static long priceOf(ProductCatalog.Entry entry) {
+        return toCents(entry.product().price(), RoundingMode.HALF_UP);
+    }
+
+    private static boolean matches(long price, int quantity, Boolean inStock, long from, long to) {
+        return price >= from && price < to && (inStock == null || (quantity > 0) == inStock);
+    }
+
+    /**
+     * A pending change with the price in cents and quantity of the product, and the position the product had in the
+     * snapshot, -1 if it is new
+     */
+    private record Change(ProductCatalog.Entry entry, int previousPosition, long price, int quantity) {
+
+        boolean matches(Boolean inStock, long from, long to) {
+            return !entry.isDeleted() && ProductFacetService.matches(price, quantity, inStock, from, to);
+        }
+    }
+
+    /**
+     * The columns of a snapshot and its pending changes, with the changes converted once for all the counts of a query
+     */
+    private static final class Listing {
+
+        private final ProductCatalog.Snapshot snapshot;
+        private final Columns columns;
+        private final Map<Long, ProductCatalog.Entry> pending;
+        private final List<Change> changes;
+
+        Listing(ProductCatalog.View<Columns> view) {
+            snapshot = view.snapshot();
+            columns = view.structure();
+            pending = view.pending();
+            changes = new ArrayList<>(pending.size());
+            for (ProductCatalog.Entry entry : pending.values()) {
+                int previousPosition = snapshot.position(entry.productId());
+                changes.add(entry.isDeleted()
+                        ? new Change(entry, previousPosition, 0, 0)
+                        : new Change(entry, previousPosition, priceOf(entry), entry.product().availabilityQuantity()));
+            }
+        }
+
+        long count(Boolean inStock, long from, long to) {
+            long count = columns.count(inStock, from, to);
+            for (Change change : changes) {
+                if (change.previousPosition() >= 0 && columns.matches(change.previousPosition(), inStock, from, to)) {
+                    count--;
+                }
+                if (change.matches(inStock, from, to)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        List<ProductCatalog.Entry> newest(Boolean inStock, long from, long to, int limit) {
+            List<ProductCatalog.Entry> newest = columns.newest(snapshot, inStock, from, to, limit, pending::containsKey);
+            for (Change change : changes) {
+                if (change.matches(inStock, from, to)) {
+                    newest.add(change.entry());
+                }
+            }
+            newest.sort(ProductCatalog.NEWEST_FIRST);
+            return newest;
+        }
+    }
+
+    /**
+     * The prices in cents and quantities of the products in the order of the snapshot, with their positions sorted
+     * by price for each availability
+     */
+    private static final class Columns {
+
+        private final long[] prices;
+        private final int[] quantities;
+        private final PriceIndex inStock;
+        private final PriceIndex outOfStock;
+
+        private Columns(long[] prices, int[] quantities, PriceIndex inStock, PriceIndex outOfStock) {
+            this.prices = prices;
+            this.quantities = quantities;
+            this.inStock = inStock;
+            this.outOfStock = outOfStock;
+        }
+
+        /**
+         * Builds the columns of a whole snapshot
+         */
+        static Columns build(ProductCatalog.Snapshot snapshot) {
+            int n = snapshot.size();
+            long[] prices = new long[n];
+            int[] quantities = new int[n];
+            Integer[] byPrice = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                prices[i] = priceOf(snapshot.entry(i));
+                quantities[i] = snapshot.entry(i).product().availabilityQuantity();
+                byPrice[i] = i;
+            }
+            Arrays.sort(byPrice, Comparator.<Integer>comparingLong(position -> prices[position])
+                    .thenComparingInt(position -> position));
+
+            PriceIndex.Builder inStock = new PriceIndex.Builder(n);
+            PriceIndex.Builder outOfStock = new PriceIndex.Builder(n);
+            for (int position : byPrice) {
+                (quantities[position] > 0 ? inStock : outOfStock).add(prices[position], position);
+            }
+            return new Columns(prices, quantities, inStock.build(), outOfStock.build());
+        }
+
+        boolean matches(int position, Boolean inStock, long from, long to) {
+            return ProductFacetService.matches(prices[position], quantities[position], inStock, from, to);
+        }
+
+        long count(Boolean inStock, long from, long to) {
+            long count = 0;
+            if (inStock == null || inStock) {
+                count += this.inStock.count(from, to);
+            }
+            if (inStock == null || !inStock) {
+                count += outOfStock.count(from, to);
+            }
+            return count;
+        }
+
+        /**
+         * Returns up to limit of the newest products matching the filters, leaving out the skipped ones
+         */
+        List<ProductCatalog.Entry> newest(ProductCatalog.Snapshot snapshot, Boolean inStock, long from, long to,
+                                          int limit, LongPredicate skip) {
+            List<ProductCatalog.Entry> newest = new ArrayList<>(limit);
+            long matching = count(inStock, from, to);
+            if (matching == 0 || limit == 0) {
+                return newest;
+            }
+
+            //scanning visits about limit * n / matching products, sorting the price range visits matching products
+            if ((double) limit * prices.length / matching <= matching) {
+                for (int i = 0; i < prices.length && newest.size() < limit; i++) {
+                    if (matches(i, inStock, from, to) && !skip.test(snapshot.entry(i).productId())) {
+                        newest.add(snapshot.entry(i));
+                    }
+                }
+                return newest;
+            }
+
+            int[] inRange = new int[(int) matching];
+            int length = 0;
+            if (inStock == null || inStock) {
+                length = this.inStock.copyPositions(from, to, inRange, length);
+            }
+            if (inStock == null || !inStock) {
+                length = outOfStock.copyPositions(from, to, inRange, length);
+            }
+            Arrays.sort(inRange, 0, length);
+            for (int i = 0; i < length && newest.size() < limit; i++) {
+                if (!skip.test(snapshot.entry(inRange[i]).productId())) {
+                    newest.add(snapshot.entry(inRange[i]));
+                }
+            }
+            return newest;
+        }
+
+        /**
+         * Returns the columns of a merged snapshot. The columns of the products kept are moved to their new positions
+         * and the price indexes renumbered the same way, so nothing is sorted but the changes
+         */
+        Columns merge(ProductCatalog.Merge merge) {
+            int n = merge.merged().size();
+            long[] mergedPrices = new long[n];
+            int[] mergedQuantities = new int[n];
+            int[] newPositions = merge.newPositions();
+            for (int i = 0; i < newPositions.length; i++) {
+                if (newPositions[i] >= 0) {
+                    mergedPrices[newPositions[i]] = prices[i];
+                    mergedQuantities[newPositions[i]] = quantities[i];
+                }
+            }
+            int[] changedPositions = merge.changedPositions();
+            Integer[] changedByPrice = new Integer[changedPositions.length];
+            for (int i = 0; i < changedPositions.length; i++) {
+                ProductCatalog.Entry entry = merge.merged().entry(changedPositions[i]);
+                mergedPrices[changedPositions[i]] = priceOf(entry);
+                mergedQuantities[changedPositions[i]] = entry.product().availabilityQuantity();
+                changedByPrice[i] = changedPositions[i];
+            }
+            Arrays.sort(changedByPrice, Comparator.<Integer>comparingLong(position -> mergedPrices[position])
+                    .thenComparingInt(position -> position));
+
+            return new Columns(mergedPrices, mergedQuantities,
+                    inStock.merge(newPositions, changedByPrice, mergedPrices, mergedQuantities, true),
+                    outOfStock.merge(newPositions, changedByPrice, mergedPrices, mergedQuantities, false));
+        }
+    }
+
+    /**
+     * Prices in ascending order, with the position of the product of each price in the columns
+     */
+    private static final class PriceIndex {
+
+        private final long[] prices;
+        private final int[] positions;
+
+        private PriceIndex(long[] prices, int[] positions) {
+            this.prices = prices;
+            this.positions = positions;
+        }
+
+        long count(long from, long to) {
+            return from >= to ? 0 : firstIndex(to) - firstIndex(from);
+        }
+
+        /**
+         * Copies the positions of the products priced in [from, to) into target at offset, and returns the new offset
+         */
+        int copyPositions(long from, long to, int[] target, int offset) {
+            if (from >= to) {
+                return offset;
+            }
+            int start = firstIndex(from);
+            int length = firstIndex(to) - start;
+            System.arraycopy(positions, start, target, offset, length);
+            return offset + length;
+        }
+
+        /**
+         * Returns a new index with old positions renumbered and removed products left out, merged with the changed
+         * products of this availability
+         */
+        PriceIndex merge(int[] newPositions, Integer[] changedByPrice, long[] mergedPrices, int[] mergedQuantities,
+                         boolean inStock) {
+            Builder builder = new Builder(prices.length + changedByPrice.length);
+            int next = 0;
+            for (int i = 0; i < prices.length; i++) {
+                int position = newPositions[positions[i]];
+                if (position < 0) {
+                    continue;
+                }
+                while (next < changedByPrice.length
+                        && comesBefore(mergedPrices, changedByPrice[next], prices[i], position)) {
+                    addIfAvailable(builder, mergedPrices, mergedQuantities, changedByPrice[next++], inStock);
+                }
+                builder.add(prices[i], position);
+            }
+            while (next < changedByPrice.length) {
+                addIfAvailable(builder, mergedPrices, mergedQuantities, changedByPrice[next++], inStock);
+            }
+            return builder.build();
+        }
+
+        private static boolean comesBefore(long[] mergedPrices, int changedPosition, long price, int position) {
+            long changedPrice = mergedPrices[changedPosition];
+            return changedPrice < price || (changedPrice == price && changedPosition < position);
+        }
+
+        private static void addIfAvailable(Builder builder, long[] mergedPrices, int[] mergedQuantities, int position,
+                                           boolean inStock) {
+            if ((mergedQuantities[position] > 0) == inStock) {
+                builder.add(mergedPrices[position], position);
+            }
+        }
+
+        private int firstIndex(long price) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[middle] < price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static final class Builder {
+
+            private final long[] prices;
+            private final int[] positions;
+            private int size;
+
+            Builder(int capacity) {
+                prices = new long[capacity];
+                positions = new int[capacity];
+            }
+
+            void add(long price, int position) {
+                prices[size] = price;
+                positions[size++] = position;
+            }
+
+            PriceIndex build() {
+                return new PriceIndex(Arrays.copyOf(prices, size), Arrays.copyOf(positions, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.springframework.http.MediaType;
+
+/**
+ * The formats a product catalog can be imported in, by the content type of the request
+ */
+public enum ProductImportFormat {
+    CSV("text/csv"),              //a header row naming the columns, then one product per row
+    NDJSON("application/x-ndjson"); //one JSON object per line
+
+    private final MediaType mediaType;
+
+    ProductImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    /**
+     * Returns the format of a content type, ignoring its parameters such as the charset
+     * @param contentType The Content-Type header of the request
+     * @throws InvalidInputException if the content type is missing or not supported
+     */
+    public static ProductImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            for (ProductImportFormat format : values()) {
+                if (format.mediaType.equalsTypeAndSubtype(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new InvalidInputException("Content-Type must be text/csv or application/x-ndjson");
+    }
+}
@@ -0,0 +1,82 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductImportJobResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The progress of a product import, updated by the request that streams it and read by any request asking for it.
+ * Only the first errors are kept, up to the configured number, so a bad catalog cannot fill the memory
+ */
+public class ProductImportJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,  //every row was read, rows with errors were skipped
+        FAILED      //reading stopped early, rows saved before the failure are kept
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final int maxReportedErrors;
+    private final List<ProductImportJobResponse.RowError> errors = new ArrayList<>();
+
+    private Status status = Status.RUNNING;
+    private String message;
+    private long rowsRead;
+    private long created;
+    private long updated;
+    private long failed;
+    private LocalDateTime finishedAt;
+
+    ProductImportJob(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    synchronized void rowRead() {
+        rowsRead++;
+    }
+
+    synchronized void saved(long created, long updated) {
+        this.created += created;
+        this.updated += updated;
+    }
+
+    synchronized void rowFailed(long rowNumber, String error) {
+        failed++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new ProductImportJobResponse.RowError(rowNumber, error));
+        }
+    }
+
+    synchronized void finish(Status status, String message) {
+        this.status = status;
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Returns the progress so far
+     */
+    public synchronized ProductImportJobResponse toResponse() {
+        return ProductImportJobResponse.builder()
+                .jobId(id)
+                .status(status)
+                .message(message)
+                .rowsRead(rowsRead)
+                .created(created)
+                .updated(updated)
+                .failed(failed)
+                .errors(List.copyOf(errors))
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
@@ -0,0 +1,232 @@
+package com.gridiron.ecommerce.product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.product.request.CreateProductRequest;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the rows of a product import one at a time from a character stream, so only the current row is held in memory.
+ *
+ * CSV starts with a header row naming the columns, in any order: name, price, description, availabilityQuantity and
+ * optionally productId. Fields follow RFC 4180, so they may be quoted to hold commas, line breaks or doubled quotes.
+ * NDJSON holds one object per line with the same fields. Blank lines are skipped in both. A row whose values cannot be
+ * read is returned with an error, and reading goes on with the next row.
+ */
+final class ProductImportReader {
+
+    //the longest row accepted, in characters. A longer row ends the import, as the rows after it cannot be found
+    static final int MAX_ROW_LENGTH = 1 << 20;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "description", "availabilityquantity");
+    private static final String PRODUCT_ID_COLUMN = "productid";
+
+    private final ProductImportFormat format;
+    private final Reader reader;
+    private final ObjectMapper objectMapper;
+
+    //the index of every CSV column by its lower case name
+    private Map<String, Integer> columns;
+    private long rowNumber;
+
+    ProductImportReader(ProductImportFormat format, Reader reader, ObjectMapper objectMapper) {
+        this.format = format;
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the next row, or null once the stream is exhausted
+     * @throws InvalidInputException if the CSV header is invalid, or a row is longer than MAX_ROW_LENGTH
+     * @throws IOException if the stream cannot be read
+     */
+    ProductImportRow next() throws IOException {
+        return format == ProductImportFormat.CSV ? nextCsvRow() : nextJsonRow();
+    }
+
+    private ProductImportRow nextCsvRow() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        List<String> fields;
+        do {
+            fields = readCsvRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        rowNumber++;
+        if (fields.size() != columns.size()) {
+            return ProductImportRow.failed(rowNumber, "Expected " + columns.size() + " fields, found " + fields.size());
+        }
+        Integer productIdColumn = columns.get(PRODUCT_ID_COLUMN);
+        return toRow(productIdColumn == null ? null : fields.get(productIdColumn),
+                fields.get(columns.get("name")),
+                fields.get(columns.get("price")),
+                fields.get(columns.get("description")),
+                fields.get(columns.get("availabilityquantity")));
+    }
+
+    private ProductImportRow nextJsonRow() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        rowNumber++;
+        ProductImportLine productLine;
+        try {
+            productLine = objectMapper.readValue(line, ProductImportLine.class);
+        } catch (JsonProcessingException e) {
+            return ProductImportRow.failed(rowNumber, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (productLine == null) {
+            //a JSON null is read as no object at all
+            return ProductImportRow.failed(rowNumber, "Expected a JSON object");
+        }
+        if (productLine.availabilityQuantity() == null) {
+            return ProductImportRow.failed(rowNumber, "quantity is required");
+        }
+        return new ProductImportRow(rowNumber, productLine.productId(), new CreateProductRequest(productLine.name(),
+                productLine.price(), productLine.description(), productLine.availabilityQuantity()), null);
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readCsvRecord();
+        if (header == null) {
+            throw new InvalidInputException("The CSV header row is missing");
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!REQUIRED_COLUMNS.contains(column) && !PRODUCT_ID_COLUMN.equals(column)) {
+                throw new InvalidInputException("Unknown CSV column " + header.get(i));
+            }
+            if (columns.put(column, i) != null) {
+                throw new InvalidInputException("Duplicate CSV column " + header.get(i));
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new InvalidInputException("The CSV header must name the columns name, price, description " +
+                        "and availabilityQuantity");
+            }
+        }
+    }
+
+    /**
+     * Converts the text values of a CSV row, reporting the first value that is not a number where one is expected
+     */
+    private ProductImportRow toRow(String productId, String name, String price, String description, String quantity) {
+        Long id = null;
+        BigDecimal parsedPrice = null;
+        try {
+            if (productId != null && !productId.isBlank()) {
+                id = Long.valueOf(productId.trim());
+            }
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(rowNumber, "productId must be a whole number");
+        }
+        try {
+            if (!price.isBlank()) {
+                parsedPrice = new BigDecimal(price.trim());
+            }
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(rowNumber, "price must be a number");
+        }
+        if (quantity.isBlank()) {
+            return ProductImportRow.failed(rowNumber, "quantity is required");
+        }
+        try {
+            return new ProductImportRow(rowNumber, id,
+                    new CreateProductRequest(name, parsedPrice, description, Integer.parseInt(quantity.trim())), null);
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(rowNumber, "availabilityQuantity must be a whole number");
+        }
+    }
+
+    /**
+     * Reads the fields of the next CSV record, or returns null at the end of the stream
+     */
+    private List<String> readCsvRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > MAX_ROW_LENGTH) {
+                throw new InvalidInputException("Row " + (rowNumber + 1) + " is longer than " + MAX_ROW_LENGTH + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new InvalidInputException("Row " + (rowNumber + 1) + " has a quoted field that is never closed");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        //the closing quote, the character after it is read as unquoted
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Reads the next line without its line break, or returns null at the end of the stream
+     */
+    private String readLine() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        while (c != -1 && c != '\n') {
+            if (line.length() == MAX_ROW_LENGTH) {
+                throw new InvalidInputException("Row " + (rowNumber + 1) + " is longer than " + MAX_ROW_LENGTH + " characters");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+        return line.toString();
+    }
+
+    /**
+     * A product as written in an NDJSON line
+     */
+    record ProductImportLine(Long productId, String name, BigDecimal price, String description,
+                             Integer availabilityQuantity) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.gridiron.ecommerce.product;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes of product imports, as JDBC-batched statements instead of one entity save per product.
+ * It is a fragment of ProductRepository, implemented by ProductImportRepositoryImpl.
+ */
+public interface ProductImportRepository {
+
+    /**
+     * Takes ids for new products from the product sequence, with one query
+     * @param count the number of ids to be taken
+     * @return the ids
+     */
+    List<Long> allocateProductIds(int count);
+
+    /**
+     * Finds the stored state of each of the given products, leaving out the ids of products that do not exist
+     * @param productIds the ids of the products
+     * @return product id to its stored state
+     */
+    Map<Long, StoredProduct> findStoredProductsByIds(Collection<Long> productIds);
+
+    /**
+     * Inserts the products of the rows in one batch, with the ids already set on the rows
+     * @param rows the rows to be inserted
+     * @param now the creation time of the products
+     */
+    void insertProducts(List<ProductImportRow> rows, LocalDateTime now);
+
+    /**
+     * Replaces the name, price, description and quantity of the products of the rows in one batch. A product is only
+     * updated if it has not been written since it was read, so a stock deduction committed in between is never
+     * overwritten by the quantity of the import
+     * @param rows the rows to be updated, each with the id of an existing product
+     * @param storedProducts the products as they were read by findStoredProductsByIds
+     * @param now the update time of the products
+     * @return the ids of the products that were written since they were read, and so were not updated
+     */
+    List<Long> updateProducts(List<ProductImportRow> rows, Map<Long, StoredProduct> storedProducts, LocalDateTime now);
+
+    /**
+     * A product as it is stored, read before it is updated
+     * @param createdAt When the product was created
+     * @param updatedAt When the product was last written
+     * @param availabilityQuantity The quantity in stock
+     */
+    record StoredProduct(LocalDateTime createdAt, LocalDateTime updatedAt, int availabilityQuantity) {
+    }
+}
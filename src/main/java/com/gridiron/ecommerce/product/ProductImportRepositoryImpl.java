@@ -0,0 +1,99 @@
+package com.gridiron.ecommerce.product;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+class ProductImportRepositoryImpl implements ProductImportRepository {
+
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('product_seq') FROM generate_series(1, ?)";
+
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (id, name, price, description, availability_quantity, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET name = ?, price = ?, description = ?, availability_quantity = ?, updated_at = ? " +
+            "WHERE id = ? AND updated_at = ? AND availability_quantity = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> allocateProductIds(int count) {
+        //every value of the pooled sequence is used as one id, so ids never overlap the blocks taken by Hibernate
+        return jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, count);
+    }
+
+    @Override
+    public Map<Long, StoredProduct> findStoredProductsByIds(Collection<Long> productIds) {
+        Map<Long, StoredProduct> storedProducts = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return storedProducts;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query("SELECT id, created_at, updated_at, availability_quantity FROM products " +
+                        "WHERE id IN (" + placeholders + ")",
+                resultSet -> {
+                    storedProducts.put(resultSet.getLong(1), new StoredProduct(
+                            resultSet.getTimestamp(2).toLocalDateTime(),
+                            resultSet.getTimestamp(3).toLocalDateTime(),
+                            resultSet.getInt(4)));
+                },
+                productIds.toArray());
+        return storedProducts;
+    }
+
+    @Override
+    public void insertProducts(List<ProductImportRow> rows, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, rows, rows.size(), (preparedStatement, row) -> {
+            preparedStatement.setLong(1, row.productId());
+            preparedStatement.setString(2, row.product().name());
+            preparedStatement.setBigDecimal(3, row.product().price());
+            preparedStatement.setString(4, row.product().description());
+            preparedStatement.setInt(5, row.product().availabilityQuantity());
+            preparedStatement.setTimestamp(6, timestamp);
+            preparedStatement.setTimestamp(7, timestamp);
+        });
+    }
+
+    @Override
+    public List<Long> updateProducts(List<ProductImportRow> rows, Map<Long, StoredProduct> storedProducts,
+                                     LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        int[][] updateCounts = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, rows, rows.size(),
+                (preparedStatement, row) -> {
+                    StoredProduct stored = storedProducts.get(row.productId());
+                    preparedStatement.setString(1, row.product().name());
+                    preparedStatement.setBigDecimal(2, row.product().price());
+                    preparedStatement.setString(3, row.product().description());
+                    preparedStatement.setInt(4, row.product().availabilityQuantity());
+                    preparedStatement.setTimestamp(5, timestamp);
+                    preparedStatement.setLong(6, row.productId());
+                    preparedStatement.setTimestamp(7, Timestamp.valueOf(stored.updatedAt()));
+                    preparedStatement.setInt(8, stored.availabilityQuantity());
+                });
+
+        //a row count of zero means the product was written since it was read
+        List<Long> changedProductIds = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updateCounts) {
+            for (int updateCount : batch) {
+                if (updateCount == 0) {
+                    changedProductIds.add(rows.get(index).productId());
+                }
+                index++;
+            }
+        }
+        return changedProductIds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.request.CreateProductRequest;
+
+/**
+ * A row of a product import. Rows with a productId update that product, the others create a product
+ * @param rowNumber The number of the row in the import, starting at 1 with the first product
+ * @param productId The id of the product to be updated, null to create one
+ * @param product The product, null if the row could not be read
+ * @param error Why the row could not be read, null if it was
+ */
+public record ProductImportRow(long rowNumber, Long productId, CreateProductRequest product, String error) {
+
+    static ProductImportRow failed(long rowNumber, String error) {
+        return new ProductImportRow(rowNumber, null, null, error);
+    }
+
+    ProductImportRow withProductId(Long productId) {
+        return new ProductImportRow(rowNumber, productId, product, error);
+    }
+}
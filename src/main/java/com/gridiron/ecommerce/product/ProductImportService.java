@@ -0,0 +1,334 @@
+package com.gridiron.ecommerce.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.product.request.CreateProductRequest;
+import com.gridiron.ecommerce.product.response.ProductImportJobResponse;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
+import com.gridiron.ecommerce.utility.concurrency.DatabaseAccessLimiter;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ProductImportService creates and updates products in bulk from a CSV or NDJSON stream.
+ *
+ * The stream is read one row at a time while the request body arrives, and every row is validated with the constraints
+ * of CreateProductRequest. Valid rows are written in batches of the configured size, each batch in its own transaction
+ * with one JDBC batch of inserts and one of updates, so memory stays bounded by the batch whatever the size of the
+ * catalog. A batch that fails on a constraint is written again one row at a time, to report the rows at fault.
+ *
+ * An update only applies if the product has not been written since the batch read it, so a checkout that deducts
+ * stock meanwhile is never overwritten by the quantity in the file; such rows are reported as failed instead. The
+ * stock an update sets is published as a ProductStockChangedEvent, like the deductions of orders.
+ *
+ * Every import is tracked as a job whose progress can be read by id while the import runs. The most recent jobs are
+ * kept in memory, up to the configured number.
+ */
+@Service
+@Log
+public class ProductImportService {
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseAccessLimiter databaseAccessLimiter;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    //the most recent jobs by id, oldest first
+    private final Map<String, ProductImportJob> jobs;
+
+    public ProductImportService(ProductRepository productRepository, ProductService productService,
+                                Validator validator, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                Optional<DatabaseAccessLimiter> databaseAccessLimiter, CacheManager cacheManager,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${application.product-import.batch-size}") int batchSize,
+                                @Value("${application.product-import.max-reported-errors}") int maxReportedErrors,
+                                @Value("${application.product-import.retained-jobs}") int retainedJobs) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseAccessLimiter = databaseAccessLimiter.orElse(null);
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProductImportJob> eldest) {
+                return size() > retainedJobs;
+            }
+        };
+    }
+
+    /**
+     * This method imports products from a stream, creating a product for every row without a productId and
+     * updating the product of every row with one. Rows that fail validation are skipped and reported
+     * @param format The format of the stream
+     * @param body The UTF-8 encoded rows
+     * @return the job of the import once the stream is exhausted, or once reading it failed
+     */
+    public ProductImportJobResponse importProducts(ProductImportFormat format, InputStream body) {
+        ProductImportJob job = new ProductImportJob(maxReportedErrors);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        ProductImportReader reader = new ProductImportReader(format,
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), objectMapper);
+        List<ProductImportRow> batch = new ArrayList<>(batchSize);
+        ProductImportJob.Status status = ProductImportJob.Status.FAILED;
+        String message = null;
+        try {
+            try {
+                ProductImportRow row;
+                while ((row = reader.next()) != null) {
+                    job.rowRead();
+                    String error = row.error() != null ? row.error() : validate(row.product());
+                    if (error != null) {
+                        job.rowFailed(row.rowNumber(), error);
+                        continue;
+                    }
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        write(job, batch);
+                        batch.clear();
+                    }
+                }
+            } catch (InvalidInputException e) {
+                message = e.getMessage();
+            } catch (IOException e) {
+                log.warning("Reading product import " + job.getId() + " failed: " + e.getMessage());
+                message = "The request body could not be read";
+            }
+            //the rows read before the stream turned out to be malformed or broken off are valid, so they are kept
+            write(job, batch);
+            if (message == null) {
+                status = ProductImportJob.Status.COMPLETED;
+            }
+        } catch (RuntimeException e) {
+            log.severe("Product import " + job.getId() + " failed: " + e.getMessage());
+            message = "Saving the products failed";
+        } finally {
+            //a job is never left running, whatever stopped it
+            job.finish(status, message);
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * This method fetches the progress of an import
+     * @param jobId The id of the import job
+     * @throws ResourceNotFoundException if the job does not exist or is no longer kept
+     */
+    public ProductImportJobResponse fetchImportJob(String jobId) {
+        ProductImportJob job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job " + jobId + " not found");
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * This method fetches the progress of the most recent imports, newest first
+     */
+    public List<ProductImportJobResponse> fetchImportJobs() {
+        List<ProductImportJob> recent;
+        synchronized (jobs) {
+            recent = new ArrayList<>(jobs.values());
+        }
+        List<ProductImportJobResponse> responses = new ArrayList<>(recent.size());
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            responses.add(recent.get(i).toResponse());
+        }
+        return responses;
+    }
+
+    /**
+     * Returns the messages of the constraints a product breaks, or null if it is valid
+     */
+    private String validate(CreateProductRequest product) {
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Writes a batch of rows in one transaction, and again row by row if the batch breaks a constraint
+     * @param job The job the rows belong to
+     * @param rows The valid rows
+     */
+    private void write(ProductImportJob job, List<ProductImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        BatchResult result;
+        try {
+            result = inTransaction(status -> save(rows));
+        } catch (DataIntegrityViolationException e) {
+            if (rows.size() == 1) {
+                job.rowFailed(rows.get(0).rowNumber(), "Could not be saved: " + e.getMostSpecificCause().getMessage());
+                return;
+            }
+            log.info("Import batch of " + rows.size() + " rolled back, saving one by one: " + e.getMessage());
+            for (ProductImportRow row : rows) {
+                write(job, List.of(row));
+            }
+            return;
+        }
+
+        job.saved(result.created(), result.updatedIds().size());
+        result.notFound().forEach(row -> job.rowFailed(row.rowNumber(), "Product with id " + row.productId() + " not found"));
+        result.changed().forEach(row -> job.rowFailed(row.rowNumber(),
+                "Product with id " + row.productId() + " was changed while it was imported, import it again"));
+        evictCachedProducts(result.updatedIds());
+    }
+
+    /**
+     * Runs the callback in a transaction, holding a database permit from before the transaction takes its connection
+     * @param callback The work of the transaction
+     */
+    private <T> T inTransaction(TransactionCallback<T> callback) {
+        if (databaseAccessLimiter == null) {
+            return transactionTemplate.execute(callback);
+        }
+        return databaseAccessLimiter.withPermit(() -> transactionTemplate.execute(callback));
+    }
+
+    /**
+     * Inserts the new products and updates the existing ones of a batch. Called in a transaction
+     */
+    private BatchResult save(List<ProductImportRow> rows) {
+        List<Long> productIds = new ArrayList<>();
+        for (ProductImportRow row : rows) {
+            if (row.productId() != null) {
+                productIds.add(row.productId());
+            }
+        }
+        Map<Long, ProductImportRepository.StoredProduct> storedProducts =
+                productRepository.findStoredProductsByIds(productIds);
+
+        List<ProductImportRow> inserts = new ArrayList<>();
+        List<ProductImportRow> updates = new ArrayList<>();
+        List<ProductImportRow> notFound = new ArrayList<>();
+        for (ProductImportRow row : rows) {
+            if (row.productId() == null) {
+                inserts.add(row);
+            } else if (storedProducts.containsKey(row.productId())) {
+                updates.add(row);
+            } else {
+                notFound.add(row);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            List<Long> newIds = productRepository.allocateProductIds(inserts.size());
+            for (int i = 0; i < inserts.size(); i++) {
+                inserts.set(i, inserts.get(i).withProductId(newIds.get(i)));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!inserts.isEmpty()) {
+            productRepository.insertProducts(inserts, now);
+        }
+        List<Long> changedIds = updates.isEmpty()
+                ? List.of()
+                : productRepository.updateProducts(updates, storedProducts, now);
+
+        //the in-memory indexes follow the products once the transaction commits
+        for (ProductImportRow row : inserts) {
+            eventPublisher.publishEvent(ProductChangedEvent.saved(
+                    toProductResponse(row, row.product().availabilityQuantity()), now));
+        }
+        List<Long> updatedIds = new ArrayList<>(updates.size());
+        List<ProductImportRow> changed = new ArrayList<>();
+        Map<Long, Integer> quantityDeltas = new HashMap<>();
+        for (ProductImportRow row : updates) {
+            if (changedIds.contains(row.productId())) {
+                changed.add(row);
+                continue;
+            }
+            //the stock is published as a change, like the deductions of orders, on top of the quantity read
+            ProductImportRepository.StoredProduct stored = storedProducts.get(row.productId());
+            eventPublisher.publishEvent(ProductChangedEvent.saved(
+                    toProductResponse(row, stored.availabilityQuantity()), stored.createdAt()));
+            int delta = row.product().availabilityQuantity() - stored.availabilityQuantity();
+            if (delta != 0) {
+                quantityDeltas.put(row.productId(), delta);
+            }
+            updatedIds.add(row.productId());
+        }
+        if (!quantityDeltas.isEmpty()) {
+            eventPublisher.publishEvent(ProductStockChangedEvent.restocked(quantityDeltas));
+        }
+        return new BatchResult(inserts.size(), updatedIds, notFound, changed);
+    }
+
+    private ProductResponse toProductResponse(ProductImportRow row, int availabilityQuantity) {
+        CreateProductRequest request = row.product();
+        Product product = new Product(request.name(), request.price(), request.description(), availabilityQuantity);
+        product.setId(row.productId());
+        return productService.formatProductToProductResponse(product);
+    }
+
+    /**
+     * Evicts the listing pages, and the cached lookups of the updated products
+     */
+    private void evictCachedProducts(List<Long> updatedIds) {
+        Cache pages = cacheManager.getCache(CacheConfig.PRODUCT_PAGES);
+        if (pages != null) {
+            pages.clear();
+        }
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) {
+            updatedIds.forEach(products::evict);
+        }
+    }
+
+    /**
+     * What a batch wrote, its rows whose product does not exist, and its rows whose product was written by someone
+     * else while the batch was saved
+     */
+    private record BatchResult(int created, List<Long> updatedIds, List<ProductImportRow> notFound,
+                               List<ProductImportRow> changed) {
+    }
+}
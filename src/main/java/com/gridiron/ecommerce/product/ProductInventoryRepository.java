@@ -0,0 +1,25 @@
+package com.gridiron.ecommerce.product;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Stock adjustments that run as conditional, JDBC-batched UPDATE statements instead of read-modify-write on entities.
+ * It is a fragment of ProductRepository, implemented by ProductInventoryRepositoryImpl.
+ */
+public interface ProductInventoryRepository {
+
+    /**
+     * Deducts the quantities from the availability of the products, each only if enough stock is left.
+     * The statements are sent in one batch, ordered by product id so that concurrent checkouts lock rows in the same order.
+     * @param quantities product id to quantity to be deducted
+     * @return ids of the products that did not have enough stock, and were therefore left unchanged
+     */
+    List<Long> deductAvailabilityQuantities(SortedMap<Long, Integer> quantities);
+
+    /**
+     * Adds the quantities back to the availability of the products in one batch.
+     * @param quantities product id to quantity to be added
+     */
+    void restoreAvailabilityQuantities(SortedMap<Long, Integer> quantities);
+}
@@ -0,0 +1,64 @@
+package com.gridiron.ecommerce.product;
+
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+@AllArgsConstructor
+class ProductInventoryRepositoryImpl implements ProductInventoryRepository {
+
+    private static final String DEDUCT_QUANTITY_SQL =
+            "UPDATE products SET availability_quantity = availability_quantity - ?, updated_at = ? " +
+            "WHERE id = ? AND availability_quantity >= ?";
+
+    private static final String RESTORE_QUANTITY_SQL =
+            "UPDATE products SET availability_quantity = availability_quantity + ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> deductAvailabilityQuantities(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[][] updateCounts = jdbcTemplate.batchUpdate(DEDUCT_QUANTITY_SQL, entries, entries.size(),
+                (preparedStatement, entry) -> {
+                    preparedStatement.setInt(1, entry.getValue());
+                    preparedStatement.setTimestamp(2, now);
+                    preparedStatement.setLong(3, entry.getKey());
+                    preparedStatement.setInt(4, entry.getValue());
+                });
+
+        //a row count of zero means the condition on the stock did not hold for that product
+        List<Long> insufficientProductIds = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updateCounts) {
+            for (int updateCount : batch) {
+                if (updateCount == 0) {
+                    insufficientProductIds.add(entries.get(index).getKey());
+                }
+                index++;
+            }
+        }
+        return insufficientProductIds;
+    }
+
+    @Override
+    public void restoreAvailabilityQuantities(SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(RESTORE_QUANTITY_SQL, entries, entries.size(),
+                (preparedStatement, entry) -> {
+                    preparedStatement.setInt(1, entry.getValue());
+                    preparedStatement.setTimestamp(2, now);
+                    preparedStatement.setLong(3, entry.getKey());
+                });
+    }
+}
@@ -0,0 +1,249 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.PaginatedData;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ProductSearchService answers product searches from an in-memory inverted index over product names and descriptions.
+ *
+ * Every term of a product maps to the products containing it, weighted by the field it appears in. A query matches the
+ * products that contain every one of its terms, either exactly or as the prefix of a longer term, and they are ranked
+ * by the weights of the matched terms scaled by how rare each term is in the catalog, newest first on a tie.
+ * Searches only read the index and the ProductCatalog, never the database, and do not take any lock.
+ *
+ * The index is built from every snapshot the catalog loads from the database, and follows every snapshot the pending
+ * changes are merged into. Pending changes are matched on every search, so a committed change is found right away.
+ * Until the first build completes, searches return no results.
+ */
+@Service
+public class ProductSearchService {
+
+    //a term in the name counts three times as much as a term in the description
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    //a query term that is only the prefix of an indexed term scores half as much as an exact match
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    //higher score first, then newest (highest id) first
+    private static final Comparator<Map.Entry<Long, Float>> RANKING =
+            Map.Entry.<Long, Float>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Long, Float>comparingByKey().reversed());
+
+    private final ProductCatalog productCatalog;
+    private final ProductCatalogIndex<Index> index = ProductCatalogIndex.of(Index::build, Index::merge);
+
+    public ProductSearchService(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+        productCatalog.register(index);
+    }
+
+    /**
+     * This method searches the products by name and description
+     * @param query The words to be searched for, the last letters of a word may be left out
+     * @param page The page number to be fetched
+     * @param size The number of products on the page
+     * @return a PaginatedData object that includes the totalPages, currentSize, totalSize, and the productResponse of the best matches first
+     * @throws InvalidInputException if the page or size is not positive, or the query has no words
+     */
+    public PaginatedData search(String query, int page, int size) {
+
+        if (page <= 0) {
+            throw new InvalidInputException("Page cannot be less than or equal to zero");
+        }
+        if (size <= 0) {
+            throw new InvalidInputException("Size cannot be less than or equal to zero");
+        }
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            throw new InvalidInputException("Search query cannot be blank");
+        }
+
+        ProductCatalog.View<Index> view = productCatalog.view(index);
+        Index current = view.structure();
+        int documentCount = Math.max(view.snapshot().size(), 1);
+
+        //the pending products are left out of the index and matched on their own terms
+        Map<Long, Map<String, Float>> pendingTerms = new HashMap<>();
+        for (ProductCatalog.Entry entry : view.pending().values()) {
+            if (!entry.isDeleted()) {
+                pendingTerms.put(entry.productId(), termWeights(entry.product()));
+            }
+        }
+
+        Map<Long, Float> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Float> termScores = current.match(queryTerm, documentCount, view.pending());
+            pendingTerms.forEach((productId, termWeights) -> {
+                float score = current.score(queryTerm, termWeights, documentCount);
+                if (score > 0) {
+                    termScores.put(productId, score);
+                }
+            });
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((productId, score) -> score + termScores.get(productId));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+
+        //keep only the best page * size matches instead of sorting all of them
+        int offset = (int) Math.min((long) (page - 1) * size, scores.size());
+        int limit = (int) Math.min((long) page * size, scores.size());
+        PriorityQueue<Map.Entry<Long, Float>> best = new PriorityQueue<>(Math.max(limit, 1), RANKING.reversed());
+        for (Map.Entry<Long, Float> match : scores.entrySet()) {
+            best.offer(match);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+
+        List<ProductResponse> products = new ArrayList<>(limit - offset);
+        for (Map.Entry<Long, Float> match : ranked.subList(offset, limit)) {
+            ProductCatalog.Entry entry = view.find(match.getKey());
+            if (entry != null) {
+                products.add(entry.product());
+            }
+        }
+
+        return PaginatedData.builder()
+                .totalPage((scores.size() + size - 1) / size)
+                .currentSize(products.size())
+                .totalSize((long) scores.size())
+                .data(products)
+                .build();
+    }
+
+    /**
+     * Returns the weight of every term of a product
+     */
+    private static Map<String, Float> termWeights(ProductResponse product) {
+        Map<String, Float> termWeights = new HashMap<>();
+        for (String term : new LinkedHashSet<>(SearchTokenizer.tokenize(product.name()))) {
+            termWeights.merge(term, NAME_WEIGHT, Float::sum);
+        }
+        for (String term : new LinkedHashSet<>(SearchTokenizer.tokenize(product.description()))) {
+            termWeights.merge(term, DESCRIPTION_WEIGHT, Float::sum);
+        }
+        return termWeights;
+    }
+
+    /**
+     * For every term the products containing it with the term's weight in each. Built from a whole snapshot, then
+     * changed in place by every merge, which only touches the changed products that readers of the previous snapshot
+     * skip. Safe to read concurrently
+     */
+    private static final class Index {
+
+        private final ConcurrentNavigableMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+
+        static Index build(ProductCatalog.Snapshot snapshot) {
+            Index index = new Index();
+            for (int i = 0; i < snapshot.size(); i++) {
+                index.put(snapshot.entry(i).product());
+            }
+            return index;
+        }
+
+        /**
+         * Reindexes the changed products, leaving out the ones whose name and description did not change
+         */
+        Index merge(ProductCatalog.Merge merge) {
+            merge.changes().forEach((productId, change) -> {
+                ProductCatalog.Entry previous = merge.previous().find(productId);
+                if (previous != null && !change.isDeleted()
+                        && Objects.equals(previous.product().name(), change.product().name())
+                        && Objects.equals(previous.product().description(), change.product().description())) {
+                    return;
+                }
+                if (previous != null) {
+                    remove(previous.product());
+                }
+                if (!change.isDeleted()) {
+                    put(change.product());
+                }
+            });
+            return this;
+        }
+
+        private void put(ProductResponse product) {
+            termWeights(product).forEach((term, weight) ->
+                    postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(product.productId(), weight));
+        }
+
+        private void remove(ProductResponse product) {
+            for (String term : termWeights(product).keySet()) {
+                postings.computeIfPresent(term, (key, posting) -> {
+                    posting.remove(product.productId());
+                    return posting.isEmpty() ? null : posting;
+                });
+            }
+        }
+
+        /**
+         * Scores the products containing the query term, or a term it is a prefix of, leaving out the skipped ones.
+         * A rare term scores higher than a common one. Every term the query term is a prefix of is walked, so
+         * a short prefix costs more but never leaves matching products out of the results or the total size
+         */
+        Map<Long, Float> match(String queryTerm, int documentCount, Map<Long, ?> skipped) {
+            Map<Long, Float> scores = new HashMap<>();
+            //the exact term sorts first, followed by the longer terms it is a prefix of
+            for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(queryTerm).entrySet()) {
+                String term = entry.getKey();
+                if (!term.startsWith(queryTerm)) {
+                    break;
+                }
+                Map<Long, Float> posting = entry.getValue();
+                float rarity = rarity(posting.size(), documentCount);
+                float factor = term.length() == queryTerm.length() ? 1f : PREFIX_MATCH_FACTOR;
+                posting.forEach((productId, weight) -> {
+                    if (!skipped.containsKey(productId)) {
+                        scores.merge(productId, weight * rarity * factor, Math::max);
+                    }
+                });
+            }
+            return scores;
+        }
+
+        /**
+         * Scores a product that is not in the index by its own terms, 0 if none of them matches the query term
+         */
+        float score(String queryTerm, Map<String, Float> termWeights, int documentCount) {
+            float score = 0;
+            for (Map.Entry<String, Float> termWeight : termWeights.entrySet()) {
+                String term = termWeight.getKey();
+                if (term.startsWith(queryTerm)) {
+                    Map<Long, Float> posting = postings.get(term);
+                    float rarity = rarity(posting == null ? 1 : posting.size(), documentCount);
+                    float factor = term.length() == queryTerm.length() ? 1f : PREFIX_MATCH_FACTOR;
+                    score = Math.max(score, termWeight.getValue() * rarity * factor);
+                }
+            }
+            return score;
+        }
+
+        private static float rarity(int postingSize, int documentCount) {
+            return (float) Math.log(1 + (double) documentCount / Math.max(postingSize, 1));
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.gridiron.ecommerce.product;
 
+import com.gridiron.ecommerce.cart.CartStore;
 import com.gridiron.ecommerce.cartItem.CartItemRepository;
 import com.gridiron.ecommerce.orderItem.OrderItem;
 import com.gridiron.ecommerce.product.request.CreateProductRequest;
 import com.gridiron.ecommerce.product.request.EditProductRequest;
 import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.reservation.ReservationService;
+import com.gridiron.ecommerce.utility.CursorPaginatedData;
+import com.gridiron.ecommerce.utility.PageCursor;
 import com.gridiron.ecommerce.utility.PaginatedData;
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -18,14 +30,21 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 @AllArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
     private final CartItemRepository cartItemRepository;
-
+    private final CartStore cartStore;
+    private final ReservationService reservationService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      *
@@ -41,6 +60,7 @@ public class ProductService {
      * @param createProductRequest json request for creating a product. it contains name, price, description, and quantity
      * @return returns the product response of the created product.
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
     public ProductResponse createProduct(CreateProductRequest createProductRequest) {
         Product product = new Product(
                 createProductRequest.name(),
@@ -50,25 +70,19 @@ public class ProductService {
         );
         productRepository.save(product);
 
-        return convertToProductResponse(product);
-    }
-
-    private static ProductResponse convertToProductResponse(Product product) {
-        return ProductResponse.builder()
-                .productId(product.getId())
-                .name(product.getName())
-                .description(product.getDescription())
-                .availabilityQuantity(product.getAvailabilityQuantity())
-                .price(product.getPrice())
-                .build();
+        ProductResponse productResponse = formatProductToProductResponse(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(productResponse, product.getCreatedAt()));
+        return productResponse;
     }
 
     /**
      * This method fetches all the products, with pagination implementation, sorted by the date created in ascending order
      * @param page page to be fetched
      * @param size quantity of products to be fetched
+     * The result is cached per page and size, and invalidated whenever a product or its quantity changes
      * @return a PaginatedData object that includes the totalPages, currentSize, totalSize, and the productResponse
      */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "#page + ':' + #size")
     public PaginatedData fetchProducts(int page, int size){
 
         if(page<=0){
@@ -86,6 +100,59 @@ public class ProductService {
                 .build();
     }
 
+    /**
+     * This method fetches a page of products after the given cursor, sorted by the date created in descending order.
+     * It uses a keyset query on (createdAt, id) and does not count the products, so every page costs the same as the first.
+     * The result is cached per cursor and size, and invalidated together with the offset pages
+     * @param after opaque cursor returned with the previous page, empty to fetch the first page
+     * @param size quantity of products to be fetched
+     * @return a CursorPaginatedData object that includes the currentSize, the nextCursor (null on the last page), and the productResponse
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_PAGES, key = "'after:' + #after + ':' + #size")
+    public CursorPaginatedData fetchProductsAfter(String after, int size) {
+
+        if(size<=0){
+            throw new InvalidInputException("Size cannot be less than or equal to zero");
+        }
+
+        //fetch one extra row to know if there is a next page without counting
+        Limit limit = Limit.of(size + 1);
+        List<Product> products;
+        if (after == null || after.isBlank()) {
+            products = productRepository.findFirstKeysetPage(limit);
+        } else {
+            PageCursor cursor = PageCursor.decode(after);
+            products = productRepository.findKeysetPageAfter(cursor.createdAt(), cursor.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = products.subList(0, size);
+            Product last = products.get(size - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return CursorPaginatedData.builder()
+                .currentSize(products.size())
+                .nextCursor(nextCursor)
+                .data(formatProductsToProductResponse(products))
+                .build();
+    }
+
+    /**
+     * This method fetches a single product by its id. The result is cached and invalidated whenever the product changes
+     * @param productId the id of the product to be fetched
+     * @return the product response of the product
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
+    public ProductResponse fetchProductById(Long productId) {
+        Product product = productRepository.findById(productId).orElseThrow(
+                () -> new ResourceNotFoundException("Product with id " + productId + " not found")
+        );
+
+        return formatProductToProductResponse(product);
+    }
+
     /**
      * This method converts a collection of products to another list of product response
      * @param products collection of products
@@ -93,29 +160,39 @@ public class ProductService {
      */
     public List<ProductResponse> formatProductsToProductResponse(Collection<Product> products) {
 
-        List<ProductResponse> productResponses = new ArrayList<>();
-
-        products.forEach(product -> {
-            productResponses.add(
-                    ProductResponse.builder()
-                            .productId(product.getId())
-                            .name(product.getName())
-                            .description(product.getDescription())
-                            .availabilityQuantity(product.getAvailabilityQuantity())
-                            .price(product.getPrice())
-                            .build()
-            );
-        });
+        List<ProductResponse> productResponses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productResponses.add(formatProductToProductResponse(product));
+        }
 
         return productResponses;
     }
 
+    /**
+     * This method converts a single product to a product response
+     * @param product the product to be converted
+     * @return ProductResponse object
+     */
+    public ProductResponse formatProductToProductResponse(Product product) {
+        return ProductResponse.builder()
+                .productId(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .availabilityQuantity(product.getAvailabilityQuantity())
+                .price(product.getPrice())
+                .build();
+    }
+
 
     /**
      * This method edits a products
      * @param productId this is the ID of the product to be edited
      * @param editProductRequest this is the request object to edit the product, it contains: name, price, description, quantity
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public ProductResponse editProduct(Long productId, EditProductRequest editProductRequest) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
@@ -127,7 +204,9 @@ public class ProductService {
 
         updateProduct(product);
 
-        return convertToProductResponse(product);
+        ProductResponse productResponse = formatProductToProductResponse(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(productResponse, product.getCreatedAt()));
+        return productResponse;
     }
 
     /**
@@ -135,10 +214,17 @@ public class ProductService {
      * @param productId this is the ID of the product to be deleted
      */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
+    })
     public void deleteProduct(Long productId) {
         productRepository.deleteById(productId);
         //delete all corresponding cart_item that is associated to the product
         cartItemRepository.deleteByProductId(productId);
+        cartStore.removeProductAfterCommit(productId);
+        reservationService.releaseAllForProductAfterCommit(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(productId));
     }
 
 
@@ -146,35 +232,54 @@ public class ProductService {
      * Updates the availability quantity of products based on the provided order items.
      * This method adjusts the availability quantity of products by deducting or adding
      * the quantity specified in each OrderItem.
+     * The adjustment is done in the database with one batch of conditional updates, so concurrent orders can neither
+     * lose an update nor take the quantity below zero. If any product does not have enough stock, nothing is deducted.
      *
      * @param orderItems A collection of OrderItem objects containing the products and their quantities.
      * @param deduct A boolean flag indicating whether to deduct (true) or add (false) the quantities.
+     * @throws InvalidInputException if deducting and any of the products does not have enough stock
      */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_PAGES, allEntries = true)
     public void updateProductQuantityFromOrderItem(Collection<OrderItem> orderItems, boolean deduct) {
 
-        List<Product> products = new ArrayList<>();
+        //sum the quantities per product, sorted by id so rows are always locked in the same order
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
         for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-
-            if(deduct){
-                if(product.getAvailabilityQuantity()!=0){
-                    product.setAvailabilityQuantity(product.getAvailabilityQuantity()-orderItem.getQuantity());
-                    product.setUpdatedAt(LocalDateTime.now());
-                    products.add(product);
-                }
-            }else{
-                product.setAvailabilityQuantity(product.getAvailabilityQuantity() + orderItem.getQuantity());
-                product.setUpdatedAt(LocalDateTime.now());
-                products.add(product);
-            }
-
-            productRepository.saveAll(products);
+            quantities.merge(orderItem.getProduct().getId(), orderItem.getQuantity(), Integer::sum);
         }
-    }
-
 
+        if (quantities.isEmpty()) {
+            return;
+        }
 
+        if (deduct) {
+            List<Long> insufficientProductIds = productRepository.deductAvailabilityQuantities(quantities);
+            if (!insufficientProductIds.isEmpty()) {
+                //the exception rolls back the deductions of the other products in the batch
+                throw new InvalidInputException("Product Quantity Exceeded for product(s) " + insufficientProductIds);
+            }
+        } else {
+            productRepository.restoreAvailabilityQuantities(quantities);
+        }
 
+        evictCachedProducts(quantities.keySet());
 
+        Map<Long, Integer> quantityDeltas = new HashMap<>();
+        quantities.forEach((productId, quantity) -> quantityDeltas.put(productId, deduct ? -quantity : quantity));
+        eventPublisher.publishEvent(new ProductStockChangedEvent(quantityDeltas));
+    }
 
+    /**
+     * Evicts the cached lookups of the given products, leaving other cached products untouched.
+     * The product cache is transaction aware, so in a transaction the entries are evicted once it commits
+     * @param productIds the ids of the products whose cached entries are stale
+     */
+    private void evictCachedProducts(Collection<Long> productIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (cache == null) {
+            return;
+        }
+        productIds.forEach(cache::evict);
+    }
 }
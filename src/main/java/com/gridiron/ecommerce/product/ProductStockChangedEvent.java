@@ -0,0 +1,21 @@
+package com.gridiron.ecommerce.product;
+
+import java.util.Map;
+
+/**
+ * Published by ProductService when orders deduct or restore stock, and by ProductImportService when an import sets
+ * the stock of existing products. The quantities are adjusted in the database without reading the products back,
+ * so the event carries the change rather than the new quantities.
+ * @param quantityDeltas product id to the quantity added, negative when deducted
+ * @param ordered True if the change comes from orders, so the deducted quantities count as sold
+ */
+public record ProductStockChangedEvent(Map<Long, Integer> quantityDeltas, boolean ordered) {
+
+    public ProductStockChangedEvent(Map<Long, Integer> quantityDeltas) {
+        this(quantityDeltas, true);
+    }
+
+    public static ProductStockChangedEvent restocked(Map<Long, Integer> quantityDeltas) {
+        return new ProductStockChangedEvent(quantityDeltas, false);
+    }
+}
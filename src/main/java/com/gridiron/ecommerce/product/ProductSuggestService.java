@@ -0,0 +1,300 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.product.response.ProductSuggestionResponse;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * ProductSuggestService completes the beginning of a product name to the most popular products whose name starts with it.
+ *
+ * Names are normalized like search terms, and the positions of the products of the ProductCatalog are kept sorted by
+ * name, so the products starting with a prefix form one contiguous range found by binary search. A segment tree over
+ * the sorted positions holds the most popular product of every range, so the top k of a prefix are taken in
+ * O(k log n) however many products share it. Popularity is the quantity ordered of each product, as kept by the
+ * catalog.
+ *
+ * The pending changes of the catalog are merged with every suggestion, and the sorted names follow every new snapshot.
+ */
+@Service
+public class ProductSuggestService {
+
+    //the most suggestions returned for one prefix
+    public static final int MAX_LIMIT = 20;
+
+    //most ordered first, then alphabetical
+    private static final Comparator<Match> BY_POPULARITY = Comparator.comparingLong(Match::popularity).reversed()
+            .thenComparing(Match::key)
+            .thenComparingLong(Match::productId);
+
+    private final ProductCatalog productCatalog;
+    private final ProductCatalogIndex<Names> names = ProductCatalogIndex.of(Names::build, Names::merge);
+
+    public ProductSuggestService(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+        productCatalog.register(names);
+    }
+
+    /**
+     * This method suggests the most popular products whose name starts with the prefix
+     * @param prefix The beginning of a product name, compared without case and accents
+     * @param limit The number of suggestions to be returned
+     * @return the suggestions, most popular first, empty if the prefix has no letters or digits
+     * @throws InvalidInputException if the limit is not between 1 and MAX_LIMIT
+     */
+    public List<ProductSuggestionResponse> suggest(String prefix, int limit) {
+
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new InvalidInputException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        String key = toKey(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        ProductCatalog.View<Names> view = productCatalog.view(names);
+        Map<Long, ProductCatalog.Entry> pending = view.pending();
+        List<Match> matches = view.structure().top(view.snapshot(), key, limit, pending::containsKey);
+        for (ProductCatalog.Entry entry : pending.values()) {
+            if (entry.isDeleted()) {
+                continue;
+            }
+            String entryKey = keyOf(view, entry);
+            if (entryKey.startsWith(key)) {
+                matches.add(new Match(entry, entryKey));
+            }
+        }
+        matches.sort(BY_POPULARITY);
+
+        List<ProductSuggestionResponse> suggestions = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+            suggestions.add(ProductSuggestionResponse.builder()
+                    .productId(match.productId())
+                    .name(match.entry().product().name())
+                    .build());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns the key of a pending product, reusing the key of the snapshot when only its stock changed
+     */
+    private static String keyOf(ProductCatalog.View<Names> view, ProductCatalog.Entry entry) {
+        int position = view.snapshot().position(entry.productId());
+        if (position >= 0 && Objects.equals(view.snapshot().entry(position).product().name(), entry.product().name())) {
+            return view.structure().keys[position];
+        }
+        return toKey(entry.product().name());
+    }
+
+    /**
+     * Normalizes a name or prefix like search terms, with the words separated by single spaces
+     */
+    private static String toKey(String name) {
+        return String.join(" ", SearchTokenizer.tokenize(name));
+    }
+
+    /**
+     * A product whose name starts with the prefix, and the key of its name
+     */
+    private record Match(ProductCatalog.Entry entry, String key) {
+
+        long productId() {
+            return entry.productId();
+        }
+
+        long popularity() {
+            return entry.popularity();
+        }
+    }
+
+    /**
+     * The keys of the names in the order of the snapshot, the positions of the products sorted by key, and a segment
+     * tree whose nodes hold the index in the sorted positions of the most popular product below them
+     */
+    private static final class Names {
+
+        private final String[] keys;
+        private final int[] byName;
+        private final long[] popularity;
+        private final int[] tree;
+
+        private Names(ProductCatalog.Snapshot snapshot, String[] keys, int[] byName) {
+            this.keys = keys;
+            this.byName = byName;
+            int n = byName.length;
+            popularity = new long[n];
+            tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                popularity[i] = snapshot.entry(byName[i]).popularity();
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        /**
+         * Builds the names of a whole snapshot
+         */
+        static Names build(ProductCatalog.Snapshot snapshot) {
+            int n = snapshot.size();
+            String[] keys = new String[n];
+            Integer[] byName = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = toKey(snapshot.entry(i).product().name());
+                byName[i] = i;
+            }
+            Arrays.sort(byName, byKey(snapshot, keys));
+            return new Names(snapshot, keys, Arrays.stream(byName).mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * Returns the names of a merged snapshot. The positions of the products kept are renumbered in their order
+         * and merged with the changed ones, so nothing is sorted but the changes
+         */
+        Names merge(ProductCatalog.Merge merge) {
+            ProductCatalog.Snapshot merged = merge.merged();
+            int[] newPositions = merge.newPositions();
+            String[] mergedKeys = new String[merged.size()];
+            for (int i = 0; i < newPositions.length; i++) {
+                if (newPositions[i] >= 0) {
+                    mergedKeys[newPositions[i]] = keys[i];
+                }
+            }
+            int[] changedPositions = merge.changedPositions();
+            Integer[] changedByName = new Integer[changedPositions.length];
+            for (int i = 0; i < changedPositions.length; i++) {
+                mergedKeys[changedPositions[i]] = toKey(merged.entry(changedPositions[i]).product().name());
+                changedByName[i] = changedPositions[i];
+            }
+            Comparator<Integer> byKey = byKey(merged, mergedKeys);
+            Arrays.sort(changedByName, byKey);
+
+            int[] mergedByName = new int[merged.size()];
+            int next = 0;
+            int index = 0;
+            for (int oldPosition : byName) {
+                int position = newPositions[oldPosition];
+                if (position < 0) {
+                    continue;
+                }
+                while (next < changedByName.length && byKey.compare(changedByName[next], position) < 0) {
+                    mergedByName[index++] = changedByName[next++];
+                }
+                mergedByName[index++] = position;
+            }
+            while (next < changedByName.length) {
+                mergedByName[index++] = changedByName[next++];
+            }
+            return new Names(merged, mergedKeys, mergedByName);
+        }
+
+        /**
+         * Orders positions of a snapshot alphabetically, by product id on the same name
+         */
+        private static Comparator<Integer> byKey(ProductCatalog.Snapshot snapshot, String[] keys) {
+            return Comparator.<Integer, String>comparing(position -> keys[position])
+                    .thenComparingLong(position -> snapshot.entry(position).productId());
+        }
+
+        /**
+         * Returns up to limit products starting with the key, most popular first, leaving out the skipped ones
+         */
+        List<Match> top(ProductCatalog.Snapshot snapshot, String key, int limit, LongPredicate skip) {
+            List<Match> top = new ArrayList<>(limit);
+            int from = firstIndex(key);
+            int to = firstIndexAfterPrefix(key, from);
+            if (from >= to) {
+                return top;
+            }
+
+            //ranges of the sorted positions ordered by their most popular product, splitting a range around it once taken
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0 : better(a[2], b[2]) == a[2] ? -1 : 1);
+            ranges.add(new int[]{from, to, best(from, to)});
+            while (!ranges.isEmpty() && top.size() < limit) {
+                int[] range = ranges.poll();
+                int index = range[2];
+                ProductCatalog.Entry entry = snapshot.entry(byName[index]);
+                if (!skip.test(entry.productId())) {
+                    top.add(new Match(entry, keys[byName[index]]));
+                }
+                if (range[0] < index) {
+                    ranges.add(new int[]{range[0], index, best(range[0], index)});
+                }
+                if (index + 1 < range[1]) {
+                    ranges.add(new int[]{index + 1, range[1], best(index + 1, range[1])});
+                }
+            }
+            return top;
+        }
+
+        private int firstIndex(String key) {
+            int low = 0;
+            int high = byName.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[byName[middle]].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int firstIndexAfterPrefix(String key, int from) {
+            int low = from;
+            int high = byName.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[byName[middle]].startsWith(key)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the index of the most popular product in [from, to) of the sorted positions
+         */
+        private int best(int from, int to) {
+            int best = -1;
+            for (from += byName.length, to += byName.length; from < to; from >>= 1, to >>= 1) {
+                if ((from & 1) == 1) {
+                    best = better(best, tree[from++]);
+                }
+                if ((to & 1) == 1) {
+                    best = better(best, tree[--to]);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Returns the index of the more popular product, the first one alphabetically on a tie
+         */
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (popularity[a] != popularity[b]) {
+                return popularity[a] > popularity[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+    }
+}
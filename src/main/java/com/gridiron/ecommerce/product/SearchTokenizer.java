@@ -0,0 +1,59 @@
+package com.gridiron.ecommerce.product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits product text into the terms used by the search index.
+ *
+ * Text is folded to lower case and stripped of accents, then split on every character that is not a letter or digit,
+ * so "Café Crème-Brûlée" is indexed as "cafe", "creme" and "brulee". Queries go through the same steps, so they
+ * match regardless of case and accents.
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Folds text to lower case without accents, keeping every other character as it is
+     * @param text The text to be normalized, may be null
+     * @return the normalized text, empty if text is null
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Splits text into normalized terms, in the order they appear
+     * @param text The text to be split, may be null
+     * @return the terms of the text, empty if it has none
+     */
+    static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean termCharacter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (termCharacter && start < 0) {
+                start = i;
+            } else if (!termCharacter && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gridiron.ecommerce.product.response;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Counts of the products by availability and by price range. The availability counts apply the price filter only,
+ * and the price range counts apply the availability filter only, so every count is what selecting it would return
+ */
+@Builder
+public record ProductFacetsResponse(
+
+        long inStock,
+        long outOfStock,
+        List<PriceRangeCount> priceRanges
+
+) {
+
+    /**
+     * The number of products priced from (inclusive) up to (exclusive), either bound null when open
+     */
+    public record PriceRangeCount(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.gridiron.ecommerce.product.response;
+
+import com.gridiron.ecommerce.product.ProductImportJob;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+public record ProductImportJobResponse(
+
+        String jobId,
+        ProductImportJob.Status status,
+        String message,
+        long rowsRead,
+        long created,
+        long updated,
+        long failed,
+        List<RowError> errors,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+
+) {
+
+    /**
+     * Why a row of the import was not saved, by its number starting at 1 with the first product
+     */
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.gridiron.ecommerce.product.response;
+
+import lombok.Builder;
+
+@Builder
+public record ProductSuggestionResponse(
+
+        Long productId,
+        String name
+
+) {
+}
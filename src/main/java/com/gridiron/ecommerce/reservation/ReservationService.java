@@ -0,0 +1,380 @@
+package com.gridiron.ecommerce.reservation;
+
+import com.gridiron.ecommerce.cartItem.CartItemRepository;
+import com.gridiron.ecommerce.cartItem.CartLine;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReservationService puts short-lived holds on stock while products sit in carts.
+ *
+ * Every hold belongs to a user and a product and expires after the configured time-to-live unless the cart line is
+ * touched again. The total held per product is kept in an in-memory counter that is updated with compare-and-set,
+ * so concurrent carts competing for the same product never serialize on a database row. A hold is only granted
+ * when the product's available quantity still covers it after the holds of every other cart.
+ *
+ * Holds are released when the line is removed, when the cart is cleared, when the product is deleted, and by a
+ * scheduled sweeper once they expire.
+ * At checkout the stock is deducted in the database and the holds of the cart are released once that commits,
+ * which converts them into deductions. Carts written in a database transaction use the InTransaction and AfterCommit
+ * variants, so a hold follows the cart row: a hold granted by a transaction that rolls back is put back as it was,
+ * and a hold is only released once the removal of its line commits.
+ *
+ * Each product has a single counter rather than striped cells: a hold must be checked against the stock left, and
+ * striped cells can only enforce that bound by summing every cell under a lock, which is the contention striping
+ * would remove. A compare-and-set takes well under a microsecond, so one hot product is limited far above the
+ * request rate an instance serves.
+ *
+ * The counters live in this instance only and are not shared with other instances; on startup they are reconciled
+ * from the cart rows in Postgres that were changed within the time-to-live.
+ */
+@Service
+@Log
+public class ReservationService {
+
+    private final CartItemRepository cartItemRepository;
+    private final Duration ttl;
+    private final Clock clock;
+
+    //quantity held per product, across all carts
+    private final Map<Long, AtomicInteger> reservedByProduct = new ConcurrentHashMap<>();
+
+    //holds per user, then per product. A user's map is only read or changed inside compute on this map
+    private final Map<Long, Map<Long, Hold>> holdsByUser = new ConcurrentHashMap<>();
+
+    record Hold(int quantity, long expiresAtMillis) {
+    }
+
+    @Autowired
+    public ReservationService(CartItemRepository cartItemRepository,
+                              @Value("${application.inventory.reservation.ttl}") Duration ttl) {
+        this(cartItemRepository, ttl, Clock.systemDefaultZone());
+    }
+
+    ReservationService(CartItemRepository cartItemRepository, Duration ttl, Clock clock) {
+        this.cartItemRepository = cartItemRepository;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the hold of a user on a product to the given quantity, and restarts its time-to-live.
+     * @param userId The id of the user that owns the cart
+     * @param productId The id of the product to be held
+     * @param quantity The total quantity of the product in the user's cart
+     * @param availableQuantity The quantity of the product in stock
+     * @throws InvalidInputException if the stock left after the holds of other carts does not cover the quantity
+     */
+    public void reserve(Long userId, Long productId, int quantity, int availableQuantity) {
+        long expiresAtMillis = clock.millis() + ttl.toMillis();
+
+        holdsByUser.compute(userId, (id, holds) -> {
+            Map<Long, Hold> userHolds = holds == null ? new HashMap<>() : holds;
+            Hold existingHold = userHolds.get(productId);
+            int held = existingHold == null ? 0 : existingHold.quantity();
+            //throws before the user's holds are changed when the stock is not enough
+            adjustReserved(productId, quantity - held, availableQuantity);
+            userHolds.put(productId, new Hold(quantity, expiresAtMillis));
+            return userHolds;
+        });
+    }
+
+    /**
+     * Sets the holds of a user on several products at once. Either every hold is granted or none is changed.
+     * @param userId The id of the user that owns the cart
+     * @param quantities The total quantity in the user's cart, by productId
+     * @param availableQuantities The quantity in stock, by productId
+     * @throws InvalidInputException if the stock left after the holds of other carts does not cover any quantity
+     */
+    public void reserveAll(Long userId, Map<Long, Integer> quantities, Map<Long, Integer> availableQuantities) {
+        grant(userId, quantities, availableQuantities, new HashMap<>());
+    }
+
+    /**
+     * Sets the hold of a user on a product like reserve, and puts the previous hold back if the surrounding
+     * transaction rolls back, so the hold follows the cart line written by that transaction
+     * @param userId The id of the user that owns the cart
+     * @param productId The id of the product to be held
+     * @param quantity The total quantity of the product in the user's cart
+     * @param availableQuantity The quantity of the product in stock
+     * @throws InvalidInputException if the stock left after the holds of other carts does not cover the quantity
+     */
+    public void reserveInTransaction(Long userId, Long productId, int quantity, int availableQuantity) {
+        reserveAllInTransaction(userId, Map.of(productId, quantity), Map.of(productId, availableQuantity));
+    }
+
+    /**
+     * Sets the holds of a user on several products like reserveAll, and puts the previous holds back if the
+     * surrounding transaction rolls back
+     * @param userId The id of the user that owns the cart
+     * @param quantities The total quantity in the user's cart, by productId
+     * @param availableQuantities The quantity in stock, by productId
+     * @throws InvalidInputException if the stock left after the holds of other carts does not cover any quantity
+     */
+    public void reserveAllInTransaction(Long userId, Map<Long, Integer> quantities,
+                                        Map<Long, Integer> availableQuantities) {
+        Map<Long, Hold> previousHolds = new HashMap<>();
+        Map<Long, Hold> granted = grant(userId, quantities, availableQuantities, previousHolds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    restore(userId, granted, previousHolds);
+                }
+            }
+        });
+    }
+
+    /**
+     * Grants the holds of a user on several products, either every one or none
+     * @param previousHolds Filled with the holds replaced, by productId
+     * @return The holds granted, by productId
+     */
+    private Map<Long, Hold> grant(Long userId, Map<Long, Integer> quantities, Map<Long, Integer> availableQuantities,
+                                  Map<Long, Hold> previousHolds) {
+        long expiresAtMillis = clock.millis() + ttl.toMillis();
+        Map<Long, Hold> granted = new HashMap<>();
+
+        holdsByUser.compute(userId, (id, holds) -> {
+            Map<Long, Hold> userHolds = holds == null ? new HashMap<>() : holds;
+            Map<Long, Integer> adjusted = new HashMap<>();
+            try {
+                quantities.forEach((productId, quantity) -> {
+                    Hold existingHold = userHolds.get(productId);
+                    int delta = quantity - (existingHold == null ? 0 : existingHold.quantity());
+                    adjustReserved(productId, delta, availableQuantities.get(productId));
+                    adjusted.put(productId, delta);
+                });
+            } catch (InvalidInputException e) {
+                //give back what was taken before the product that ran out
+                adjusted.forEach((productId, delta) -> adjustReserved(productId, -delta, Integer.MAX_VALUE));
+                throw e;
+            }
+            quantities.forEach((productId, quantity) -> {
+                Hold hold = new Hold(quantity, expiresAtMillis);
+                Hold previous = userHolds.put(productId, hold);
+                if (previous != null) {
+                    previousHolds.put(productId, previous);
+                }
+                granted.put(productId, hold);
+            });
+            return userHolds;
+        });
+        return granted;
+    }
+
+    /**
+     * Puts back the holds replaced by holds that were granted in a transaction that rolled back. A hold changed
+     * again since, or already expired, is left as it is
+     * @param userId The id of the user that owns the cart
+     * @param granted The holds granted by the transaction, by productId
+     * @param previousHolds The holds they replaced, by productId
+     */
+    private void restore(Long userId, Map<Long, Hold> granted, Map<Long, Hold> previousHolds) {
+        holdsByUser.compute(userId, (id, holds) -> {
+            Map<Long, Hold> userHolds = holds == null ? new HashMap<>() : holds;
+            granted.forEach((productId, hold) -> {
+                if (userHolds.get(productId) != hold) {
+                    return;
+                }
+                Hold previous = previousHolds.get(productId);
+                if (previous == null) {
+                    userHolds.remove(productId);
+                } else {
+                    userHolds.put(productId, previous);
+                }
+                adjustReserved(productId, (previous == null ? 0 : previous.quantity()) - hold.quantity(),
+                        Integer.MAX_VALUE);
+            });
+            return userHolds.isEmpty() ? null : userHolds;
+        });
+    }
+
+    /**
+     * Releases the hold of a user on a product, if there is one
+     * @param userId The id of the user that owns the cart
+     * @param productId The id of the product held
+     */
+    public void release(Long userId, Long productId) {
+        holdsByUser.computeIfPresent(userId, (id, holds) -> {
+            Hold hold = holds.remove(productId);
+            if (hold != null) {
+                adjustReserved(productId, -hold.quantity(), Integer.MAX_VALUE);
+            }
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+
+    /**
+     * Releases the hold of a user on a product once the current transaction commits, or right away outside a
+     * transaction, so a removal that rolls back leaves the line held
+     * @param userId The id of the user that owns the cart
+     * @param productId The id of the product held
+     */
+    public void releaseAfterCommit(Long userId, Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(userId, productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(userId, productId);
+            }
+        });
+    }
+
+    /**
+     * Releases every hold of a user
+     * @param userId The id of the user that owns the cart
+     */
+    public void releaseAll(Long userId) {
+        Map<Long, Hold> holds = holdsByUser.remove(userId);
+        if (holds == null) {
+            return;
+        }
+        holds.forEach((productId, hold) -> adjustReserved(productId, -hold.quantity(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Releases every hold of a user once the current transaction commits, or right away outside a transaction.
+     * At checkout this keeps the holds in place until the stock deduction is durable.
+     * @param userId The id of the user that owns the cart
+     */
+    public void releaseAllAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseAll(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseAll(userId);
+            }
+        });
+    }
+
+    /**
+     * Releases the holds of every user on a product, used when the product is deleted
+     * @param productId The id of the product held
+     */
+    public void releaseAllForProduct(Long productId) {
+        for (Long userId : holdsByUser.keySet()) {
+            release(userId, productId);
+        }
+    }
+
+    /**
+     * Releases the holds of every user on a product once the current transaction commits, or right away outside a
+     * transaction, so a deletion that rolls back leaves the product held
+     * @param productId The id of the product held
+     */
+    public void releaseAllForProductAfterCommit(Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseAllForProduct(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseAllForProduct(productId);
+            }
+        });
+    }
+
+    /**
+     * Returns the quantity of a product held by all carts
+     * @param productId The id of the product
+     */
+    public int getReservedQuantity(Long productId) {
+        AtomicInteger reserved = reservedByProduct.get(productId);
+        return reserved == null ? 0 : reserved.get();
+    }
+
+    /**
+     * Releases the holds whose time-to-live has passed
+     */
+    @Scheduled(fixedDelayString = "${application.inventory.reservation.sweep-interval-ms}")
+    public void releaseExpiredHolds() {
+        long now = clock.millis();
+        for (Long userId : holdsByUser.keySet()) {
+            holdsByUser.computeIfPresent(userId, (id, holds) -> {
+                Iterator<Map.Entry<Long, Hold>> iterator = holds.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Long, Hold> entry = iterator.next();
+                    if (entry.getValue().expiresAtMillis() <= now) {
+                        iterator.remove();
+                        adjustReserved(entry.getKey(), -entry.getValue().quantity(), Integer.MAX_VALUE);
+                    }
+                }
+                return holds.isEmpty() ? null : holds;
+            });
+        }
+    }
+
+    /**
+     * Rebuilds the holds from the carts changed within the time-to-live, so that a restart does not free stock
+     * that is still sitting in active carts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileFromCarts() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(ttl);
+        List<CartLine> cartLines = cartItemRepository.findCartLinesUpdatedAfter(since);
+        for (CartLine cartLine : cartLines) {
+            long expiresAtMillis = cartLine.updatedAt().atZone(clock.getZone()).toInstant().toEpochMilli()
+                    + ttl.toMillis();
+            holdsByUser.compute(cartLine.userId(), (id, holds) -> {
+                Map<Long, Hold> userHolds = holds == null ? new HashMap<>() : holds;
+                Hold previous = userHolds.put(cartLine.productId(), new Hold(cartLine.quantity(), expiresAtMillis));
+                int previousQuantity = previous == null ? 0 : previous.quantity();
+                adjustReserved(cartLine.productId(), cartLine.quantity() - previousQuantity, Integer.MAX_VALUE);
+                return userHolds;
+            });
+        }
+        log.info("Restored " + cartLines.size() + " inventory holds from carts");
+    }
+
+    /**
+     * Adds delta to the quantity held for a product with a compare-and-set loop
+     * @param productId The id of the product
+     * @param delta The quantity to be added, negative to release
+     * @param availableQuantity The limit the held quantity may not exceed when it grows
+     */
+    private void adjustReserved(Long productId, int delta, int availableQuantity) {
+        if (delta == 0) {
+            return;
+        }
+        AtomicInteger reserved = reservedByProduct.computeIfAbsent(productId, id -> new AtomicInteger());
+        while (true) {
+            int current = reserved.get();
+            int updated = current + delta;
+            if (delta > 0 && updated > availableQuantity) {
+                throw new InvalidInputException("Product Quantity Exceeded");
+            }
+            if (reserved.compareAndSet(current, Math.max(updated, 0))) {
+                return;
+            }
+        }
+    }
+}
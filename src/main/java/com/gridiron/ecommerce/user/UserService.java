@@ -6,10 +6,10 @@ import com.gridiron.ecommerce.utility.exception.ResourceExistsException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import com.gridiron.ecommerce.utility.exception.UnauthorizedException;
 import com.gridiron.ecommerce.utility.security.JwtService;
+import com.gridiron.ecommerce.utility.security.PasswordHasher;
 import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.extern.java.Log;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -24,7 +24,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final JwtService jwtService;
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
 
     /**
      * This method creates a new user account
@@ -44,7 +44,7 @@ public class UserService {
                 createUserRequest.firstName(),
                 createUserRequest.lastName(),
                 createUserRequest.email(),
-                passwordEncoder.encode(createUserRequest.password()),
+                passwordHasher.encode(createUserRequest.password()),
                 roles
         ));
 
@@ -60,10 +60,16 @@ public class UserService {
         User user =  userRepository.findByEmailIgnoreCase(email).orElseThrow(()->new ResourceNotFoundException("Invalid Account"));
 
         //check if password matches user account password
-        if(!passwordEncoder.matches(password, user.getPassword())){
+        if(!passwordHasher.matches(password, user.getPassword())){
            throw new UnauthorizedException("Invalid Email or Password");
         }
 
+        //re-hash the password when the configured strength was raised or lowered since it was stored
+        if(passwordHasher.upgradeEncoding(user.getPassword())){
+            user.setPassword(passwordHasher.encode(password));
+            userRepository.save(user);
+        }
+
         return UserProfileResponse.builder()
                 .token(generateUserToken(user))
                 .userId(user.getId())
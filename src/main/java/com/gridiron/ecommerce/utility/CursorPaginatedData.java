@@ -0,0 +1,11 @@
+package com.gridiron.ecommerce.utility;
+
+import lombok.Builder;
+
+@Builder
+public record CursorPaginatedData(
+        int currentSize,
+        String nextCursor,
+        Object data
+) {
+}
@@ -0,0 +1,13 @@
+package com.gridiron.ecommerce.utility;
+
+import lombok.Builder;
+
+@Builder
+public record FacetedPaginatedData(
+        int totalPage,
+        int currentSize,
+        Long totalSize,
+        Object data,
+        Object facets
+) {
+}
@@ -10,8 +10,9 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 public class GeneralEntity implements Serializable {
 
+    //one pooled sequence per entity (<entity>_seq, increment 50), so inserts can be batched by JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(nullable = false, updatable = false)
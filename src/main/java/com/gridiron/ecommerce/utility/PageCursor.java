@@ -0,0 +1,51 @@
+package com.gridiron.ecommerce.utility;
+
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * PageCursor is the position of the last row of a page in a listing ordered by (createdAt, id).
+ * It is handed to clients as an opaque url-safe token, which is passed back as `after` to fetch the next page
+ * with a keyset query instead of an OFFSET scan.
+ */
+public record PageCursor(
+        LocalDateTime createdAt,
+        Long id
+) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Encodes the cursor to the opaque token returned to clients
+     * @return url-safe base64 token of the cursor
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously returned by encode()
+     * @param token the opaque token sent by the client
+     * @return the decoded cursor
+     * @throws InvalidInputException if the token was not produced by encode()
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidInputException("Invalid cursor");
+            }
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                    Long.valueOf(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.gridiron.ecommerce.utility.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * CacheConfig registers the in-process caches used in front of the read paths.
+ *
+ * Every cache is backed by Caffeine, which bounds the number of entries and evicts using W-TinyLFU,
+ * and expires entries after a fixed time-to-live so that a missed invalidation can only serve stale data
+ * for a bounded period. Statistics are recorded on every cache so that hit, miss and eviction counters are
+ * published through the actuator `metrics` endpoint (`cache.gets`, `cache.evictions`, `cache.size`).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    //single product lookups by id, holds ProductResponse values
+    public static final String PRODUCTS = "products";
+
+    //pages of the public product listing, holds PaginatedData values
+    public static final String PRODUCT_PAGES = "productPages";
+
+    //outcome of asynchronous checkouts by reference, holds CheckoutResponse values
+    public static final String CHECKOUTS = "checkouts";
+
+    //cart id of each user by userId, holds Long values
+    public static final String CART_IDS = "cartIds";
+
+    //caches whose writes and evictions are deferred until the surrounding transaction commits
+    private static final Set<String> TRANSACTION_AWARE_CACHES = Set.of(PRODUCTS, PRODUCT_PAGES, CART_IDS);
+
+    @Value("${application.cache.products.maximum-size}")
+    private long productsMaximumSize;
+
+    @Value("${application.cache.products.ttl}")
+    private Duration productsTtl;
+
+    @Value("${application.cache.product-pages.maximum-size}")
+    private long productPagesMaximumSize;
+
+    @Value("${application.cache.product-pages.ttl}")
+    private Duration productPagesTtl;
+
+    @Value("${application.cache.checkouts.maximum-size}")
+    private long checkoutsMaximumSize;
+
+    @Value("${application.cache.checkouts.ttl}")
+    private Duration checkoutsTtl;
+
+    @Value("${application.cache.cart-ids.maximum-size}")
+    private long cartIdsMaximumSize;
+
+    @Value("${application.cache.cart-ids.ttl}")
+    private Duration cartIdsTtl;
+
+    /**
+     * Creates the cache manager with a bounded, expiring Caffeine cache for each cache name.
+     * Caches are registered eagerly so that their metrics are bound to the registry at startup.
+     * The cart id and product caches are only written and evicted once the surrounding transaction commits,
+     * so the id of a cart created by a transaction that rolls back is never cached, and a read racing a product
+     * change cannot cache the old product again after its eviction, until the change is committed.
+     *
+     * @return The CacheManager used by the @Cacheable and @CacheEvict annotations.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Cache adapted = super.adaptCaffeineCache(name, cache);
+                return TRANSACTION_AWARE_CACHES.contains(name) ? new TransactionAwareCacheDecorator(adapted) : adapted;
+            }
+        };
+        cacheManager.registerCustomCache(PRODUCTS, buildCache(productsMaximumSize, productsTtl));
+        cacheManager.registerCustomCache(PRODUCT_PAGES, buildCache(productPagesMaximumSize, productPagesTtl));
+        cacheManager.registerCustomCache(CHECKOUTS, buildCache(checkoutsMaximumSize, checkoutsTtl));
+        cacheManager.registerCustomCache(CART_IDS, buildCache(cartIdsMaximumSize, cartIdsTtl));
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> buildCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.gridiron.ecommerce.utility.concurrency;
+
+import com.gridiron.ecommerce.utility.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * DatabaseAccessLimiter caps how many threads use the database at once when requests run on virtual threads
+ * (spring.threads.virtual.enabled).
+ *
+ * With platform threads the Tomcat pool bounds concurrency. With virtual threads every request gets its own thread,
+ * so thousands of them can queue on the connection pool and time out together. Here every call that takes a
+ * connection takes a permit first from a fair semaphore with as many permits as the pool has connections: each
+ * Spring Data repository call, and each @Transactional method of the application, which holds its connection from
+ * start to end. Work between two repository calls, such as hashing a password after the user is read, holds no
+ * permit, so a burst of logins cannot starve carts and orders of connections. A request that waits longer than
+ * application.database.permit-timeout is refused with a 429; background work outside a request waits instead.
+ *
+ * The aspect runs outside the transaction advice, so the permit is held before a connection is taken. Code that
+ * opens a transaction with a TransactionTemplate, such as the checkout workers, the cart write-behind and the product
+ * import, takes the permit first with withPermit. Open session in view is turned off in this mode
+ * (VirtualThreadEnvironmentPostProcessor), since it would hold a connection for the rest of the request without a
+ * permit.
+ * Permits are reentrant per thread: repository calls inside a transaction use the permit the transaction already
+ * holds, so a call can never wait on a permit held by itself.
+ * Available permits are published as the `database.permits.available` gauge.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(value = "spring.threads.virtual.enabled", havingValue = "true")
+public class DatabaseAccessLimiter {
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    //number of nested calls on this thread that hold the permit
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public DatabaseAccessLimiter(@Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize,
+                                 @Value("${application.database.permit-timeout}") Duration timeout,
+                                 MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(poolSize, true);
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("database.permits.available", permits, Semaphore::availablePermits)
+                .description("Database permits free for requests running on virtual threads")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))"
+            + " || (within(com.gridiron.ecommerce..*)"
+            + " && (@annotation(org.springframework.transaction.annotation.Transactional)"
+            + " || @within(org.springframework.transaction.annotation.Transactional)))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        //only a request can be answered with a 429, scheduled and startup work waits for its permit
+        return limit(joinPoint::proceed, RequestContextHolder.getRequestAttributes() != null);
+    }
+
+    /**
+     * Runs a call holding a permit, waiting as long as it takes for one. Used by background work that opens its
+     * own transaction and must not be refused, the permit has to be held before the transaction takes a connection
+     * @param call The call, usually a transaction
+     * @return What the call returned
+     */
+    public <T> T withPermit(Supplier<T> call) {
+        try {
+            return limit(call::get, false);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            //a Supplier cannot throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T limit(Call<T> call, boolean timed) throws Throwable {
+        int[] held = depth.get();
+        if (held[0] > 0) {
+            held[0]++;
+            try {
+                return call.call();
+            } finally {
+                held[0]--;
+            }
+        }
+
+        if (timed) {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new TooManyRequestsException("Server is busy, please try again shortly");
+            }
+        } else {
+            permits.acquireUninterruptibly();
+        }
+        held[0] = 1;
+        try {
+            return call.call();
+        } finally {
+            held[0] = 0;
+            depth.remove();
+            permits.release();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws Throwable;
+    }
+}
@@ -0,0 +1,31 @@
+package com.gridiron.ecommerce.utility.concurrency;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * VirtualThreadEnvironmentPostProcessor turns off open session in view when requests run on virtual threads.
+ *
+ * Open session in view keeps the connection of the first query of a request until the response is written, outside
+ * the repository call or transaction that opened it, and so without a database permit from the
+ * DatabaseAccessLimiter. Requests holding connections that way would make requests holding permits wait for a
+ * connection. The default is only added as the last property source, so an explicit spring.jpa.open-in-view still
+ * wins.
+ */
+public class VirtualThreadEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY_SOURCE_NAME = "virtualThreadDefaults";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            return;
+        }
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME,
+                Map.of("spring.jpa.open-in-view", false)));
+    }
+}
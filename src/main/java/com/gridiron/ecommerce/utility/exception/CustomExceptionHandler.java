@@ -45,6 +45,15 @@ public class CustomExceptionHandler {
         return new ResponseEntity<>(new ApiResponse(false,e.getMessage(),null), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * This method handles the processing of a too many requests exception
+     * It throws a too many requests status code to the client, who should retry later
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public final ResponseEntity<ApiResponse> handleTooManyRequestsException(TooManyRequestsException e){
+        return new ResponseEntity<>(new ApiResponse(false,e.getMessage(),null), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
 
 
 }
@@ -0,0 +1,10 @@
+package com.gridiron.ecommerce.utility.ratelimit;
+
+/**
+ * What a rate limit is counted against
+ */
+public enum KeyType {
+    IP,     //the remote address of the request
+    CLIENT, //the client owning the API key
+    USER    //the userId of the JWT, only for authenticated requests
+}
@@ -0,0 +1,35 @@
+package com.gridiron.ecommerce.utility.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limits applied by the request filter.
+ * @param enabled Whether requests are rate limited at all
+ * @param idleTimeout How long a bucket may go unused before it is evicted
+ * @param rules The limits, every rule whose path prefix matches a request is applied to it
+ */
+@ConfigurationProperties(prefix = "application.rate-limit")
+public record RateLimitProperties(
+        boolean enabled,
+        Duration idleTimeout,
+        List<Rule> rules
+) {
+
+    /**
+     * A token bucket per key for the requests under a path prefix.
+     * @param path The path prefix the rule applies to
+     * @param key What the requests are counted against
+     * @param requestsPerSecond The sustained rate, at which tokens are refilled
+     * @param burst The number of requests allowed at once, the capacity of the bucket
+     */
+    public record Rule(
+            String path,
+            KeyType key,
+            double requestsPerSecond,
+            int burst
+    ) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.gridiron.ecommerce.utility.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter keeps a token bucket per rule and key, and decides whether a request may proceed.
+ *
+ * Buckets use the generic cell rate algorithm: each bucket is a single AtomicLong holding the time at which it
+ * will be full again, advanced with compare-and-set, so checking a request takes no lock and allocates nothing
+ * once the bucket exists. Buckets live in a fixed number of ConcurrentHashMap shards per rule. A scheduled sweep
+ * drops buckets that have been full for longer than the idle timeout, which bounds memory to the keys seen
+ * recently. A request racing the sweep may land on a dropped bucket and get one extra burst, never fewer requests.
+ *
+ * A request counted against several buckets only takes tokens if every one of them lets it through: when one
+ * rejects it, the tokens already taken from the others are refunded, so a client that keeps being rejected by one
+ * budget does not drain its other budgets.
+ *
+ * Rejections are counted as `rate_limit.rejected` tagged with the rule's key type and path.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoTime;
+    private final Map<KeyType, Limit[]> limitsByKeyType = new EnumMap<>(KeyType.class);
+
+    @Autowired
+    public RateLimiter(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        this(rateLimitProperties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.enabled = rateLimitProperties.enabled();
+        this.idleTimeoutNanos = rateLimitProperties.idleTimeout().toNanos();
+        this.nanoTime = nanoTime;
+
+        Map<KeyType, List<Limit>> limits = new EnumMap<>(KeyType.class);
+        for (RateLimitProperties.Rule rule : rateLimitProperties.rules() == null
+                ? List.<RateLimitProperties.Rule>of() : rateLimitProperties.rules()) {
+            Counter rejected = Counter.builder("rate_limit.rejected")
+                    .tag("key", rule.key().name())
+                    .tag("path", rule.path())
+                    .register(meterRegistry);
+            limits.computeIfAbsent(rule.key(), key -> new ArrayList<>()).add(new Limit(rule, rejected));
+        }
+        for (KeyType keyType : KeyType.values()) {
+            limitsByKeyType.put(keyType, limits.getOrDefault(keyType, List.of()).toArray(new Limit[0]));
+        }
+    }
+
+    /**
+     * Takes a token for the request from every bucket of the matching rules. If any bucket rejects the request,
+     * the tokens taken from the buckets before it are refunded and no further bucket is touched
+     * @param keyType What the key identifies
+     * @param key The IP address, client name or userId the request is counted against
+     * @param path The decoded request path, as returned by DefaultRouteValidator.pathOf. Rule prefixes are
+     *             compared without case, so a path cannot escape a rule by changing the case of its letters
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long tryAcquire(KeyType keyType, Object key, String path) {
+        if (!enabled || key == null) {
+            return 0;
+        }
+        long now = nanoTime.getAsLong();
+        Limit[] limits = limitsByKeyType.get(keyType);
+        for (int i = 0; i < limits.length; i++) {
+            if (limits[i].matches(path)) {
+                long retryAfterNanos = limits[i].tryAcquire(key, now);
+                if (retryAfterNanos > 0) {
+                    refund(limits, i, key, path, now);
+                    return retryAfterNanos;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gives back the token a request took from every bucket of the matching rules, used when the request is
+     * rejected by the buckets of another key after these let it through
+     * @param keyType What the key identifies
+     * @param key The IP address, client name or userId the request was counted against
+     * @param path The decoded request path
+     */
+    public void refund(KeyType keyType, Object key, String path) {
+        if (!enabled || key == null) {
+            return;
+        }
+        Limit[] limits = limitsByKeyType.get(keyType);
+        refund(limits, limits.length, key, path, nanoTime.getAsLong());
+    }
+
+    private void refund(Limit[] limits, int end, Object key, String path, long now) {
+        for (int i = 0; i < end; i++) {
+            if (limits[i].matches(path)) {
+                limits[i].refund(key, now);
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that have been full, and so unused, for longer than the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${application.rate-limit.sweep-interval-ms}")
+    public void evictIdleBuckets() {
+        long idleSince = nanoTime.getAsLong() - idleTimeoutNanos;
+        for (Limit[] limits : limitsByKeyType.values()) {
+            for (Limit limit : limits) {
+                limit.evictIdleBuckets(idleSince);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buckets held, for all rules
+     */
+    public int size() {
+        int size = 0;
+        for (Limit[] limits : limitsByKeyType.values()) {
+            for (Limit limit : limits) {
+                for (Map<Object, AtomicLong> shard : limit.shards) {
+                    size += shard.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The buckets of one rule, spread over shards by key hash
+     */
+    private static final class Limit {
+
+        private static final int SHARDS = shardCount();
+
+        private final String path;
+        private final long emissionIntervalNanos;
+        private final long toleranceNanos;
+        private final Counter rejected;
+        private final Map<Object, AtomicLong>[] shards;
+
+        @SuppressWarnings("unchecked")
+        private Limit(RateLimitProperties.Rule rule, Counter rejected) {
+            this.path = rule.path();
+            this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rule.requestsPerSecond());
+            this.toleranceNanos = emissionIntervalNanos * rule.burst();
+            this.rejected = rejected;
+            this.shards = new Map[SHARDS];
+            for (int i = 0; i < SHARDS; i++) {
+                shards[i] = new ConcurrentHashMap<>();
+            }
+        }
+
+        private boolean matches(String requestPath) {
+            return requestPath.regionMatches(true, 0, path, 0, path.length());
+        }
+
+        /**
+         * Generic cell rate algorithm: the bucket stores the theoretical arrival time (TAT) of the next request.
+         * A request is allowed if advancing the TAT by one emission interval keeps it within the burst tolerance.
+         */
+        private long tryAcquire(Object key, long now) {
+            AtomicLong bucket = bucket(key, now);
+            while (true) {
+                long theoreticalArrival = bucket.get();
+                long next = Math.max(theoreticalArrival, now) + emissionIntervalNanos;
+                long ahead = next - now - toleranceNanos;
+                if (ahead > 0) {
+                    rejected.increment();
+                    return ahead;
+                }
+                if (bucket.compareAndSet(theoreticalArrival, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Moves the TAT back by one emission interval, never past now, which is where a full bucket stands
+         */
+        private void refund(Object key, long now) {
+            AtomicLong bucket = shard(key).get(key);
+            if (bucket == null) {
+                return;
+            }
+            while (true) {
+                long theoreticalArrival = bucket.get();
+                if (theoreticalArrival - now <= 0
+                        || bucket.compareAndSet(theoreticalArrival,
+                        Math.max(theoreticalArrival - emissionIntervalNanos, now))) {
+                    return;
+                }
+            }
+        }
+
+        private AtomicLong bucket(Object key, long now) {
+            Map<Object, AtomicLong> shard = shard(key);
+            AtomicLong bucket = shard.get(key);
+            if (bucket == null) {
+                bucket = shard.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            return bucket;
+        }
+
+        private Map<Object, AtomicLong> shard(Object key) {
+            return shards[(key.hashCode() ^ (key.hashCode() >>> 16)) & (SHARDS - 1)];
+        }
+
+        private void evictIdleBuckets(long idleSince) {
+            for (Map<Object, AtomicLong> shard : shards) {
+                shard.values().removeIf(bucket -> bucket.get() - idleSince < 0);
+            }
+        }
+
+        private static int shardCount() {
+            int shards = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+            return Math.min(shards, 64);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.gridiron.ecommerce.utility.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * The API keys accepted in the X-Api-Key header.
+ * @param apiKey The key of the default client, kept for existing deployments (API_KEY)
+ * @param apiKeys Additional active keys by client name, e.g. application.security.api-keys.partner-a.
+ *                Several keys can be active at once to rotate a key or to tell integration partners apart.
+ */
+@ConfigurationProperties(prefix = "application.security")
+public record ApiKeyProperties(
+        String apiKey,
+        Map<String, String> apiKeys
+) {
+}
@@ -0,0 +1,94 @@
+package com.gridiron.ecommerce.utility.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ApiKeyValidator checks the X-Api-Key header against every active API key.
+ *
+ * Keys are kept only as SHA-256 digests. A presented key is digested and compared with MessageDigest.isEqual
+ * against every active key, without stopping at the first match, so the time taken does
+ * not reveal how much of a key was right or which key matched. Keys are never logged.
+ *
+ * Accepted requests are counted per client as `api.requests` tagged with the client name, and rejected ones
+ * as `api.requests.rejected`.
+ */
+@Component
+public class ApiKeyValidator {
+
+    //name of the client using application.security.apiKey
+    public static final String DEFAULT_CLIENT = "default";
+
+    private final List<ActiveKey> activeKeys;
+    private final Counter rejected;
+
+    private record ActiveKey(String client, byte[] digest, Counter requests) {
+    }
+
+    public ApiKeyValidator(ApiKeyProperties apiKeyProperties, MeterRegistry meterRegistry) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        if (apiKeyProperties.apiKey() != null && !apiKeyProperties.apiKey().isBlank()) {
+            keys.put(DEFAULT_CLIENT, apiKeyProperties.apiKey());
+        }
+        if (apiKeyProperties.apiKeys() != null) {
+            apiKeyProperties.apiKeys().forEach((client, key) -> {
+                if (key != null && !key.isBlank()) {
+                    keys.put(client, key);
+                }
+            });
+        }
+
+        List<ActiveKey> activeKeys = new ArrayList<>(keys.size());
+        keys.forEach((client, key) -> activeKeys.add(new ActiveKey(client,
+                sha256().digest(key.getBytes(StandardCharsets.UTF_8)),
+                Counter.builder("api.requests").tag("client", client).register(meterRegistry))));
+        this.activeKeys = List.copyOf(activeKeys);
+        this.rejected = Counter.builder("api.requests.rejected")
+                .description("Requests refused for a missing or unknown API key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the name of the client owning the presented key, or null if the key is missing or not active
+     * @param presentedKey The value of the X-Api-Key header, may be null
+     */
+    public String authenticate(String presentedKey) {
+        if (presentedKey == null || presentedKey.isEmpty()) {
+            rejected.increment();
+            return null;
+        }
+
+        byte[] presentedDigest = sha256().digest(presentedKey.getBytes(StandardCharsets.UTF_8));
+        ActiveKey match = null;
+        for (ActiveKey activeKey : activeKeys) {
+            //every key is compared, a match does not end the loop early
+            if (MessageDigest.isEqual(activeKey.digest(), presentedDigest)) {
+                match = activeKey;
+            }
+        }
+
+        if (match == null) {
+            rejected.increment();
+            return null;
+        }
+        match.requests().increment();
+        return match.client();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.gridiron.ecommerce.utility.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.gridiron.ecommerce.utility.ApiResponse;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -31,6 +29,12 @@ import java.io.IOException;
 @Configuration
 public class CustomAccessDeniedHandler implements AccessDeniedHandler {
 
+    private final SecurityErrorResponses errorResponses;
+
+    public CustomAccessDeniedHandler(SecurityErrorResponses errorResponses) {
+        this.errorResponses = errorResponses;
+    }
+
     /**
      * Handles the AccessDeniedException by setting a 403 status and writing a custom JSON
      * error message to the response.
@@ -43,17 +47,7 @@ public class CustomAccessDeniedHandler implements AccessDeniedHandler {
      */
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response, AccessDeniedException accessDeniedException) throws IOException, ServletException {
-        if (!response.isCommitted()) {
-            // Set the status code to 403 Forbidden
-            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-            response.setContentType("application/json");
-
-            // Create a custom error message
-            ApiResponse apiResponse = new ApiResponse(false, "Access Denied", null);
-
-            // Write the custom error message to the response
-            ObjectMapper objectMapper = new ObjectMapper();
-            response.getWriter().write(objectMapper.writeValueAsString(apiResponse));
-        }
+        // Write the pre-encoded 403 Forbidden error message
+        errorResponses.writeAccessDenied(response);
     }
 }
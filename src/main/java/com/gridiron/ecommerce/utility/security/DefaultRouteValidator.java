@@ -2,26 +2,156 @@ package com.gridiron.ecommerce.utility.security;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UrlPathHelper;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
+/**
+ * DefaultRouteValidator classifies request paths by the access they require.
+ *
+ * The route prefixes are compiled once into a character trie. Classifying a path walks the trie one character at
+ * a time and keeps the class of the longest prefix seen, so a request is classified in a single pass over its
+ * path, without regular expressions. Paths that match no prefix only require authentication.
+ *
+ * Requests are classified by their decoded path within the application, the path Spring MVC matches handlers
+ * against, so a percent-encoded character cannot move a request out of its route class. Letters are compared
+ * without case, so a path that differs from a route only in case is classified with that route.
+ */
 @Component
 public class DefaultRouteValidator {
 
-    //list of access points accessible to unauthenticated users
-    public static final List<Pattern> openApiEndpoints =
-            List.of(Pattern.compile("/api/v1/users/public.*"),
-                    Pattern.compile("/api/v1/users/public($|\\?.)"),
-                    Pattern.compile("/api/v1/products/public.*"),
-                    Pattern.compile("/api/v1/products/public($|\\?.)"),
-                    Pattern.compile("/api/v1/actuator($|\\?.)"),
-                    Pattern.compile("/api/v1/actuator.*")
-            );
+    /**
+     * The access a route requires
+     */
+    public enum RouteClass {
+        PUBLIC(null),          //accessible to unauthenticated users
+        ADMIN("ADMIN"),        //authenticated users with the ADMIN role
+        CUSTOMER("CUSTOMER"),  //authenticated users with the CUSTOMER role
+        AUTHENTICATED(null);   //any authenticated user
+
+        private final String role;
+        private final String authority;
+
+        RouteClass(String role) {
+            this.role = role;
+            this.authority = role == null ? null : "ROLE_" + role;
+        }
+
+        /**
+         * Returns the role the route requires, or null if it requires none
+         */
+        public String role() {
+            return role;
+        }
+
+        /**
+         * Returns the granted authority matching the required role, as set by the RequestFilter
+         */
+        public String authority() {
+            return authority;
+        }
+    }
+
+    //route prefixes and the access they require, the longest matching prefix wins
+    private static final Map<String, RouteClass> routes = Map.of(
+            "/api/v1/users/public", RouteClass.PUBLIC,
+            "/api/v1/products/public", RouteClass.PUBLIC,
+            "/api/v1/actuator", RouteClass.PUBLIC,
+            "/api/v1/users/private/admin", RouteClass.ADMIN,
+            "/api/v1/products/private", RouteClass.ADMIN,
+            "/api/v1/orders/admin", RouteClass.ADMIN,
+            "/api/v1/carts/private", RouteClass.CUSTOMER,
+            "/api/v1/orders/customer", RouteClass.CUSTOMER
+    );
+
+    //decodes the path and removes ;parameters, as the handler mapping does
+    private static final UrlPathHelper urlPathHelper = UrlPathHelper.defaultInstance;
+
+    private final Node root = compile(routes);
 
     public Predicate<HttpServletRequest> isSecured =
-            request -> openApiEndpoints
-                    .stream()
-                    .noneMatch(pattern -> pattern.matcher(request.getRequestURI()).matches());
+            request -> classify(request) != RouteClass.PUBLIC;
+
+    /**
+     * Returns the decoded path of a request within the application, without the query string.
+     * This is the path routes and rate limits must be matched against, never the raw request URI
+     * @param request The request
+     */
+    public String pathOf(HttpServletRequest request) {
+        return urlPathHelper.getPathWithinApplication(request);
+    }
+
+    /**
+     * Returns the access required by a request, from its decoded path
+     * @param request The request
+     */
+    public RouteClass classify(HttpServletRequest request) {
+        return classify(pathOf(request));
+    }
+
+    /**
+     * Returns the access required by a path
+     * @param path The decoded request path, without the query string
+     */
+    public RouteClass classify(String path) {
+        RouteClass routeClass = RouteClass.AUTHENTICATED;
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(Character.toLowerCase(path.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            if (node.routeClass != null) {
+                routeClass = node.routeClass;
+            }
+        }
+        return routeClass;
+    }
+
+    private static Node compile(Map<String, RouteClass> routes) {
+        Node root = new Node();
+        routes.forEach((prefix, routeClass) -> {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.addChild(prefix.charAt(i));
+            }
+            node.routeClass = routeClass;
+        });
+        return root;
+    }
+
+    /**
+     * A trie node. Nodes have very few children, so they are kept in parallel arrays and scanned linearly.
+     */
+    private static final class Node {
+
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private RouteClass routeClass;
+
+        private Node child(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node addChild(char label) {
+            Node child = child(label);
+            if (child != null) {
+                return child;
+            }
+            child = new Node();
+            int size = labels.length;
+            labels = Arrays.copyOf(labels, size + 1);
+            children = Arrays.copyOf(children, size + 1);
+            labels[size] = label;
+            children[size] = child;
+            return child;
+        }
+    }
 }
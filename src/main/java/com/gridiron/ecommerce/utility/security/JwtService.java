@@ -1,6 +1,11 @@
 package com.gridiron.ecommerce.utility.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import lombok.extern.java.Log;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,15 +17,35 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * JwtService issues and verifies the JSON Web Tokens used to authenticate requests.
+ *
+ * The signing key and parser are built once. Claims of a token are verified once and kept in a bounded cache
+ * until the token expires, so a token presented on many requests is only HMAC-verified the first time.
+ * Tokens that fail verification are never cached.
+ */
 @Service
 @Log
 public class JwtService {
 
+    //upper bound on the number of verified tokens kept in memory
+    private static final long MAX_CACHED_TOKENS = 10_000;
+
     @Value("${application.security.secretKey}")
     public String secretKey;
 
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    //verified claims by token, each entry expires with its token
+    private final Cache<String, Claims> verifiedClaims = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .expireAfter(new TokenExpiry())
+            .build();
+
     /**
      * Convert the secret key to a Key object for signing the JWT.
      * This field holds the signing key for HMAC-SHA256 algorithm.
@@ -43,21 +68,50 @@ public class JwtService {
     }
 
     /**
-     * Extracts all claims from the JWT token.
+     * Extracts all claims from the JWT token, verifying its signature and expiry the first time it is seen.
      *
-     * @param token The JWT token to parse and extract claims from.
+     * @param token The JWT token to parse and extract claims from, with or without the "Bearer " prefix.
      * @return A Claims object containing all claims from the JWT token.
+     * @throws JwtException if the token is malformed, wrongly signed or expired.
      */
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         if (token.startsWith("Bearer ")) {
             token =  token.substring(7); // Remove "Bearer " prefix to get the token
         }
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey(secretKey))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifiedClaims.get(token, this::parseClaims);
+    }
+
+    /**
+     * Parses and verifies a token with the shared parser
+     */
+    private Claims parseClaims(String token) {
+        return getParser().parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Returns the signing key, building it from the secret key on first use
+     */
+    private Key getSigningKey() {
+        Key key = signingKey;
+        if (key == null) {
+            key = getSigningKey(secretKey);
+            signingKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Returns the parser, building it on first use. The parser is immutable and safe to share between threads.
+     */
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 
     /**
@@ -74,7 +128,7 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(Date.from(LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()))
-                .signWith(getSigningKey(secretKey))
+                .signWith(getSigningKey())
                 .compact();
     }
 
@@ -88,16 +142,16 @@ public class JwtService {
         return extractClaim(token,Claims::getExpiration).before(new Date());
     }
 
+    /**
+     * Checks if the JWT token is correctly signed and not expired.
+     *
+     * @param token The JWT token to check.
+     * @return True if the token can be trusted, false otherwise.
+     */
     public boolean isTokenValid(String token) {
         try {
-            Jwts
-                    .parserBuilder()
-                    .setSigningKey(getSigningKey(secretKey))
-                    .build()
-                    .parseClaimsJws(token);
-
             return !isTokenExpired(token);
-        } catch (Exception e) {
+        } catch (JwtException | IllegalArgumentException e) {
             log.info("JWT FAILED: " + e);
             return false;
         }
@@ -113,5 +167,30 @@ public class JwtService {
         return Long.valueOf(claims.get("userId").toString());
     }
 
+    /**
+     * Expires a cached token at the expiration time in its claims.
+     * Tokens without an expiration are kept until evicted by size.
+     */
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return Long.MAX_VALUE;
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
 
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
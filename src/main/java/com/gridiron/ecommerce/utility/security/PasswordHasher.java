@@ -0,0 +1,136 @@
+package com.gridiron.ecommerce.utility.security;
+
+import com.gridiron.ecommerce.utility.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordHasher runs BCrypt hashing and verification on a small dedicated pool of threads.
+ *
+ * BCrypt is deliberately expensive, so running it on the request threads lets a burst of logins take every CPU
+ * and stall unrelated endpoints. Here at most `threads` hashes run at once, further requests wait in a bounded
+ * queue, and once the queue is full new requests are refused with a 429 instead of waiting.
+ *
+ * Hash latency is published as the `password.hash` timer (tagged by operation), queue depth as the
+ * `password.hash.queue.depth` gauge and refusals as the `password.hash.rejected` counter.
+ */
+@Component
+public class PasswordHasher {
+
+    //the version and cost that start a BCrypt hash, e.g. $2a$10$
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final int strength;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(@Value("${application.security.password-hashing.strength}") int strength,
+                          @Value("${application.security.password-hashing.threads}") int threads,
+                          @Value("${application.security.password-hashing.queue-capacity}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        this.strength = strength;
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Password hashes refused because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.depth", queue, BlockingQueue::size)
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hashes a raw password with the configured strength
+     * @param rawPassword The password to be hashed
+     * @throws TooManyRequestsException if the hashing queue is full
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Checks a raw password against a stored hash
+     * @param rawPassword The password to be checked
+     * @param encodedPassword The stored hash
+     * @throws TooManyRequestsException if the hashing queue is full
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Returns true if the cost of the stored hash is higher or lower than the configured strength, and the hash
+     * should be replaced after the next successful login. BCryptPasswordEncoder.upgradeEncoding only reports
+     * lower costs, so lowering the strength would never re-hash the stored passwords
+     * @param encodedPassword The stored hash
+     * @return false if the hash has the configured cost, or is not a BCrypt hash
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result
+     */
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign in attempts, please try again shortly");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.gridiron.ecommerce.utility.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gridiron.ecommerce.user.Role;
-import com.gridiron.ecommerce.utility.ApiResponse;
+import com.gridiron.ecommerce.utility.ratelimit.KeyType;
+import com.gridiron.ecommerce.utility.ratelimit.RateLimiter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -10,32 +12,42 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import lombok.extern.java.Log;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import static org.springframework.http.HttpStatus.UNAUTHORIZED;
-import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Component
 @Log
 public class RequestFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final DefaultRouteValidator routeValidator;
+    //request attribute holding the name of the client whose API key was presented
+    public static final String API_CLIENT_ATTRIBUTE = "apiClient";
 
+    //request attribute holding the verified claims of the caller's token
+    public static final String CLAIMS_ATTRIBUTE = "claims";
 
-    @Value("${application.security.apiKey}")
-    private String apiKey;
+    //request attribute holding the id of the authenticated user, read by controllers with @RequestAttribute
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
+    private final JwtService jwtService;
+    private final DefaultRouteValidator routeValidator;
+    private final SecurityErrorResponses errorResponses;
+    private final ApiKeyValidator apiKeyValidator;
+    private final RateLimiter rateLimiter;
 
-    public RequestFilter(JwtService jwtService, DefaultRouteValidator routeValidator) {
+    public RequestFilter(JwtService jwtService, DefaultRouteValidator routeValidator,
+                         SecurityErrorResponses errorResponses, ApiKeyValidator apiKeyValidator,
+                         RateLimiter rateLimiter) {
         this.jwtService = jwtService;
         this.routeValidator = routeValidator;
+        this.errorResponses = errorResponses;
+        this.apiKeyValidator = apiKeyValidator;
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
@@ -45,27 +57,45 @@ public class RequestFilter extends OncePerRequestFilter {
         try {
 
             // Check if API Key is missing or invalid
-            if (isApiKeyMissing(request)) {
+            String apiClient = apiKeyValidator.authenticate(request.getHeader("X-Api-Key"));
+            if (apiClient == null) {
                 // If API key is invalid, set HTTP status and return error response
-                response.setStatus(HttpStatus.BAD_REQUEST.value());
-                writeErrorResponse(response, "Invalid API Key");
+                errorResponses.writeInvalidApiKey(response);
                 return; // Return early to avoid further processing
             }
+            request.setAttribute(API_CLIENT_ATTRIBUTE, apiClient);
+
+            // Throttle by address before any token is verified, on the decoded path handlers are matched against
+            String path = routeValidator.pathOf(request);
+            if (isRateLimited(response, KeyType.IP, request.getRemoteAddr(), path)) {
+                return;
+            }
 
             //Check if the route is secured and requires JWT validation
-            if (routeValidator.isSecured.test(request)) {
-                checkIfRequestIsAccessibleByUser(request,response);
-                filterChain.doFilter(request, response);
+            if (routeValidator.classify(path) != DefaultRouteValidator.RouteClass.PUBLIC) {
+                if (!checkIfRequestIsAccessibleByUser(request, response)) {
+                    return;
+                }
+                if (isRateLimited(response, KeyType.USER, request.getAttribute(USER_ID_ATTRIBUTE), path)) {
+                    rateLimiter.refund(KeyType.IP, request.getRemoteAddr(), path);
+                    return;
+                }
+            }
+
+            // The client bucket is shared by every caller of the client, so only requests that passed the checks
+            // above take from it. A request it rejects gets its address and user tokens back
+            if (isRateLimited(response, KeyType.CLIENT, apiClient, path)) {
+                rateLimiter.refund(KeyType.IP, request.getRemoteAddr(), path);
+                rateLimiter.refund(KeyType.USER, request.getAttribute(USER_ID_ATTRIBUTE), path);
                 return;
             }
 
-            // If no security validation is needed, continue with the filter chain
             filterChain.doFilter(request, response);
 
         } catch (Exception e) {
             // In case of an internal error, return a 500 status code and error message
             log.severe(e.getMessage());
-            updateResponse(response,"Oops something went wrong, Try Again", HttpStatus.INTERNAL_SERVER_ERROR);
+            errorResponses.writeInternalError(response);
         }
     }
 
@@ -74,18 +104,34 @@ public class RequestFilter extends OncePerRequestFilter {
      * This method checks if the request is accessible to users based on the roles
      * @param request current HttpServletRequest of the request to be checked
      * @param response current HttpServletResponse of the request
+     * @return False if the token is missing or invalid, in which case the error response has been written
      * @throws IOException if any error occurs during I/0
      */
-    private void checkIfRequestIsAccessibleByUser(HttpServletRequest request, HttpServletResponse response)
+    private boolean checkIfRequestIsAccessibleByUser(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
         String jwtToken = extractJwtToken(request);
 
-        if (jwtToken == null || !jwtService.isTokenValid(jwtToken)) {
-            updateResponse(response, "Invalid or missing JWT", UNAUTHORIZED);
-            return; // Ensure to exit the method after sending an error response
+        Claims claims = null;
+        if (jwtToken != null) {
+            try {
+                claims = jwtService.extractAllClaims(jwtToken);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.info("JWT FAILED: " + e);
+            }
+        }
+        if (claims == null) {
+            errorResponses.writeInvalidJwt(response);
+            return false; // Ensure to exit the method after sending an error response
         }
 
-        List<String> roleStrings = (List<String>) jwtService.extractUserRole(jwtToken);
+        // Share the verified claims with the controllers, so the token is not parsed again for this request
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        Object userId = claims.get("userId");
+        if (userId != null) {
+            request.setAttribute(USER_ID_ATTRIBUTE, Long.valueOf(userId.toString()));
+        }
+
+        List<String> roleStrings = (List<String>) claims.get("role");
 
         List<GrantedAuthority> authorities = roleStrings.stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role)) // Prefix with 'ROLE_' if using hasRole() in SecurityConfig
@@ -95,27 +141,30 @@ public class RequestFilter extends OncePerRequestFilter {
         UsernamePasswordAuthenticationToken authentication =
                 new UsernamePasswordAuthenticationToken("user", null, authorities);
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        return true;
     }
 
 
     /**
-     * This method updates the response of the incoming request
+     * Takes a token from the rate limits of a key, and rejects the request with a 429 when there is none left
      * @param response current HttpServletResponse of the request
-     * @param message The message to be updated in the ApiResponse
-     * @param httpStatus The Http status code to the updated to
+     * @param keyType What the key identifies
+     * @param key The address, client or user the request is counted against, null to skip
+     * @param path The decoded request path
+     * @return True if the request was rejected
      * @throws IOException if any error occurs during I/0
      */
-    private static void updateResponse(HttpServletResponse response, String message, HttpStatus httpStatus)
-            throws IOException  {
-        if (!response.isCommitted()) {
-            response.setStatus(httpStatus.value());
-            response.setContentType(APPLICATION_JSON_VALUE);
-            new ObjectMapper().writeValue(response.getOutputStream(), new ApiResponse(false, message, null));
+    private boolean isRateLimited(HttpServletResponse response, KeyType keyType, Object key, String path)
+            throws IOException {
+        long retryAfterNanos = rateLimiter.tryAcquire(keyType, key, path);
+        if (retryAfterNanos == 0) {
+            return false;
         }
-
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        errorResponses.writeTooManyRequests(response, retryAfterSeconds);
+        return true;
     }
 
-
     /**
      * Extracts the JWT token from the Authorization header of the request.
      *
@@ -129,33 +178,4 @@ public class RequestFilter extends OncePerRequestFilter {
         }
         return null;
     }
-
-    /**
-     * Checks if the API key is missing from the request headers.
-     *
-     * @param request The HttpServletRequest object.
-     * @return True if the API key is missing or invalid, false otherwise.
-     */
-    private boolean isApiKeyMissing(HttpServletRequest request) {
-        String extractedApiKey = request.getHeader("X-Api-Key");
-
-        System.out.println("extracted api key: " + extractedApiKey);
-        return extractedApiKey == null || !extractedApiKey.equals(apiKey);
-    }
-
-    /**
-     * Writes an error response in JSON format to the client.
-     *
-     * @param response     The HttpServletResponse object.
-     * @param errorMessage The error message to include in the response.
-     * @throws IOException If an input or output exception occurs.
-     */
-    private void writeErrorResponse(HttpServletResponse response, String errorMessage) throws IOException {
-        if (!response.isCommitted()) {
-            response.setContentType("application/json");
-            ApiResponse apiResponse = new ApiResponse(false, errorMessage, null);
-            ObjectMapper objectMapper = new ObjectMapper();
-            response.getWriter().write(objectMapper.writeValueAsString(apiResponse));
-        }
-    }
 }
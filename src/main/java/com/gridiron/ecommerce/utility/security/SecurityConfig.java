@@ -1,6 +1,14 @@
 package com.gridiron.ecommerce.utility.security;
 
+import com.gridiron.ecommerce.utility.ratelimit.RateLimitProperties;
+import com.gridiron.ecommerce.utility.security.DefaultRouteValidator.RouteClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
@@ -11,17 +19,26 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.authentication.AuthenticationManager;
 
+import java.util.function.Supplier;
+
 
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({ApiKeyProperties.class, RateLimitProperties.class})
 public class SecurityConfig {
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
     private final RequestFilter requestFilter;
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
+    private final DefaultRouteValidator routeValidator;
 
-    public SecurityConfig(RequestFilter requestFilter, CustomAccessDeniedHandler customAccessDeniedHandler) {
+    public SecurityConfig(RequestFilter requestFilter, CustomAccessDeniedHandler customAccessDeniedHandler,
+                          DefaultRouteValidator routeValidator) {
         this.requestFilter = requestFilter;
         this.customAccessDeniedHandler = customAccessDeniedHandler;
+        this.routeValidator = routeValidator;
     }
 
     /**
@@ -29,10 +46,12 @@ public class SecurityConfig {
      * *
      * This method sets up the following:
      * - Disables CSRF protection for stateless JWT authentication.
-     * - Allows unrestricted access to public endpoints like actuator endpoints and user registration APIs.
-     * - Secures `api/v1/products/private/**` and `api/v1/orders/admin/**` endpoints to `ADMIN` role.
-     * - Secures `api/v1/carts/private/**` and `api/v1/orders/customer/**` endpoints to `CUSTOMER` role.
-     * - Ensures all other requests require authentication.
+     * - Allows unrestricted access to the actuator health and info endpoints, other actuator endpoints such as
+     *   metrics require the `ADMIN` role.
+     * - Decides every other request with the route classes of DefaultRouteValidator, in one pass over the decoded path:
+     *   `api/v1/products/private`, `api/v1/orders/admin` and `api/v1/users/private/admin` require the `ADMIN` role,
+     *   `api/v1/carts/private` and `api/v1/orders/customer` require the `CUSTOMER` role,
+     *   and all other requests require authentication.
      * - Registers the custom `RequestFilter` before the `UsernamePasswordAuthenticationFilter` to process JWTs.
      * - Configures custom exception handling for access-denied scenarios using `CustomAccessDeniedHandler`.
      *
@@ -45,10 +64,9 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF if using stateless JWTs
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/actuator/**", "api/v1/users/public/**","api/v1/products/public/**").permitAll() // Allow access to actuator endpoints
-                        .requestMatchers("/api/v1/products/private**", "/api/v1/orders/admin/**").hasRole("ADMIN")
-                        .requestMatchers("/api/v1/carts/private/**","/api/v1/orders/customer/**").hasRole("CUSTOMER")
-                        .anyRequest().authenticated() // Require authentication for all other requests
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll() // Allow access to health checks
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics and other operational endpoints
+                        .anyRequest().access(this::authorize) // Public, role and authentication rules by route class
                 )
                 .exceptionHandling(exceptionHandling ->
                         exceptionHandling.accessDeniedHandler(customAccessDeniedHandler)
@@ -58,6 +76,35 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Decides whether the caller may access the requested route, from the route class of its path.
+     *
+     * @param authentication Supplies the authentication set by the RequestFilter, if any.
+     * @param context The request being authorized.
+     * @return A granted decision if the route is public, or the caller is authenticated with the required role.
+     */
+    private AuthorizationDecision authorize(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        RouteClass routeClass = routeValidator.classify(context.getRequest());
+        if (routeClass == RouteClass.PUBLIC) {
+            return GRANTED;
+        }
+
+        Authentication caller = authentication.get();
+        if (caller == null || !caller.isAuthenticated() || caller instanceof AnonymousAuthenticationToken) {
+            return DENIED;
+        }
+        if (routeClass.authority() == null) {
+            return GRANTED;
+        }
+
+        for (GrantedAuthority authority : caller.getAuthorities()) {
+            if (routeClass.authority().equals(authority.getAuthority())) {
+                return GRANTED;
+            }
+        }
+        return DENIED;
+    }
+
     /**
      * Provides a custom AuthenticationManager for managing authentication.
      * *
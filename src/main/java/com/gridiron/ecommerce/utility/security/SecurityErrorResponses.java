@@ -0,0 +1,98 @@
+package com.gridiron.ecommerce.utility.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.utility.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * SecurityErrorResponses writes the error bodies of requests rejected by the security layer.
+ *
+ * Rejections are the hot path under a flood of bad API keys or stolen credentials, so the constant bodies are
+ * serialized once at startup with the application's ObjectMapper and written as bytes, without serializing or
+ * allocating anything per request.
+ */
+@Component
+public class SecurityErrorResponses {
+
+    private final ObjectMapper objectMapper;
+
+    private final byte[] invalidApiKey;
+    private final byte[] invalidJwt;
+    private final byte[] accessDenied;
+    private final byte[] internalError;
+    private final byte[] tooManyRequests;
+
+    public SecurityErrorResponses(ObjectMapper objectMapper) throws JsonProcessingException {
+        this.objectMapper = objectMapper;
+        this.invalidApiKey = encode("Invalid API Key");
+        this.invalidJwt = encode("Invalid or missing JWT");
+        this.accessDenied = encode("Access Denied");
+        this.internalError = encode("Oops something went wrong, Try Again");
+        this.tooManyRequests = encode("Too many requests, please try again later");
+    }
+
+    public void writeInvalidApiKey(HttpServletResponse response) throws IOException {
+        write(response, HttpStatus.BAD_REQUEST, invalidApiKey);
+    }
+
+    public void writeInvalidJwt(HttpServletResponse response) throws IOException {
+        write(response, HttpStatus.UNAUTHORIZED, invalidJwt);
+    }
+
+    public void writeAccessDenied(HttpServletResponse response) throws IOException {
+        write(response, HttpStatus.FORBIDDEN, accessDenied);
+    }
+
+    public void writeInternalError(HttpServletResponse response) throws IOException {
+        write(response, HttpStatus.INTERNAL_SERVER_ERROR, internalError);
+    }
+
+    /**
+     * Writes a 429 with the Retry-After header
+     * @param response current HttpServletResponse of the request
+     * @param retryAfterSeconds The number of seconds after which the request may be retried
+     * @throws IOException if any error occurs during I/0
+     */
+    public void writeTooManyRequests(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        if (!response.isCommitted()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+        write(response, HttpStatus.TOO_MANY_REQUESTS, tooManyRequests);
+    }
+
+    /**
+     * Writes an error with a message that is not known in advance, serialized with the shared ObjectMapper
+     * @param response current HttpServletResponse of the request
+     * @param httpStatus The Http status code to be set
+     * @param message The message of the ApiResponse
+     * @throws IOException if any error occurs during I/0
+     */
+    public void write(HttpServletResponse response, HttpStatus httpStatus, String message) throws IOException {
+        write(response, httpStatus, encode(message));
+    }
+
+    /**
+     * Writes a pre-encoded body, unless the response has already been committed
+     */
+    private static void write(HttpServletResponse response, HttpStatus httpStatus, byte[] body) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setStatus(httpStatus.value());
+        response.setContentType(APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private byte[] encode(String message) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ApiResponse(false, message, null));
+    }
+}
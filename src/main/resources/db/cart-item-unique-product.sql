@@ -0,0 +1,30 @@
+-- Adds the unique (cart_id, product_id) constraint on cart_item that the cart upsert relies on.
+-- Run once against an existing database before starting the version that adds it; hibernate cannot add the
+-- constraint while carts still hold more than one line for the same product.
+-- Duplicate lines are merged into the oldest line of each product, with the quantities added up.
+-- Safe to run again: the constraint is only added when missing.
+
+BEGIN;
+
+UPDATE cart_item keep
+SET quantity = merged.quantity
+FROM (SELECT MIN(id) AS id, SUM(quantity) AS quantity
+      FROM cart_item
+      GROUP BY cart_id, product_id
+      HAVING COUNT(*) > 1) merged
+WHERE keep.id = merged.id;
+
+DELETE FROM cart_item duplicate
+USING cart_item keep
+WHERE duplicate.cart_id = keep.cart_id
+  AND duplicate.product_id = keep.product_id
+  AND duplicate.id > keep.id;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_cart_item_cart_product') THEN
+        ALTER TABLE cart_item ADD CONSTRAINT uk_cart_item_cart_product UNIQUE (cart_id, product_id);
+    END IF;
+END $$;
+
+COMMIT;
@@ -0,0 +1,33 @@
+-- Moves the primary keys of existing tables from IDENTITY columns to the pooled sequences used by GeneralEntity.
+-- Run once against an existing database before starting the version that uses sequence ids.
+-- Each sequence starts past the highest id already in its table, and steps by 50 to match the allocation size,
+-- so Hibernate can hand out 50 ids per round trip without colliding with existing rows.
+-- Safe to run again: sequences are only created when missing and identities only dropped when present.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS user_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('user_seq', (SELECT COALESCE(MAX(id), 0) FROM users) + 50);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS product_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('product_seq', (SELECT COALESCE(MAX(id), 0) FROM products) + 50);
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS cart_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('cart_seq', (SELECT COALESCE(MAX(id), 0) FROM cart) + 50);
+ALTER TABLE cart ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS cart_item_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('cart_item_seq', (SELECT COALESCE(MAX(id), 0) FROM cart_item) + 50);
+ALTER TABLE cart_item ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS order_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('order_seq', (SELECT COALESCE(MAX(id), 0) FROM orders) + 50);
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS order_item_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('order_item_seq', (SELECT COALESCE(MAX(id), 0) FROM order_items) + 50);
+ALTER TABLE order_items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
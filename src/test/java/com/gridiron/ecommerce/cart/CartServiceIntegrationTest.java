@@ -7,6 +7,7 @@ import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,8 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,6 +41,9 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private CartItemRepository cartItemRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private Long userId;
     private Long productId;
 
@@ -59,6 +65,7 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
 
         // Act
         cartService.addItemToCart(userId, request);
+        flushAndClear();
 
         // Assert
         Optional<Cart> cartOptional = cartRepository.findByUserId(userId);
@@ -70,16 +77,42 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
         assertEquals(2, cart.getCartItems().iterator().next().getQuantity());
     }
 
+    @Test
+    void addItemsToCart_ShouldAddEveryItem_WhenRestoringACart() {
+        // Arrange: the product from setUp plus 29 more
+        List<CreateCartItemRequest> requests = new ArrayList<>();
+        requests.add(new CreateCartItemRequest(productId, 1));
+        for (int i = 0; i < 29; i++) {
+            Product product = productRepository.save(new Product("Bundle Product " + i, new BigDecimal("5.0"), "A test product", 10));
+            requests.add(new CreateCartItemRequest(product.getId(), 2));
+        }
+        cartService.addItemToCart(userId, new CreateCartItemRequest(productId, 2));
+        flushAndClear();
+
+        // Act
+        cartService.addItemsToCart(userId, requests);
+        flushAndClear();
+
+        // Assert
+        Cart cart = cartRepository.findByUserId(userId).orElseThrow();
+        assertEquals(30, cart.getCartItems().size());
+        assertEquals(3, cart.getCartItems().stream()
+                .filter(cartItem -> cartItem.getProduct().getId().equals(productId))
+                .findFirst().orElseThrow().getQuantity());
+    }
+
     @Test
     void deleteItemFromCart_ShouldRemoveItem_WhenItemExists() {
         // Arrange
         CreateCartItemRequest request = new CreateCartItemRequest(productId, 2);
         cartService.addItemToCart(userId, request);
+        flushAndClear();
         Cart cart = cartRepository.findByUserId(userId).orElseThrow();
         Long cartItemId = cart.getCartItems().iterator().next().getId();
 
         // Act
         cartService.deleteItemFromCart(userId, cartItemId);
+        flushAndClear();
 
         // Assert
         cart = cartRepository.findByUserId(userId).orElseThrow();
@@ -99,6 +132,7 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
         // Arrange
         CreateCartItemRequest request = new CreateCartItemRequest(productId, 2);
         cartService.addItemToCart(userId, request);
+        flushAndClear();
 
         // Act
         PaginatedData paginatedData = cartService.fetchProductInCartByCartId(userId, 1, 10);
@@ -115,6 +149,7 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
         // Arrange
         CreateCartItemRequest request = new CreateCartItemRequest(productId, 2);
         cartService.addItemToCart(userId, request);
+        flushAndClear();
         Cart cart = cartRepository.findByUserId(userId).orElseThrow();
 
         // Act
@@ -124,4 +159,13 @@ public class CartServiceIntegrationTest extends AbstractIntegrationTest {
         cart = cartRepository.findByUserId(userId).orElseThrow();
         assertTrue(cart.getCartItems().isEmpty());
     }
+
+    /**
+     * Cart lines are written with targeted statements that bypass the persistence context of the test transaction,
+     * so carts are read again from the database after each change
+     */
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
 }
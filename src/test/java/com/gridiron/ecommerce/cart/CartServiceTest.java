@@ -1,10 +1,14 @@
 package com.gridiron.ecommerce.cart;
 
 import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.cartItem.CartItemRepository;
 import com.gridiron.ecommerce.cartItem.CartItemService;
 import com.gridiron.ecommerce.cartItem.request.CreateCartItemRequest;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.product.ProductService;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.reservation.ReservationService;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
@@ -16,6 +20,7 @@ import org.mockito.Mock;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -31,9 +36,21 @@ public class CartServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductService productService;
+
     @Mock
     private CartItemService cartItemService;
 
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
     @InjectMocks
     private CartService cartService;
 
@@ -47,16 +64,61 @@ public class CartServiceTest {
         // Arrange
         Long userId = 1L;
         CreateCartItemRequest request = new CreateCartItemRequest(1L, 2);
-        Product product = new Product("Test Product", BigDecimal.valueOf(100), "A sample product", 10);
-        when(productRepository.findById(request.productId())).thenReturn(Optional.of(product));
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.empty());
-        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ProductResponse product = new ProductResponse(1L, "Test Product", "A sample product", 10, BigDecimal.valueOf(100));
+        when(productService.fetchProductById(request.productId())).thenReturn(product);
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.empty());
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> {
+            Cart cart = invocation.getArgument(0);
+            cart.setId(7L);
+            return cart;
+        });
+        when(cartItemRepository.upsertQuantity(eq(7L), eq(1L), eq(2), any())).thenReturn(2);
+
+        // Act
+        cartService.addItemToCart(userId, request);
+
+        // Assert
+        verify(cartRepository, times(1)).save(any(Cart.class)); // Verify the cart was created once, the line is upserted
+        verify(reservationService, times(1)).reserveInTransaction(userId, 1L, 2, 10);
+    }
+
+    @Test
+    void addItemToCart_ShouldReserveWholeCartLine_WhenProductIsAlreadyInCart() {
+        // Arrange
+        Long userId = 1L;
+        CreateCartItemRequest request = new CreateCartItemRequest(1L, 2);
+        ProductResponse productResponse = new ProductResponse(1L, "Test Product", "A sample product", 10, BigDecimal.valueOf(100));
+        when(productService.fetchProductById(request.productId())).thenReturn(productResponse);
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(7L));
+        // the cart already holds 3, the upsert returns the quantity of the whole line
+        when(cartItemRepository.upsertQuantity(eq(7L), eq(1L), eq(2), any())).thenReturn(5);
 
         // Act
         cartService.addItemToCart(userId, request);
 
         // Assert
-        verify(cartRepository, times(2)).save(any(Cart.class)); // Verify the cart was saved twice: once for creation, once for update
+        verify(reservationService, times(1)).reserveInTransaction(userId, 1L, 5, 10);
+        verify(cartRepository, never()).findByUserId(any());
+        verify(cartRepository, times(1)).updateUpdatedAt(eq(7L), any());
+    }
+
+    @Test
+    void addItemToCart_ShouldNotChangeCart_WhenStockIsHeldByOtherCarts() {
+        // Arrange
+        Long userId = 1L;
+        CreateCartItemRequest request = new CreateCartItemRequest(1L, 2);
+        ProductResponse productResponse = new ProductResponse(1L, "Test Product", "A sample product", 10, BigDecimal.valueOf(100));
+
+        when(productService.fetchProductById(request.productId())).thenReturn(productResponse);
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(7L));
+        when(cartItemRepository.upsertQuantity(eq(7L), eq(1L), eq(2), any())).thenReturn(2);
+        doThrow(new InvalidInputException("Product Quantity Exceeded"))
+                .when(reservationService).reserveInTransaction(userId, 1L, 2, 10);
+
+        // Act & Assert: the exception rolls the upsert back with the transaction
+        assertThrows(InvalidInputException.class, () -> cartService.addItemToCart(userId, request));
+        verify(cartRepository, never()).updateUpdatedAt(any(), any());
+        verify(cartRepository, never()).save(any(Cart.class));
     }
 
     @Test
@@ -64,7 +126,8 @@ public class CartServiceTest {
         // Arrange
         Long userId = 1L;
         CreateCartItemRequest request = new CreateCartItemRequest(1L, 2);
-        when(productRepository.findById(request.productId())).thenReturn(Optional.empty());
+        when(productService.fetchProductById(request.productId()))
+                .thenThrow(new ResourceNotFoundException("Product with id " + request.productId() + " not found"));
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> cartService.addItemToCart(userId, request));
@@ -75,32 +138,97 @@ public class CartServiceTest {
         // Arrange
         Long userId = 1L;
         CreateCartItemRequest request = new CreateCartItemRequest(1L, 15); // Exceeding quantity
-        Product product = new Product("Test Product", BigDecimal.valueOf(100), "A sample product", 10);
-        when(productRepository.findById(request.productId())).thenReturn(Optional.of(product));
+        ProductResponse product = new ProductResponse(1L, "Test Product", "A sample product", 10, BigDecimal.valueOf(100));
+        when(productService.fetchProductById(request.productId())).thenReturn(product);
 
         // Act & Assert
         assertThrows(InvalidInputException.class, () -> cartService.addItemToCart(userId, request));
     }
 
     @Test
-    void deleteItemFromCart_ShouldRemoveItem_WhenItemExists() {
+    void addItemsToCart_ShouldWriteCartOnce_WhenAddingSeveralItems() {
         // Arrange
         Long userId = 1L;
-        Long cartItemId = 1L;
+        Product first = new Product("First Product", BigDecimal.valueOf(100), "A sample product", 10);
+        first.setId(1L);
+        Product second = new Product("Second Product", BigDecimal.valueOf(50), "A sample product", 10);
+        second.setId(2L);
         Cart cart = new Cart();
-        cart.setId(1L);
         cart.setUserId(userId);
         CartItem cartItem = new CartItem();
-        cartItem.setId(cartItemId);
+        cartItem.setCart(cart);
+        cartItem.setProduct(first);
+        cartItem.setQuantity(3);
         cart.getCartItems().add(cartItem);
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(productRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(cartRepository.findWithItemsByUserId(userId)).thenReturn(Optional.of(cart));
+
+        // Act: the same product twice is added as one line
+        cartService.addItemsToCart(userId, List.of(
+                new CreateCartItemRequest(1L, 2),
+                new CreateCartItemRequest(2L, 4),
+                new CreateCartItemRequest(1L, 1)));
+
+        // Assert
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productService, never()).fetchProductById(any());
+        verify(reservationService, times(1)).reserveAllInTransaction(userId, Map.of(1L, 6, 2L, 4), Map.of(1L, 10, 2L, 10));
+        verify(cartRepository, times(1)).save(cart);
+        assertEquals(2, cart.getCartItems().size());
+        assertEquals(6, cartItem.getQuantity());
+    }
+
+    @Test
+    void addItemsToCart_ShouldNotChangeCart_WhenAnyProductIsMissing() {
+        // Arrange
+        Long userId = 1L;
+        Product product = new Product("Test Product", BigDecimal.valueOf(100), "A sample product", 10);
+        product.setId(1L);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> cartService.addItemsToCart(userId, List.of(
+                new CreateCartItemRequest(1L, 2),
+                new CreateCartItemRequest(2L, 1))));
+        verify(cartRepository, never()).save(any(Cart.class));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void addItemsToCart_ShouldNotChangeCart_WhenAnyQuantityExceedsAvailability() {
+        // Arrange
+        Long userId = 1L;
+        Product first = new Product("First Product", BigDecimal.valueOf(100), "A sample product", 10);
+        first.setId(1L);
+        Product second = new Product("Second Product", BigDecimal.valueOf(50), "A sample product", 3);
+        second.setId(2L);
+        when(productRepository.findAllById(any())).thenReturn(List.of(first, second));
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> cartService.addItemsToCart(userId, List.of(
+                new CreateCartItemRequest(1L, 2),
+                new CreateCartItemRequest(2L, 2),
+                new CreateCartItemRequest(2L, 2))));
+        verify(cartRepository, never()).save(any(Cart.class));
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void deleteItemFromCart_ShouldRemoveItem_WhenItemExists() {
+        // Arrange
+        Long userId = 1L;
+        Long cartItemId = 1L;
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(7L));
+        when(cartItemRepository.findProductIdByIdAndCartId(cartItemId, 7L)).thenReturn(Optional.of(5L));
 
         // Act
         cartService.deleteItemFromCart(userId, cartItemId);
 
         // Assert
-        verify(cartRepository, times(1)).save(cart);
+        verify(cartItemRepository, times(1)).deleteByCartItemId(cartItemId);
+        verify(cartRepository, never()).findByUserId(any());
+        verify(reservationService, times(1)).releaseAfterCommit(userId, 5L);
     }
 
     @Test
@@ -108,15 +236,14 @@ public class CartServiceTest {
         // Arrange
         Long userId = 1L;
         Long cartItemId = 99L; // Non-existent item ID
-        Cart cart = new Cart();
-        cart.setUserId(userId);
-
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(7L));
+        when(cartItemRepository.findProductIdByIdAndCartId(cartItemId, 7L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             cartService.deleteItemFromCart(userId, cartItemId);
         });
+        verify(cartItemRepository, never()).deleteByCartItemId(any());
     }
 
     @Test
@@ -140,7 +267,7 @@ public class CartServiceTest {
                 .data(cartItems) // Populate with cart items
                 .build();
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.findIdByUserId(userId)).thenReturn(Optional.of(cart.getId()));
         when(cartItemService.fetchCartItemsByCartId(cart.getId(), 1, 10)).thenReturn(paginatedData);
 
         // Act
@@ -170,5 +297,6 @@ public class CartServiceTest {
 
         // Assert
         verify(cartRepository, times(1)).save(cart);
+        verify(reservationService, times(1)).releaseAllAfterCommit(userId);
     }
 }
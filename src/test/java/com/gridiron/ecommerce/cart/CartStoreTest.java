@@ -0,0 +1,255 @@
+package com.gridiron.ecommerce.cart;
+
+import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.product.Product;
+import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.reservation.ReservationService;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void addItem_ShouldOnlyWriteOnFlush_WhenDurabilityIsAsync() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.empty());
+        when(productRepository.getReferenceById(10L)).thenReturn(product(10L));
+
+        // Act
+        cartStore.addItem(1L, 10L, 2, 5);
+        cartStore.addItem(1L, 10L, 3, 5);
+
+        // Assert: both changes are coalesced into one cart line written by the flush
+        verify(cartRepository, never()).findAllWithItemsByUserIdIn(any());
+        assertEquals(1, cartStore.dirtySize());
+        verify(reservationService).reserve(1L, 10L, 5, 5);
+
+        cartStore.flushDirty();
+
+        ArgumentCaptor<Cart> cart = ArgumentCaptor.forClass(Cart.class);
+        verify(cartRepository).save(cart.capture());
+        assertEquals(1L, cart.getValue().getUserId());
+        assertEquals(1, cart.getValue().getCartItems().size());
+        assertEquals(5, cart.getValue().getCartItems().iterator().next().getQuantity());
+        assertEquals(0, cartStore.dirtySize());
+    }
+
+    @Test
+    void flushDirty_ShouldWriteManyCartsInOneTransaction_WhenSeveralCartsChanged() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        when(cartRepository.findWithItemsByUserId(any())).thenReturn(Optional.empty());
+        when(productRepository.getReferenceById(10L)).thenReturn(product(10L));
+        for (long userId = 1; userId <= 3; userId++) {
+            cartStore.addItem(userId, 10L, 1, 5);
+        }
+
+        // Act
+        cartStore.flushDirty();
+
+        // Assert
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(cartRepository, times(1)).findAllWithItemsByUserIdIn(any());
+        verify(cartRepository, times(3)).save(any(Cart.class));
+        assertEquals(0, cartStore.dirtySize());
+    }
+
+    @Test
+    void deleteItem_ShouldRemoveLineAndReleaseStock_WhenItemIsInCart() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        Cart cart = cart(1L, 100L, 10L, 2);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.findAllWithItemsByUserIdIn(List.of(1L))).thenReturn(List.of(cart));
+
+        // Act
+        cartStore.deleteItem(1L, 100L);
+        cartStore.flushDirty();
+
+        // Assert
+        verify(reservationService).release(1L, 10L);
+        assertTrue(cart.getCartItems().isEmpty());
+        assertFalse(cartStore.hasItems(1L));
+    }
+
+    @Test
+    void deleteItem_ShouldThrowResourceNotFoundException_WhenItemIsNotInCart() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart(1L, 100L, 10L, 2)));
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> cartStore.deleteItem(1L, 101L));
+        assertEquals(0, cartStore.dirtySize());
+    }
+
+    @Test
+    void addItem_ShouldLeaveCartUnchanged_WhenStockCannotBeHeld() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.empty());
+        doThrow(new InvalidInputException("Product Quantity Exceeded"))
+                .when(reservationService).reserve(1L, 10L, 2, 5);
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> cartStore.addItem(1L, 10L, 2, 5));
+        assertFalse(cartStore.hasItems(1L));
+        assertEquals(0, cartStore.dirtySize());
+    }
+
+    @Test
+    void flushDirty_ShouldKeepCartDirty_WhenWriteFails() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        Cart cart = cart(1L, 100L, 10L, 2);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.findAllWithItemsByUserIdIn(List.of(1L)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(cart));
+        cartStore.addItem(1L, 10L, 1, 5);
+
+        // Act
+        cartStore.flushDirty();
+
+        // Assert
+        assertEquals(1, cartStore.dirtySize());
+        cartStore.flushDirty();
+        assertEquals(0, cartStore.dirtySize());
+        assertEquals(3, cart.getCartItems().iterator().next().getQuantity());
+    }
+
+    @Test
+    void addItem_ShouldWriteBeforeReturning_WhenDurabilityIsSync() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.SYNC);
+        Cart cart = cart(1L, 100L, 10L, 2);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.findAllWithItemsByUserIdIn(List.of(1L))).thenReturn(List.of(cart));
+
+        // Act
+        cartStore.addItem(1L, 10L, 1, 5);
+
+        // Assert
+        assertEquals(3, cart.getCartItems().iterator().next().getQuantity());
+        assertEquals(0, cartStore.dirtySize());
+    }
+
+    @Test
+    void flushAll_ShouldWriteDirtyCarts_WhenApplicationShutsDown() throws Exception {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        Cart cart = cart(1L, 100L, 10L, 2);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.findAllWithItemsByUserIdIn(List.of(1L))).thenReturn(List.of(cart));
+        cartStore.addItem(1L, 10L, 1, 5);
+
+        // Act
+        cartStore.flushAll();
+
+        // Assert
+        assertEquals(0, cartStore.dirtySize());
+        assertEquals(3, cart.getCartItems().iterator().next().getQuantity());
+    }
+
+    @Test
+    void flushForCheckout_ShouldWriteInCheckoutTransactionAndDropCart_WhenTransactionCommits() {
+        // Arrange
+        CartStore cartStore = cartStore(CartStore.Durability.ASYNC);
+        Cart cart = cart(1L, 100L, 10L, 2);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.findAllWithItemsByUserIdIn(List.of(1L))).thenReturn(List.of(cart));
+        cartStore.addItem(1L, 10L, 1, 5);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            cartStore.flushForCheckout(1L);
+
+            // Assert: written without a transaction of its own, and dropped once the checkout commits
+            verify(transactionManager, never()).getTransaction(any());
+            assertEquals(3, cart.getCartItems().iterator().next().getQuantity());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            assertEquals(0, cartStore.size());
+            assertEquals(0, cartStore.dirtySize());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushDirty_ShouldDropIdleCarts_WhenTheyHaveNoChanges() {
+        // Arrange
+        Clock clock = Clock.fixed(Instant.parse("2024-10-01T12:00:00Z"), ZoneOffset.UTC);
+        CartStore cartStore = new CartStore(cartRepository, productRepository, reservationService, transactionManager,
+                null, new SimpleMeterRegistry(), true, CartStore.Durability.ASYNC, 10, Duration.ZERO, clock);
+        when(cartRepository.findWithItemsByUserId(1L)).thenReturn(Optional.of(cart(1L, 100L, 10L, 2)));
+        assertTrue(cartStore.hasItems(1L));
+
+        // Act
+        cartStore.flushDirty();
+
+        // Assert
+        assertEquals(0, cartStore.size());
+    }
+
+    private CartStore cartStore(CartStore.Durability durability) {
+        return new CartStore(cartRepository, productRepository, reservationService, transactionManager,
+                null, new SimpleMeterRegistry(), true, durability, 10, Duration.ofMinutes(30), Clock.systemUTC());
+    }
+
+    private Cart cart(Long userId, Long cartItemId, Long productId, int quantity) {
+        Cart cart = new Cart();
+        cart.setId(userId);
+        cart.setUserId(userId);
+        CartItem cartItem = new CartItem();
+        cartItem.setId(cartItemId);
+        cartItem.setCart(cart);
+        cartItem.setProduct(product(productId));
+        cartItem.setQuantity(quantity);
+        cart.getCartItems().add(cartItem);
+        return cart;
+    }
+
+    private Product product(Long productId) {
+        Product product = new Product();
+        product.setId(productId);
+        return product;
+    }
+}
@@ -7,6 +7,10 @@ import com.gridiron.ecommerce.cartItem.response.CartItemResponse;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
 import com.gridiron.ecommerce.utility.PaginatedData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +24,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional
 @Rollback
@@ -38,6 +42,12 @@ public class CartItemServiceIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Long cartId;
     private Long productId;
 
@@ -79,4 +89,32 @@ public class CartItemServiceIntegrationTest extends AbstractIntegrationTest {
         assertThat(cartItemResponses.get(0).quantity()).isEqualTo(2);
         assertThat(cartItemResponses.get(0).product().name()).isEqualTo("Test Product");
     }
-}
\ No newline at end of file
+
+    @Test
+    void fetchCartItemsByCartId_ShouldLoadItemsAndProductsInOneQuery_WhenCartHasManyItems() {
+        // Arrange: add more items so that a per-item product load would show up in the statement count
+        Cart cart = cartRepository.findById(cartId).orElseThrow();
+        for (int i = 0; i < 5; i++) {
+            Product product = productRepository.save(new Product("Product " + i, new BigDecimal("10.0"), "Product " + i, 10));
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(1);
+            cartItemRepository.save(cartItem);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act: page size smaller than the cart so that the count query runs as well
+        PaginatedData paginatedData = cartItemService.fetchCartItemsByCartId(cartId, 1, 3);
+        List<CartItemResponse> cartItemResponses = (List<CartItemResponse>) paginatedData.data();
+
+        // Assert: one fetch-joined page query plus one count query, no per-item product selects
+        assertThat(cartItemResponses).hasSize(3);
+        assertThat(cartItemResponses).allSatisfy(response -> assertThat(response.product().name()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
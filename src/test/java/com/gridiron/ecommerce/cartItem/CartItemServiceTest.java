@@ -20,7 +20,6 @@ import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
@@ -73,8 +72,8 @@ public class CartItemServiceTest {
                 product.getAvailabilityQuantity(),
                 product.getPrice()
         );
-        when(productService.formatProductsToProductResponse(Set.of(product)))
-                .thenReturn(List.of(productResponse));
+        when(productService.formatProductToProductResponse(product))
+                .thenReturn(productResponse);
 
         // Act
         PaginatedData result = cartItemService.fetchCartItemsByCartId(cartId, page, size);
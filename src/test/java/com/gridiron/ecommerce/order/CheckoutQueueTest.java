@@ -0,0 +1,170 @@
+package com.gridiron.ecommerce.order;
+
+import com.gridiron.ecommerce.cart.CartService;
+import com.gridiron.ecommerce.order.response.CheckoutResponse;
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
+import com.gridiron.ecommerce.utility.concurrency.DatabaseAccessLimiter;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import com.gridiron.ecommerce.utility.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutQueueTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CartService cartService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CheckoutQueue checkoutQueue;
+
+    @BeforeEach
+    void setUp() {
+        // Workers are not started, so queued checkouts stay in the queue until placed by the test
+        meterRegistry = new SimpleMeterRegistry();
+        checkoutQueue = new CheckoutQueue(orderService, cartService, transactionManager, Optional.empty(),
+                new ConcurrentMapCacheManager(CacheConfig.CHECKOUTS), meterRegistry, true, 2, 1, 10);
+    }
+
+    @Test
+    void submit_ShouldQueueCheckout_WhenCartHasItems() {
+        // Arrange
+        when(cartService.hasItems(1L)).thenReturn(true);
+
+        // Act
+        CheckoutResponse response = checkoutQueue.submit(1L);
+
+        // Assert
+        assertEquals(CheckoutStatus.QUEUED, response.status());
+        assertEquals(response, checkoutQueue.fetchCheckout(response.reference(), 1L));
+        assertEquals(1.0, meterRegistry.get("checkout.queue.depth").gauge().value());
+    }
+
+    @Test
+    void submit_ShouldReturnPendingCheckout_WhenUserSubmitsTwice() {
+        // Arrange
+        when(cartService.hasItems(1L)).thenReturn(true);
+        CheckoutResponse first = checkoutQueue.submit(1L);
+
+        // Act
+        CheckoutResponse second = checkoutQueue.submit(1L);
+
+        // Assert
+        assertEquals(first.reference(), second.reference());
+        assertEquals(1.0, meterRegistry.get("checkout.queue.depth").gauge().value());
+    }
+
+    @Test
+    void submit_ShouldThrowResourceNotFoundException_WhenCartIsEmpty() {
+        // Arrange
+        when(cartService.hasItems(1L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> checkoutQueue.submit(1L));
+    }
+
+    @Test
+    void submit_ShouldThrowTooManyRequestsException_WhenQueueIsFull() {
+        // Arrange
+        when(cartService.hasItems(any())).thenReturn(true);
+        checkoutQueue.submit(1L);
+        checkoutQueue.submit(2L);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> checkoutQueue.submit(3L));
+        assertEquals(2.0, meterRegistry.get("checkout.queue.depth").gauge().value());
+    }
+
+    @Test
+    void fetchCheckout_ShouldThrowResourceNotFoundException_WhenCheckoutBelongsToAnotherUser() {
+        // Arrange
+        when(cartService.hasItems(1L)).thenReturn(true);
+        CheckoutResponse response = checkoutQueue.submit(1L);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> checkoutQueue.fetchCheckout(response.reference(), 2L));
+    }
+
+    @Test
+    void placeBatch_ShouldPlaceAllOrdersInOneTransaction_WhenEveryCheckoutSucceeds() {
+        // Arrange
+        when(orderService.createOrderForUser(1L)).thenReturn(11L);
+        when(orderService.createOrderForUser(2L)).thenReturn(12L);
+
+        // Act
+        checkoutQueue.placeBatch(List.of(new CheckoutQueue.CheckoutCommand("a", 1L),
+                new CheckoutQueue.CheckoutCommand("b", 2L)));
+
+        // Assert
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(CheckoutStatus.PLACED, checkoutQueue.fetchCheckout("a", 1L).status());
+        assertEquals(11L, checkoutQueue.fetchCheckout("a", 1L).orderId());
+        assertEquals(12L, checkoutQueue.fetchCheckout("b", 2L).orderId());
+    }
+
+    @Test
+    void placeBatch_ShouldPlaceOneByOne_WhenAnyCheckoutOfTheBatchFails() {
+        // Arrange
+        when(orderService.createOrderForUser(1L)).thenReturn(11L);
+        when(orderService.createOrderForUser(2L)).thenThrow(new InvalidInputException("Product Quantity Exceeded"));
+        when(orderService.createOrderForUser(3L)).thenReturn(13L);
+
+        // Act
+        checkoutQueue.placeBatch(List.of(new CheckoutQueue.CheckoutCommand("a", 1L),
+                new CheckoutQueue.CheckoutCommand("b", 2L),
+                new CheckoutQueue.CheckoutCommand("c", 3L)));
+
+        // Assert: the batch is rolled back once, then each checkout gets its own transaction
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(CheckoutStatus.PLACED, checkoutQueue.fetchCheckout("a", 1L).status());
+        assertEquals(CheckoutStatus.REJECTED, checkoutQueue.fetchCheckout("b", 2L).status());
+        assertEquals("Product Quantity Exceeded", checkoutQueue.fetchCheckout("b", 2L).message());
+        assertEquals(13L, checkoutQueue.fetchCheckout("c", 3L).orderId());
+        assertEquals(2.0, meterRegistry.get("checkout.outcomes").tag("status", "PLACED").counter().count());
+    }
+
+    @Test
+    void placeBatch_ShouldTakePermitBeforeTransaction_WhenVirtualThreadsAreEnabled() {
+        // Arrange: a single permit, so the order placed inside the transaction must reuse it
+        DatabaseAccessLimiter databaseAccessLimiter = new DatabaseAccessLimiter(1, Duration.ofMillis(100), meterRegistry);
+        CheckoutQueue limitedQueue = new CheckoutQueue(orderService, cartService, transactionManager,
+                Optional.of(databaseAccessLimiter), new ConcurrentMapCacheManager(CacheConfig.CHECKOUTS),
+                meterRegistry, true, 2, 1, 10);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            assertEquals(0.0, meterRegistry.get("database.permits.available").gauge().value());
+            return null;
+        });
+        when(orderService.createOrderForUser(1L)).thenReturn(100L);
+
+        // Act
+        limitedQueue.placeBatch(List.of(new CheckoutQueue.CheckoutCommand("a", 1L)));
+
+        // Assert
+        verify(transactionManager).getTransaction(any());
+        assertEquals(1.0, meterRegistry.get("database.permits.available").gauge().value());
+    }
+}
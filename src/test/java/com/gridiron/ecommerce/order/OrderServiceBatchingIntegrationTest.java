@@ -0,0 +1,97 @@
+package com.gridiron.ecommerce.order;
+
+import com.gridiron.ecommerce.AbstractIntegrationTest;
+import com.gridiron.ecommerce.cart.Cart;
+import com.gridiron.ecommerce.cart.CartRepository;
+import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.product.Product;
+import com.gridiron.ecommerce.product.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements Hibernate prepares for one checkout of carts of growing size.
+ * With sequence ids and JDBC batching the count depends on the number of batches, not the number of items:
+ * cart and item load, product batch fetch, sequence calls, order insert, item insert batches,
+ * cart item delete batches and the cart update.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional
+@Rollback
+public class OrderServiceBatchingIntegrationTest extends AbstractIntegrationTest {
+
+    private static final long USER_ID = 2_000_000L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void createOrderForUser_ShouldPrepareStatementsPerBatchNotPerItem(int numberOfItems) {
+        // Arrange: a cart holding one unit each of numberOfItems products
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < numberOfItems; i++) {
+            products.add(new Product("Product " + i, new BigDecimal("10.0"), "Batching test product", 100));
+        }
+        productRepository.saveAll(products);
+
+        Cart cart = new Cart();
+        cart.setUserId(USER_ID);
+        for (Product product : products) {
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(1);
+            cart.getCartItems().add(cartItem);
+        }
+        cartRepository.save(cart);
+
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        Long orderId = orderService.createOrderForUser(USER_ID);
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+        long inserts = statistics.getEntityInsertCount();
+
+        // Assert
+        assertNotNull(orderId);
+        assertEquals(numberOfItems + 1, inserts);
+        assertEquals(numberOfItems, orderRepository.findById(orderId).orElseThrow().getOrderItems().size());
+        assertTrue(statements <= 15, "checkout of " + numberOfItems + " items prepared " + statements + " statements");
+    }
+}
@@ -0,0 +1,133 @@
+package com.gridiron.ecommerce.order;
+
+import com.gridiron.ecommerce.AbstractIntegrationTest;
+import com.gridiron.ecommerce.cart.Cart;
+import com.gridiron.ecommerce.cart.CartRepository;
+import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.product.Product;
+import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs checkouts in parallel against a single product, without a test transaction, so that every checkout commits
+ * on its own connection the way it does in production.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OrderServiceConcurrencyIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int STOCK = 50;
+    private static final int CUSTOMERS = 300;
+    private static final long FIRST_USER_ID = 1_000_000L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        // One product with limited stock, and a cart holding one unit of it for every customer
+        Product product = productRepository.save(new Product("Flash Sale Product", new BigDecimal("10.0"), "Limited stock", STOCK));
+        productId = product.getId();
+
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Cart cart = new Cart();
+            cart.setUserId(FIRST_USER_ID + i);
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(1);
+            cart.getCartItems().add(cartItem);
+            carts.add(cart);
+        }
+        cartRepository.saveAll(carts);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findAll().stream()
+                .filter(order -> order.getUserId() >= FIRST_USER_ID)
+                .toList());
+        for (int i = 0; i < CUSTOMERS; i++) {
+            cartRepository.findByUserId(FIRST_USER_ID + i).ifPresent(cartRepository::delete);
+        }
+        productRepository.deleteById(productId);
+    }
+
+    @Test
+    void createOrderForUser_ShouldNeverOversell_WhenCheckoutsRunInParallel() throws Exception {
+        // Arrange
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            long userId = FIRST_USER_ID + i;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrderForUser(userId);
+                    placed.incrementAndGet();
+                } catch (InvalidInputException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        // Act
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executorService.shutdown();
+
+        // Assert: exactly the stock was sold, the rest were rejected cleanly, and nothing went below zero
+        assertEquals(STOCK, placed.get());
+        assertEquals(CUSTOMERS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getAvailabilityQuantity());
+        assertEquals(STOCK, orderRepository.findAll().stream()
+                .filter(order -> order.getUserId() >= FIRST_USER_ID)
+                .count());
+
+        // Rejected customers keep their cart
+        long cartsWithItems = 0;
+        for (int i = 0; i < CUSTOMERS; i++) {
+            if (cartRepository.existsByUserIdAndCartItemsIsNotEmpty(FIRST_USER_ID + i)) {
+                cartsWithItems++;
+            }
+        }
+        assertEquals(CUSTOMERS - STOCK, cartsWithItems);
+    }
+}
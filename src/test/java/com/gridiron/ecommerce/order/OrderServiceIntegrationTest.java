@@ -5,10 +5,17 @@ import com.gridiron.ecommerce.cart.CartRepository;
 import com.gridiron.ecommerce.cartItem.CartItem;
 import com.gridiron.ecommerce.cartItem.CartItemRepository;
 import com.gridiron.ecommerce.AbstractIntegrationTest;
+import com.gridiron.ecommerce.order.response.OrderResponse;
+import com.gridiron.ecommerce.orderItem.OrderItem;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +30,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional
 @Rollback
@@ -44,6 +51,12 @@ public class OrderServiceIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Long userId;
     private Long productId;
 
@@ -138,4 +151,36 @@ public class OrderServiceIntegrationTest extends AbstractIntegrationTest {
                 orderService.updateOrderStatusByOrderId(order.getId(), OrderStatus.PENDING));
         assertEquals("Order is already pending", exception.getMessage());
     }
+
+    @Test
+    void fetchAllOrders_ShouldCountItemsWithoutLoadingThem_WhenManyOrdersExist() {
+        // Arrange: 100 orders with 3 items each
+        Product product = productRepository.findById(productId).orElseThrow();
+        for (int i = 0; i < 100; i++) {
+            Order order = new Order();
+            order.setUserId(100L + i);
+            order.setTotalPrice(new BigDecimal("300.0"));
+            order.setStatus(OrderStatus.PENDING);
+            for (int j = 0; j < 3; j++) {
+                order.getOrderItems().add(new OrderItem(order, product, 1, product.getPrice()));
+            }
+            orderRepository.save(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        PaginatedData paginatedData = orderService.fetchAllOrders(1, 100);
+
+        // Assert: one grouped summary query plus one count query, no order or item hydration
+        List<OrderResponse> orders = (List<OrderResponse>) paginatedData.data();
+        assertEquals(100, orders.size());
+        assertTrue(orders.stream().allMatch(order -> order.numberOfItems() == 3));
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
 }
@@ -4,8 +4,10 @@ import com.gridiron.ecommerce.cart.Cart;
 import com.gridiron.ecommerce.cart.CartRepository;
 import com.gridiron.ecommerce.cart.CartService;
 import com.gridiron.ecommerce.cartItem.CartItem;
+import com.gridiron.ecommerce.order.response.OrderResponse;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductService;
+import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,9 +16,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -65,7 +71,7 @@ public class OrderServiceTest {
         cartItems.add(cartItem);
         cart.setCartItems(cartItems);
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.findForCheckoutByUserId(userId)).thenReturn(Optional.of(cart));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -84,7 +90,7 @@ public class OrderServiceTest {
         Cart cart = new Cart();
         cart.setUserId(userId);
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartRepository.findForCheckoutByUserId(userId)).thenReturn(Optional.of(cart));
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> orderService.createOrderForUser(userId));
@@ -133,4 +139,23 @@ public class OrderServiceTest {
         assertThrows(InvalidInputException.class, () -> orderService.updateOrderStatusByOrderId(orderId, OrderStatus.SHIPPED));
         verify(orderRepository, never()).save(any(Order.class));
     }
+
+    @Test
+    void fetchAllOrders_ShouldReturnItemCountFromSummary_WhenOrdersExist() {
+        // Arrange
+        OrderSummary summary = new OrderSummary(1L, 2L, BigDecimal.valueOf(300), OrderStatus.PENDING,
+                LocalDateTime.now(), null, null, null, 3L);
+        when(orderRepository.findAllOrderSummaries(PageRequest.of(0, 10))).thenReturn(new PageImpl<>(List.of(summary)));
+
+        // Act
+        PaginatedData result = orderService.fetchAllOrders(1, 10);
+
+        // Assert
+        assertEquals(1, result.currentSize());
+        OrderResponse response = ((List<OrderResponse>) result.data()).get(0);
+        assertEquals(1L, response.orderId());
+        assertEquals(3, response.numberOfItems());
+        assertEquals(OrderStatus.PENDING, response.status());
+        verify(orderRepository, never()).findAll(any(PageRequest.class));
+    }
 }
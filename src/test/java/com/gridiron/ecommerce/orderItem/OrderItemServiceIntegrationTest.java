@@ -11,7 +11,14 @@ import com.gridiron.ecommerce.order.OrderRepository;
 import com.gridiron.ecommerce.order.OrderStatus;
 import com.gridiron.ecommerce.product.Product;
 import com.gridiron.ecommerce.product.ProductRepository;
+import com.gridiron.ecommerce.product.ProductService;
+import com.gridiron.ecommerce.orderItem.response.OrderItemResponse;
 import com.gridiron.ecommerce.utility.PaginatedData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.java.Log;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,14 +28,19 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional
 @Rollback
+@Log
 public class OrderItemServiceIntegrationTest extends AbstractIntegrationTest {
 
     @Autowired
@@ -46,9 +58,18 @@ public class OrderItemServiceIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Long cartId;
     private Long orderId;
     private Long productId;
@@ -95,4 +116,90 @@ public class OrderItemServiceIntegrationTest extends AbstractIntegrationTest {
         assertThat(paginatedData.totalSize()).isGreaterThan(0);
         assertThat(paginatedData.currentSize()).isEqualTo(1);
     }
+
+    @Test
+    void fetchAllOrderItemsByOrderId_ShouldCostFewerQueriesPerPageThanEntityPath_WhenOrderHasThousandsOfItems() {
+        // Arrange: an order with 1,200 items, each for a distinct product so per-row product loads would be visible
+        int itemCount = 1200;
+        int pageSize = 50;
+        Order order = new Order();
+        order.setUserId(2L);
+        order.setTotalPrice(new BigDecimal("12000.0"));
+        order.setStatus(OrderStatus.PENDING);
+        for (int i = 0; i < itemCount; i++) {
+            Product product = productRepository.save(new Product("Bulk Product " + i, new BigDecimal("10.0"), "Bulk", 100));
+            order.getOrderItems().add(new OrderItem(order, product, 1, product.getPrice()));
+        }
+        orderRepository.save(order);
+        entityManager.flush();
+        entityManager.clear();
+        Long bulkOrderId = order.getId();
+        int pages = itemCount / pageSize;
+
+        // Act: walk every page through the entity path the service used before, then through the projection
+        PageCost before = walkPages(pages, page -> fetchEntityPage(bulkOrderId, page, pageSize));
+        PageCost after = walkPages(pages, page -> (List<OrderItemResponse>) orderItemService
+                .fetchAllOrderItemsByOrderId(bulkOrderId, page, pageSize).data());
+        log.info("order items: " + itemCount + ", page size: " + pageSize
+                + ", entity path: " + before.averageMicros() + "us and " + before.statementsPerPage() + " statements per page"
+                + ", projection: " + after.averageMicros() + "us and " + after.statementsPerPage() + " statements per page");
+
+        // Assert: one projection query plus one count query per page, no entity hydration
+        assertThat(after.statementsPerPage()).isEqualTo(2L);
+        assertThat(after.entityLoads()).isZero();
+        assertThat(before.statementsPerPage()).isGreaterThan(after.statementsPerPage());
+        assertThat(before.entityLoads()).isGreaterThanOrEqualTo(2L * itemCount);
+    }
+
+    /**
+     * Fetches a page the way OrderItemService did before it read projections: the OrderItem entities of the page,
+     * sorted newest first, with each lazy product formatted through Set.of and ProductService
+     */
+    private List<OrderItemResponse> fetchEntityPage(Long orderId, int page, int size) {
+        List<OrderItem> orderItems = entityManager.createQuery(
+                        "SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId ORDER BY oi.createdAt DESC", OrderItem.class)
+                .setParameter("orderId", orderId)
+                .setFirstResult((page - 1) * size)
+                .setMaxResults(size)
+                .getResultList();
+        entityManager.createQuery("SELECT count(oi) FROM OrderItem oi WHERE oi.order.id = :orderId", Long.class)
+                .setParameter("orderId", orderId)
+                .getSingleResult();
+
+        List<OrderItemResponse> orderItemResponses = new ArrayList<>();
+        for (OrderItem orderItem : orderItems) {
+            orderItemResponses.add(new OrderItemResponse(
+                    orderItem.getId(),
+                    productService.formatProductsToProductResponse(Set.of(orderItem.getProduct())).get(0),
+                    orderItem.getQuantity()
+            ));
+        }
+        return orderItemResponses;
+    }
+
+    /**
+     * Fetches every page once to warm up, then again with a clear persistence context per page, as every request
+     * has its own, and returns the average latency and the statements and entity loads of a page
+     */
+    private PageCost walkPages(int pages, IntFunction<List<OrderItemResponse>> fetchPage) {
+        for (int page = 1; page <= pages; page++) {
+            fetchPage.apply(page);
+            entityManager.clear();
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int page = 1; page <= pages; page++) {
+            List<OrderItemResponse> orderItems = fetchPage.apply(page);
+            assertThat(orderItems).isNotEmpty();
+            assertThat(orderItems.get(0).product().name()).startsWith("Bulk Product");
+            entityManager.clear();
+        }
+        long averageMicros = (System.nanoTime() - started) / 1_000 / pages;
+        return new PageCost(averageMicros, statistics.getPrepareStatementCount() / pages, statistics.getEntityLoadCount());
+    }
+
+    private record PageCost(long averageMicros, long statementsPerPage, long entityLoads) {
+    }
 }
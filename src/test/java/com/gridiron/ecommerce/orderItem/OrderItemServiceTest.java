@@ -1,8 +1,6 @@
 package com.gridiron.ecommerce.orderItem;
 
-import com.gridiron.ecommerce.product.Product;
-import com.gridiron.ecommerce.product.ProductService;
-import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.orderItem.response.OrderItemResponse;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +14,6 @@ import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,9 +25,6 @@ public class OrderItemServiceTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
-    @Mock
-    private ProductService productService;
-
     @InjectMocks
     private OrderItemService orderItemService;
 
@@ -44,17 +38,12 @@ public class OrderItemServiceTest {
     @Test
     void fetchAllOrderItemsByOrderId_ShouldReturnPaginatedData_WhenOrderItemsExist() {
         // Arrange
-        OrderItem orderItem = new OrderItem();
-        orderItem.setId(1L);
-        orderItem.setQuantity(2);
-        Product product = new Product("Test Product", BigDecimal.valueOf(100), "A test product", 10);
-        orderItem.setProduct(product); // Assume Product class exists
+        OrderItemProjection orderItem = new OrderItemProjection(1L, 2, 3L, "Test Product", "A test product", 10, BigDecimal.valueOf(100));
 
-        List<OrderItem> orderItemList = List.of(orderItem);
-        Page<OrderItem> orderItemPage = new PageImpl<>(orderItemList);
+        List<OrderItemProjection> orderItemList = List.of(orderItem);
+        Page<OrderItemProjection> orderItemPage = new PageImpl<>(orderItemList);
 
         when(orderItemRepository.findByOrderId(any(Long.class), any(PageRequest.class))).thenReturn(orderItemPage);
-        when(productService.formatProductsToProductResponse(any(Set.class))).thenReturn(List.of(new ProductResponse(product.getId(),product.getName(),product.getDescription(), product.getAvailabilityQuantity(), product.getPrice())));
 
         // Act
         PaginatedData result = orderItemService.fetchAllOrderItemsByOrderId(orderId, 1, 10);
@@ -63,5 +52,11 @@ public class OrderItemServiceTest {
         assertEquals(1, result.currentSize());
         assertEquals(1, result.totalSize());
         assertEquals(1, result.totalPage());
+
+        OrderItemResponse response = ((List<OrderItemResponse>) result.data()).get(0);
+        assertEquals(1L, response.orderItemId());
+        assertEquals(2, response.quantity());
+        assertEquals(3L, response.product().productId());
+        assertEquals("Test Product", response.product().name());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.product.response.ProductSuggestionResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products for the tests of the ProductCatalog and of the indexes built on it
+ */
+final class ProductCatalogFixtures {
+
+    static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 10, 1, 12, 0);
+
+    private ProductCatalogFixtures() {
+    }
+
+    /**
+     * Returns a catalog loading the products in pages of two
+     */
+    static ProductCatalog catalog(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+        return new ProductCatalog(productRepository, new ProductService(null, null, null, null, null, null),
+                orderItemRepository, 2);
+    }
+
+    static ProductResponse product(Long productId, String name, String description, String price, int quantity) {
+        return ProductResponse.builder()
+                .productId(productId)
+                .name(name)
+                .description(description)
+                .availabilityQuantity(quantity)
+                .price(new BigDecimal(price))
+                .build();
+    }
+
+    /**
+     * Saves a product in the catalog, every product saved this way being created at the same time
+     */
+    static void save(ProductCatalog productCatalog, ProductResponse product) {
+        productCatalog.onProductChanged(ProductChangedEvent.saved(product, CREATED_AT));
+    }
+
+    static void delete(ProductCatalog productCatalog, Long productId) {
+        productCatalog.onProductChanged(ProductChangedEvent.deleted(productId));
+    }
+
+    static void order(ProductCatalog productCatalog, Long productId, int quantity) {
+        productCatalog.onProductStockChanged(new ProductStockChangedEvent(Map.of(productId, -quantity)));
+    }
+
+    /**
+     * Returns a product as loaded from the database, the higher the id the newer
+     */
+    static Product entity(Long productId, String name, String description, String price, int quantity) {
+        Product product = new Product(name, new BigDecimal(price), description, quantity);
+        product.setId(productId);
+        product.setCreatedAt(CREATED_AT.plusMinutes(productId));
+        return product;
+    }
+
+    /**
+     * Returns the ids of product or suggestion responses, in order
+     */
+    static List<Long> productIds(Object products) {
+        return ((List<?>) products).stream()
+                .map(product -> product instanceof ProductSuggestionResponse suggestion
+                        ? suggestion.productId()
+                        : ((ProductResponse) product).productId())
+                .toList();
+    }
+}
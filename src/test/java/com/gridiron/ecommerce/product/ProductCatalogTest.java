@@ -0,0 +1,168 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.orderItem.ProductPopularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.gridiron.ecommerce.product.ProductCatalogFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductCatalog productCatalog;
+
+    //the thread that merged the last snapshot
+    private volatile String mergedOn;
+
+    //the number of products of every snapshot
+    private final ProductCatalogIndex<Integer> sizes = ProductCatalogIndex.of(ProductCatalog.Snapshot::size,
+            (previous, merge) -> {
+                mergedOn = Thread.currentThread().getName();
+                return merge.merged().size();
+            });
+
+    @BeforeEach
+    void setUp() {
+        productCatalog = catalog(productRepository, orderItemRepository);
+        productCatalog.register(sizes);
+    }
+
+    @Test
+    void compact_ShouldKeepEveryProductFindableAndNewestFirst_WhenCatalogChangesAtRandom() {
+        // Arrange
+        Random random = new Random(7);
+        Map<Long, Integer> quantities = new HashMap<>();
+
+        // Act
+        for (int step = 0; step < 3000; step++) {
+            long productId = 1 + random.nextInt(300);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    delete(productCatalog, productId);
+                    quantities.remove(productId);
+                }
+                case 1 -> {
+                    order(productCatalog, productId, 1);
+                    quantities.computeIfPresent(productId, (id, quantity) -> Math.max(quantity - 1, 0));
+                }
+                default -> {
+                    int quantity = random.nextInt(5);
+                    save(productCatalog, product(productId, "Product " + productId, "Description", "10", quantity));
+                    quantities.put(productId, quantity);
+                }
+            }
+            if (step % 89 == 0) {
+                productCatalog.compact();
+            }
+        }
+
+        // Assert
+        for (int pass = 0; pass < 2; pass++) {
+            ProductCatalog.View<Integer> view = productCatalog.view(sizes);
+            for (long productId = 1; productId <= 300; productId++) {
+                ProductCatalog.Entry entry = view.find(productId);
+                assertEquals(quantities.get(productId), entry == null ? null : entry.product().availabilityQuantity());
+            }
+            assertEquals(quantities.size(), productCatalog.size());
+            productCatalog.compact();
+        }
+        ProductCatalog.View<Integer> view = productCatalog.view(sizes);
+        assertTrue(view.pending().isEmpty());
+        assertEquals(quantities.size(), view.structure());
+        for (int i = 1; i < view.snapshot().size(); i++) {
+            assertTrue(view.snapshot().entry(i - 1).productId() > view.snapshot().entry(i).productId());
+        }
+    }
+
+    @Test
+    void onProductChanged_ShouldMergeOnCompactorThread_WhenTooManyChangesArePending() throws InterruptedException {
+        // Arrange
+        productCatalog.start();
+        try {
+            // Act
+            for (long productId = 1; productId <= ProductCatalog.MAX_PENDING; productId++) {
+                save(productCatalog, product(productId, "Product " + productId, "Description", "10", 1));
+            }
+
+            // Assert
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!productCatalog.view(sizes).pending().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(ProductCatalog.MAX_PENDING, productCatalog.view(sizes).structure());
+            assertEquals("product-catalog-compactor", mergedOn);
+        } finally {
+            productCatalog.stop();
+        }
+    }
+
+    @Test
+    void onProductStockChanged_ShouldAddDeductedQuantitiesToPopularity_WhenBuiltFromDatabase() {
+        // Arrange
+        Product kettle = entity(1L, "Kettle", "Steel", "10", 10);
+        when(orderItemRepository.findProductPopularity()).thenReturn(List.of(new ProductPopularity(1L, 4L)));
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenReturn(List.of(kettle));
+        productCatalog.rebuild();
+
+        // Act
+        order(productCatalog, 1L, 3);
+        productCatalog.onProductStockChanged(new ProductStockChangedEvent(Map.of(1L, 2)));
+        productCatalog.onProductStockChanged(ProductStockChangedEvent.restocked(Map.of(1L, -4)));
+
+        // Assert: stock taken off by an import is not counted as sold
+        ProductCatalog.Entry entry = productCatalog.view(sizes).find(1L);
+        assertEquals(7L, entry.popularity());
+        assertEquals(5, entry.product().availabilityQuantity());
+    }
+
+    @Test
+    void rebuild_ShouldReplayChangesCommitted_WhileProductsAreLoading() {
+        // Arrange
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenAnswer(invocation -> {
+            save(productCatalog, product(5L, "Lamp", "Light", "10", 1));
+            return List.of(entity(1L, "Kettle", "Steel", "10", 10));
+        });
+
+        // Act
+        productCatalog.rebuild();
+
+        // Assert
+        assertEquals(2, productCatalog.size());
+        assertNotNull(productCatalog.view(sizes).find(5L));
+        assertEquals(1, productCatalog.view(sizes).structure());
+    }
+
+    @Test
+    void rebuild_ShouldKeepCurrentCatalog_WhenLoadingFails() {
+        // Arrange
+        save(productCatalog, product(1L, "Kettle", "Steel", "10", 10));
+        when(orderItemRepository.findProductPopularity()).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act
+        productCatalog.rebuild();
+
+        // Assert
+        assertEquals(1, productCatalog.size());
+        verify(productRepository, never()).findFirstKeysetPage(any());
+    }
+}
@@ -0,0 +1,156 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.product.response.ProductFacetsResponse;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.FacetedPaginatedData;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.gridiron.ecommerce.product.ProductCatalogFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductFacetServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductCatalog productCatalog;
+    private ProductFacetService productFacetService;
+
+    @BeforeEach
+    void setUp() {
+        productCatalog = catalog(productRepository, orderItemRepository);
+        productFacetService = new ProductFacetService(productCatalog, List.of(new BigDecimal("50"), new BigDecimal("20")));
+    }
+
+    @Test
+    void fetchProducts_ShouldFilterByPriceAndStockNewestFirst_WhenBuiltFromDatabase() {
+        // Arrange
+        Product newest = entity(4L, "Product 4", "Description", "25.00", 3);
+        Product soldOut = entity(3L, "Product 3", "Description", "30.00", 0);
+        Product cheap = entity(2L, "Product 2", "Description", "5.00", 8);
+        Product inRange = entity(1L, "Product 1", "Description", "20.00", 1);
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenReturn(List.of(newest, soldOut));
+        when(productRepository.findKeysetPageAfter(soldOut.getCreatedAt(), 3L, Limit.of(2)))
+                .thenReturn(List.of(cheap, inRange));
+        productCatalog.rebuild();
+
+        // Act
+        FacetedPaginatedData result = productFacetService.fetchProducts(
+                new BigDecimal("20"), new BigDecimal("50"), true, 1, 10);
+
+        // Assert
+        assertEquals(List.of(4L, 1L), productIds(result.data()));
+        ProductFacetsResponse facets = (ProductFacetsResponse) result.facets();
+        assertEquals(2, facets.inStock());
+        assertEquals(1, facets.outOfStock());
+        assertEquals(List.of(1L, 2L, 0L), facets.priceRanges().stream()
+                .map(ProductFacetsResponse.PriceRangeCount::count).toList());
+        assertNull(facets.priceRanges().get(0).from());
+        assertNull(facets.priceRanges().get(2).to());
+    }
+
+    @Test
+    void fetchProducts_ShouldFollowChanges_BeforeAndAfterCompaction() {
+        // Arrange
+        price(1L, "10.00", 5);
+        price(2L, "15.00", 5);
+        productCatalog.compact();
+
+        // Act
+        price(1L, "60.00", 5);
+        delete(productCatalog, 2L);
+        price(3L, "12.00", 1);
+        order(productCatalog, 3L, 1);
+
+        // Assert
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(List.of(1L), productIds(productFacetService.fetchProducts(null, null, true, 1, 10).data()));
+            FacetedPaginatedData outOfStock = productFacetService.fetchProducts(null, new BigDecimal("20"), false, 1, 10);
+            assertEquals(List.of(3L), productIds(outOfStock.data()));
+            assertEquals(0, ((ProductResponse) ((List<?>) outOfStock.data()).get(0)).availabilityQuantity());
+            productCatalog.compact();
+        }
+    }
+
+    @Test
+    void fetchProducts_ShouldMatchFilteringEveryProduct_WhenCatalogChangesAtRandom() {
+        // Arrange
+        Random random = new Random(42);
+        Map<Long, int[]> catalog = new HashMap<>();
+        for (int step = 0; step < 3000; step++) {
+            long productId = 1 + random.nextInt(400);
+            if (random.nextInt(10) == 0) {
+                delete(productCatalog, productId);
+                catalog.remove(productId);
+            } else {
+                int cents = random.nextInt(10000);
+                int quantity = random.nextInt(3);
+                price(productId, BigDecimal.valueOf(cents, 2).toPlainString(), quantity);
+                catalog.put(productId, new int[]{cents, quantity});
+            }
+            if (step % 97 == 0) {
+                productCatalog.compact();
+            }
+        }
+
+        for (int query = 0; query < 200; query++) {
+            int min = random.nextInt(10000);
+            int max = min + random.nextInt(10000 - min);
+            Boolean inStock = switch (random.nextInt(3)) {
+                case 0 -> true;
+                case 1 -> false;
+                default -> null;
+            };
+            int page = 1 + random.nextInt(3);
+            int size = 1 + random.nextInt(20);
+
+            // Act
+            FacetedPaginatedData result = productFacetService.fetchProducts(
+                    BigDecimal.valueOf(min, 2), BigDecimal.valueOf(max, 2), inStock, page, size);
+
+            // Assert: newest first is highest id first, as every product was saved at the same time
+            List<Long> expected = catalog.entrySet().stream()
+                    .filter(entry -> entry.getValue()[0] >= min && entry.getValue()[0] <= max
+                            && (inStock == null || (entry.getValue()[1] > 0) == inStock))
+                    .map(Map.Entry::getKey)
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+            assertEquals(expected.size(), result.totalSize());
+            assertEquals(expected.subList(Math.min((page - 1) * size, expected.size()),
+                    Math.min(page * size, expected.size())), productIds(result.data()));
+        }
+    }
+
+    @Test
+    void fetchProducts_ShouldThrowInvalidInputException_WhenFiltersAreInvalid() {
+        // Act & Assert
+        assertThrows(InvalidInputException.class,
+                () -> productFacetService.fetchProducts(new BigDecimal("50"), new BigDecimal("20"), null, 1, 10));
+        assertThrows(InvalidInputException.class,
+                () -> productFacetService.fetchProducts(null, null, true, 0, 10));
+        assertEquals(0L, productFacetService.fetchProducts(null, new BigDecimal("1e999999999"), null, 1, 10).totalSize());
+    }
+
+    private void price(Long productId, String price, int quantity) {
+        save(productCatalog, product(productId, "Product " + productId, "Description", price, quantity));
+    }
+}
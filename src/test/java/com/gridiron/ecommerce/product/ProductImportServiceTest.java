@@ -0,0 +1,281 @@
+package com.gridiron.ecommerce.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.product.response.ProductImportJobResponse;
+import com.gridiron.ecommerce.utility.cache.CacheConfig;
+import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES);
+        productImportService = new ProductImportService(productRepository, new ProductService(null, null, null, null, null, null),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), transactionManager,
+                Optional.empty(), cacheManager, eventPublisher, 2, 10, 5);
+    }
+
+    @Test
+    void importProducts_ShouldInsertRowsInBatches_WhenCsvIsValid() {
+        // Arrange
+        when(productRepository.allocateProductIds(anyInt())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+        String csv = "Name,Price,Description,AvailabilityQuantity\r\n" +
+                "Kettle,19.99,\"Steel, 1.5L\",10\r\n" +
+                "Lamp,5,\"Says \"\"hi\"\"\",0\r\n" +
+                "\r\n" +
+                "Chair,49.50,Oak,3\r\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.COMPLETED, job.status());
+        assertEquals(3, job.rowsRead());
+        assertEquals(3, job.created());
+        assertEquals(0, job.failed());
+
+        ArgumentCaptor<List<ProductImportRow>> rows = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(2)).insertProducts(rows.capture(), any());
+        verify(transactionManager, times(2)).getTransaction(any());
+        assertEquals(2, rows.getAllValues().get(0).size());
+        assertEquals("Steel, 1.5L", rows.getAllValues().get(0).get(0).product().description());
+        assertEquals("Says \"hi\"", rows.getAllValues().get(0).get(1).product().description());
+        assertEquals("Chair", rows.getAllValues().get(1).get(0).product().name());
+        verify(eventPublisher, times(3)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void importProducts_ShouldSkipAndReportRows_WhenTheyAreInvalid() {
+        // Arrange
+        when(productRepository.allocateProductIds(1)).thenReturn(List.of(100L));
+        String ndjson = """
+                {"name":"Kettle","price":19.99,"description":"Steel","availabilityQuantity":10}
+                {"name":"","price":5,"description":"Blank name","availabilityQuantity":1}
+                {"name":"Lamp","price":"cheap"
+                {"name":"Chair","price":49.5,"description":"Oak"}
+                """;
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.NDJSON, body(ndjson));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.COMPLETED, job.status());
+        assertEquals(4, job.rowsRead());
+        assertEquals(1, job.created());
+        assertEquals(3, job.failed());
+        assertEquals(List.of(2L, 3L, 4L), job.errors().stream().map(ProductImportJobResponse.RowError::row).toList());
+        assertEquals("name is required", job.errors().get(0).message());
+        assertEquals("quantity is required", job.errors().get(2).message());
+    }
+
+    @Test
+    void importProducts_ShouldUpdateExistingProductsAndReportUnknownIds_WhenRowsHaveProductId() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Map<Long, ProductImportRepository.StoredProduct> stored =
+                Map.of(7L, new ProductImportRepository.StoredProduct(createdAt, createdAt, 10));
+        when(productRepository.findStoredProductsByIds(List.of(7L, 8L))).thenReturn(stored);
+        when(productRepository.updateProducts(any(), eq(stored), any())).thenReturn(List.of());
+        cacheManager.getCache(CacheConfig.PRODUCTS).put(7L, "cached");
+        cacheManager.getCache(CacheConfig.PRODUCT_PAGES).put("1-10", "cached");
+        String csv = "productId,name,price,description,availabilityQuantity\n" +
+                "7,Kettle,21.00,Steel,4\n" +
+                "8,Lamp,5,Brass,1\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(1, job.updated());
+        assertEquals(0, job.created());
+        assertEquals(List.of(new ProductImportJobResponse.RowError(2, "Product with id 8 not found")), job.errors());
+        verify(productRepository).updateProducts(argThat(rows -> rows.size() == 1 && rows.get(0).productId() == 7L),
+                eq(stored), any());
+        verify(productRepository, never()).insertProducts(any(), any());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        ProductChangedEvent saved = (ProductChangedEvent) events.getAllValues().get(0);
+        assertEquals(createdAt, saved.createdAt());
+        assertEquals("Kettle", saved.product().name());
+        assertEquals(10, saved.product().availabilityQuantity());
+        assertEquals(ProductStockChangedEvent.restocked(Map.of(7L, -6)), events.getAllValues().get(1));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(7L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_PAGES).get("1-10"));
+    }
+
+    @Test
+    void importProducts_ShouldReportRow_WhenProductIsChangedWhileImported() {
+        // Arrange: a checkout deducts the stock between the read and the update of the batch
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Map<Long, ProductImportRepository.StoredProduct> stored =
+                Map.of(7L, new ProductImportRepository.StoredProduct(createdAt, createdAt, 10));
+        when(productRepository.findStoredProductsByIds(List.of(7L))).thenReturn(stored);
+        when(productRepository.updateProducts(any(), eq(stored), any())).thenReturn(List.of(7L));
+        String csv = "productId,name,price,description,availabilityQuantity\n" +
+                "7,Kettle,21.00,Steel,4\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(0, job.updated());
+        assertEquals(List.of(new ProductImportJobResponse.RowError(1,
+                "Product with id 7 was changed while it was imported, import it again")), job.errors());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void importProducts_ShouldSaveRowsOneByOne_WhenBatchBreaksAConstraint() {
+        // Arrange
+        when(productRepository.allocateProductIds(anyInt())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+        doThrow(new DataIntegrityViolationException("too long"))
+                .when(productRepository).insertProducts(argThat(rows -> rows.stream()
+                        .anyMatch(row -> row.product().name().equals("Bad"))), any());
+        String csv = "name,price,description,availabilityQuantity\nGood,1,Fine,1\nBad,1,Fine,1\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.COMPLETED, job.status());
+        assertEquals(1, job.created());
+        assertEquals(1, job.failed());
+        assertEquals(2, job.errors().get(0).row());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void importProducts_ShouldReportRowsAndContinue_WhenLinesAreNotObjects() {
+        // Arrange
+        when(productRepository.allocateProductIds(2)).thenReturn(List.of(100L, 101L));
+        String ndjson = """
+                {"name":"Kettle","price":19.99,"description":"Steel","availabilityQuantity":10}
+                null
+                [1,2]
+                "Lamp"
+                {"name":"Chair","price":49.5,"description":"Oak","availabilityQuantity":3}
+                """;
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.NDJSON, body(ndjson));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.COMPLETED, job.status());
+        assertEquals(2, job.created());
+        assertEquals(List.of(2L, 3L, 4L), job.errors().stream().map(ProductImportJobResponse.RowError::row).toList());
+        assertEquals("Expected a JSON object", job.errors().get(0).message());
+    }
+
+    @Test
+    void importProducts_ShouldFinishJobAsFailed_WhenSavingFails() {
+        // Arrange
+        when(productRepository.allocateProductIds(anyInt())).thenThrow(new IllegalStateException("pool closed"));
+        String csv = "name,price,description,availabilityQuantity\nKettle,1,Steel,1\nLamp,1,\"Brass,1\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert: the malformed stream and the failed write of the rows before it both end the job
+        assertEquals(ProductImportJob.Status.FAILED, job.status());
+        assertEquals("Saving the products failed", job.message());
+        assertNotNull(job.finishedAt());
+        assertEquals(0, job.created());
+    }
+
+    @Test
+    void importProducts_ShouldFailJobAndKeepSavedRows_WhenStreamIsMalformed() {
+        // Arrange
+        when(productRepository.allocateProductIds(1)).thenReturn(List.of(100L));
+        String csv = "name,price,description,availabilityQuantity\nKettle,1,Steel,1\nLamp,1,\"Brass,1\n";
+
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.FAILED, job.status());
+        assertEquals("Row 2 has a quoted field that is never closed", job.message());
+        assertEquals(1, job.created());
+        assertEquals(job, productImportService.fetchImportJob(job.jobId()));
+    }
+
+    @Test
+    void importProducts_ShouldFailJob_WhenCsvHeaderIsUnknown() {
+        // Act
+        ProductImportJobResponse job = productImportService.importProducts(ProductImportFormat.CSV,
+                body("name,cost\nKettle,1\n"));
+
+        // Assert
+        assertEquals(ProductImportJob.Status.FAILED, job.status());
+        assertEquals("Unknown CSV column cost", job.message());
+        assertEquals(0, job.rowsRead());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void fetchImportJobs_ShouldKeepOnlyMostRecentJobs_WhenMoreJobsRan() {
+        // Arrange
+        List<String> jobIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            jobIds.add(productImportService.importProducts(ProductImportFormat.NDJSON, body("")).jobId());
+        }
+
+        // Act
+        List<ProductImportJobResponse> jobs = productImportService.fetchImportJobs();
+
+        // Assert
+        assertEquals(List.of(jobIds.get(6), jobIds.get(5), jobIds.get(4), jobIds.get(3), jobIds.get(2)),
+                jobs.stream().map(ProductImportJobResponse::jobId).toList());
+        assertThrows(ResourceNotFoundException.class, () -> productImportService.fetchImportJob(jobIds.get(0)));
+    }
+
+    private ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,169 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.PaginatedData;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.gridiron.ecommerce.product.ProductCatalogFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSearchServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductCatalog productCatalog;
+    private ProductSearchService productSearchService;
+
+    @BeforeEach
+    void setUp() {
+        productCatalog = catalog(productRepository, orderItemRepository);
+        productSearchService = new ProductSearchService(productCatalog);
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesFirst_WhenTermIsInNameAndDescription() {
+        // Arrange
+        index(1L, "Leather Wallet", "A slim wallet");
+        index(2L, "Travel Bag", "Fits a wallet and a phone");
+        index(3L, "Desk Lamp", "Warm light");
+
+        // Act & Assert: the same ranking from the pending changes and from the merged index
+        for (int pass = 0; pass < 2; pass++) {
+            PaginatedData result = productSearchService.search("Wallet", 1, 10);
+            assertEquals(2L, result.totalSize());
+            assertEquals(List.of(1L, 2L), productIds(result.data()));
+            productCatalog.compact();
+        }
+    }
+
+    @Test
+    void search_ShouldMatchEveryTermByPrefix_WhenQueryHasSeveralWords() {
+        // Arrange
+        index(1L, "Café Crème Mug", "Ceramic");
+        index(2L, "Café Table", "Oak");
+        productCatalog.compact();
+
+        // Act
+        PaginatedData result = productSearchService.search("cafe CRE", 1, 10);
+
+        // Assert
+        assertEquals(List.of(1L), productIds(result.data()));
+    }
+
+    @Test
+    void search_ShouldReturnRequestedPage_WhenMoreMatchesThanSize() {
+        // Arrange
+        for (long productId = 1; productId <= 5; productId++) {
+            index(productId, "Chair " + productId, "Wooden chair");
+        }
+        productCatalog.compact();
+
+        // Act
+        PaginatedData result = productSearchService.search("chair", 2, 2);
+
+        // Assert: equal scores are ordered newest first
+        assertEquals(3, result.totalPage());
+        assertEquals(5L, result.totalSize());
+        assertEquals(List.of(3L, 2L), productIds(result.data()));
+    }
+
+    @Test
+    void search_ShouldFindEveryProduct_WhenShortPrefixExpandsToManyTerms() {
+        // Arrange: every product has its own term starting with "c", "caa" to "cdx"
+        for (long productId = 1; productId <= 100; productId++) {
+            int term = (int) productId - 1;
+            index(productId, "c" + (char) ('a' + term / 26) + (char) ('a' + term % 26), "Item");
+        }
+        productCatalog.compact();
+
+        // Act
+        PaginatedData result = productSearchService.search("c", 10, 10);
+
+        // Assert: the products on the last terms in alphabetical order are found and counted
+        assertEquals(100L, result.totalSize());
+        assertEquals(10, result.totalPage());
+        assertEquals(List.of(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), productIds(result.data()));
+        assertEquals(List.of(100L), productIds(productSearchService.search("cdv", 1, 10).data()));
+    }
+
+    @Test
+    void onProductChanged_ShouldReindexAndRemoveProducts_WhenProductIsEditedOrDeleted() {
+        // Arrange
+        index(1L, "Red Kettle", "Steel");
+        productCatalog.compact();
+
+        // Act
+        index(1L, "Blue Kettle", "Steel");
+
+        // Assert
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(0L, productSearchService.search("red", 1, 10).totalSize());
+            assertEquals(List.of(1L), productIds(productSearchService.search("blue", 1, 10).data()));
+            productCatalog.compact();
+        }
+
+        delete(productCatalog, 1L);
+        assertEquals(0L, productSearchService.search("kettle", 1, 10).totalSize());
+        productCatalog.compact();
+        assertEquals(0L, productSearchService.search("kettle", 1, 10).totalSize());
+        assertEquals(0, productCatalog.size());
+    }
+
+    @Test
+    void onProductStockChanged_ShouldAdjustQuantityInResults_WhenOrderDeductsStock() {
+        // Arrange
+        index(1L, "Kettle", "Steel");
+        productCatalog.compact();
+
+        // Act
+        productCatalog.onProductStockChanged(new ProductStockChangedEvent(Map.of(1L, -3)));
+
+        // Assert
+        ProductResponse product = (ProductResponse) ((List<?>) productSearchService.search("kettle", 1, 10).data()).get(0);
+        assertEquals(7, product.availabilityQuantity());
+    }
+
+    @Test
+    void rebuild_ShouldIndexEveryPageOfProducts_WhenCatalogIsBuilt() {
+        // Arrange
+        Product first = entity(3L, "Lamp", "Light", "10", 10);
+        Product second = entity(2L, "Lamp shade", "Light", "10", 10);
+        Product third = entity(1L, "Lamp stand", "Light", "10", 10);
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenReturn(List.of(first, second));
+        when(productRepository.findKeysetPageAfter(second.getCreatedAt(), 2L, Limit.of(2))).thenReturn(List.of(third));
+
+        // Act
+        productCatalog.rebuild();
+
+        // Assert
+        assertEquals(3L, productSearchService.search("lamp", 1, 10).totalSize());
+        assertEquals(List.of(2L), productIds(productSearchService.search("shade", 1, 10).data()));
+    }
+
+    @Test
+    void search_ShouldThrowInvalidInputException_WhenQueryHasNoWords() {
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> productSearchService.search(" -- ", 1, 10));
+        assertThrows(InvalidInputException.class, () -> productSearchService.search("lamp", 0, 10));
+    }
+
+    private void index(Long productId, String name, String description) {
+        save(productCatalog, product(productId, name, description, "10", 10));
+    }
+}
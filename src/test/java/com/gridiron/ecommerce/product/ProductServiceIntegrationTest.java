@@ -4,6 +4,7 @@ import com.gridiron.ecommerce.AbstractIntegrationTest;
 import com.gridiron.ecommerce.product.request.CreateProductRequest;
 import com.gridiron.ecommerce.product.request.EditProductRequest;
 import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.utility.CursorPaginatedData;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,9 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -105,4 +109,25 @@ public class ProductServiceIntegrationTest extends AbstractIntegrationTest {
         assertThrows(ResourceNotFoundException.class, () -> productService.editProduct(productId, new EditProductRequest("Test", new BigDecimal("10.00"), "Desc", 1)));
         // Additional assertions can be made on CartItemRepository if needed
     }
+
+    @Test
+    void fetchProductsAfter_ShouldWalkAllProductsOnce_WhenFollowingNextCursor() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            productService.createProduct(new CreateProductRequest("Cursor Product " + i, new BigDecimal("10.00"), "Cursor", 1));
+        }
+        long total = productRepository.count();
+
+        // Act
+        Set<Long> seen = new HashSet<>();
+        String cursor = "";
+        do {
+            CursorPaginatedData page = productService.fetchProductsAfter(cursor, 2);
+            ((List<ProductResponse>) page.data()).forEach(product -> seen.add(product.productId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertThat(seen.size()).isEqualTo((int) total);
+    }
 }
@@ -1,10 +1,14 @@
 package com.gridiron.ecommerce.product;
 
+import com.gridiron.ecommerce.cart.CartStore;
 import com.gridiron.ecommerce.cartItem.CartItemRepository;
 import com.gridiron.ecommerce.orderItem.OrderItem;
 import com.gridiron.ecommerce.product.request.CreateProductRequest;
 import com.gridiron.ecommerce.product.request.EditProductRequest;
 import com.gridiron.ecommerce.product.response.ProductResponse;
+import com.gridiron.ecommerce.reservation.ReservationService;
+import com.gridiron.ecommerce.utility.CursorPaginatedData;
+import com.gridiron.ecommerce.utility.PageCursor;
 import com.gridiron.ecommerce.utility.PaginatedData;
 import com.gridiron.ecommerce.utility.exception.InvalidInputException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
@@ -14,6 +18,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -23,8 +31,11 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @ExtendWith(MockitoExtension.class)
 public class ProductServiceTest {
@@ -35,6 +46,18 @@ public class ProductServiceTest {
     @Mock
     private CartItemRepository cartItemRepository;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -127,6 +150,8 @@ public class ProductServiceTest {
         // Assert
         verify(productRepository, times(1)).deleteById(productId);
         verify(cartItemRepository, times(1)).deleteByProductId(productId);
+        verify(reservationService, times(1)).releaseAllForProductAfterCommit(productId);
+        verify(eventPublisher, times(1)).publishEvent(ProductChangedEvent.deleted(productId));
     }
 
     @Test
@@ -144,8 +169,10 @@ public class ProductServiceTest {
         // Arrange
         OrderItem orderItem = mock(OrderItem.class);
         Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 10);
+        product.setId(1L);
         when(orderItem.getProduct()).thenReturn(product);
         when(orderItem.getQuantity()).thenReturn(2);
+        when(productRepository.deductAvailabilityQuantities(any())).thenReturn(List.of());
 
         List<OrderItem> orderItems = List.of(orderItem);
 
@@ -153,8 +180,9 @@ public class ProductServiceTest {
         productService.updateProductQuantityFromOrderItem(orderItems, true);
 
         // Assert
-        assertEquals(8, product.getAvailabilityQuantity()); // 10 - 2
-        verify(productRepository, times(1)).saveAll(any());
+        verify(productRepository, times(1)).deductAvailabilityQuantities(new TreeMap<>(Map.of(1L, 2)));
+        verify(productRepository, never()).saveAll(any());
+        verify(eventPublisher, times(1)).publishEvent(new ProductStockChangedEvent(Map.of(1L, -2)));
     }
 
     @Test
@@ -162,6 +190,7 @@ public class ProductServiceTest {
         // Arrange
         OrderItem orderItem = mock(OrderItem.class);
         Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 10);
+        product.setId(1L);
         when(orderItem.getProduct()).thenReturn(product);
         when(orderItem.getQuantity()).thenReturn(2);
 
@@ -171,7 +200,130 @@ public class ProductServiceTest {
         productService.updateProductQuantityFromOrderItem(orderItems, false);
 
         // Assert
-        assertEquals(12, product.getAvailabilityQuantity()); // 10 + 2
-        verify(productRepository, times(1)).saveAll(any());
+        verify(productRepository, times(1)).restoreAvailabilityQuantities(new TreeMap<>(Map.of(1L, 2)));
+        verify(productRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void updateProductQuantityFromOrderItem_ShouldSumQuantitiesPerProduct_WhenProductRepeats() {
+        // Arrange
+        Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 10);
+        product.setId(1L);
+        OrderItem first = mock(OrderItem.class);
+        when(first.getProduct()).thenReturn(product);
+        when(first.getQuantity()).thenReturn(2);
+        OrderItem second = mock(OrderItem.class);
+        when(second.getProduct()).thenReturn(product);
+        when(second.getQuantity()).thenReturn(3);
+        when(productRepository.deductAvailabilityQuantities(any())).thenReturn(List.of());
+
+        // Act
+        productService.updateProductQuantityFromOrderItem(List.of(first, second), true);
+
+        // Assert
+        verify(productRepository, times(1)).deductAvailabilityQuantities(new TreeMap<>(Map.of(1L, 5)));
+    }
+
+    @Test
+    void updateProductQuantityFromOrderItem_ShouldThrowInvalidInputException_WhenStockIsInsufficient() {
+        // Arrange
+        OrderItem orderItem = mock(OrderItem.class);
+        Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 1);
+        product.setId(1L);
+        when(orderItem.getProduct()).thenReturn(product);
+        when(orderItem.getQuantity()).thenReturn(2);
+        when(productRepository.deductAvailabilityQuantities(any())).thenReturn(List.of(1L));
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class,
+                () -> productService.updateProductQuantityFromOrderItem(List.of(orderItem), true));
+    }
+
+    @Test
+    void fetchProductById_ShouldReturnProductResponse_WhenProductExists() {
+        // Arrange
+        Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 10);
+        product.setId(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        // Act
+        ProductResponse response = productService.fetchProductById(1L);
+
+        // Assert
+        assertEquals(1L, response.productId());
+        assertEquals(10, response.availabilityQuantity());
+    }
+
+    @Test
+    void fetchProductById_ShouldThrowResourceNotFoundException_WhenProductDoesNotExist() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> productService.fetchProductById(1L));
+    }
+
+    @Test
+    void updateProductQuantityFromOrderItem_ShouldEvictCachedProduct_WhenQuantityChanges() {
+        // Arrange
+        OrderItem orderItem = mock(OrderItem.class);
+        Product product = new Product("Product A", BigDecimal.valueOf(100), "A test product", 10);
+        product.setId(1L);
+        when(orderItem.getProduct()).thenReturn(product);
+        when(orderItem.getQuantity()).thenReturn(2);
+
+        ConcurrentMapCache cache = new ConcurrentMapCache("products");
+        cache.put(1L, new ProductResponse(1L, "Product A", "A test product", 10, BigDecimal.valueOf(100)));
+        cache.put(2L, new ProductResponse(2L, "Product B", "Another product", 5, BigDecimal.valueOf(50)));
+        when(cacheManager.getCache("products")).thenReturn(cache);
+        when(productRepository.deductAvailabilityQuantities(any())).thenReturn(List.of());
+
+        // Act
+        productService.updateProductQuantityFromOrderItem(List.of(orderItem), true);
+
+        // Assert
+        assertNull(cache.get(1L));
+        assertNotNull(cache.get(2L));
+    }
+
+    @Test
+    void fetchProductsAfter_ShouldReturnNextCursor_WhenMoreProductsExist() {
+        // Arrange
+        Product newest = new Product("Product B", BigDecimal.valueOf(100), "A test product", 10);
+        newest.setId(2L);
+        Product oldest = new Product("Product A", BigDecimal.valueOf(50), "A test product", 5);
+        oldest.setId(1L);
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenReturn(List.of(newest, oldest));
+
+        // Act
+        CursorPaginatedData result = productService.fetchProductsAfter("", 1);
+
+        // Assert
+        assertEquals(1, result.currentSize());
+        assertNotNull(result.nextCursor());
+        assertEquals(new PageCursor(newest.getCreatedAt(), 2L), PageCursor.decode(result.nextCursor()));
+        verify(productRepository, never()).count();
+    }
+
+    @Test
+    void fetchProductsAfter_ShouldQueryAfterCursor_WhenCursorIsGiven() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 10, 1, 12, 30, 15, 123456000);
+        String cursor = new PageCursor(createdAt, 7L).encode();
+        Product product = new Product("Product A", BigDecimal.valueOf(50), "A test product", 5);
+        when(productRepository.findKeysetPageAfter(createdAt, 7L, Limit.of(11))).thenReturn(List.of(product));
+
+        // Act
+        CursorPaginatedData result = productService.fetchProductsAfter(cursor, 10);
+
+        // Assert
+        assertEquals(1, result.currentSize());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void fetchProductsAfter_ShouldThrowInvalidInputException_WhenCursorIsInvalid() {
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> productService.fetchProductsAfter("not-a-cursor", 10));
     }
 }
@@ -0,0 +1,135 @@
+package com.gridiron.ecommerce.product;
+
+import com.gridiron.ecommerce.orderItem.OrderItemRepository;
+import com.gridiron.ecommerce.orderItem.ProductPopularity;
+import com.gridiron.ecommerce.product.response.ProductSuggestionResponse;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.gridiron.ecommerce.product.ProductCatalogFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSuggestServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductCatalog productCatalog;
+    private ProductSuggestService productSuggestService;
+
+    @BeforeEach
+    void setUp() {
+        productCatalog = catalog(productRepository, orderItemRepository);
+        productSuggestService = new ProductSuggestService(productCatalog);
+    }
+
+    @Test
+    void suggest_ShouldReturnMostOrderedProductsFirst_WhenBuiltFromDatabase() {
+        // Arrange
+        Product kettle = entity(3L, "Steel Kettle", "Description", "10", 10);
+        Product shelf = entity(2L, "Steel Shelf", "Description", "10", 10);
+        Product lamp = entity(1L, "Desk Lamp", "Description", "10", 10);
+        when(orderItemRepository.findProductPopularity())
+                .thenReturn(List.of(new ProductPopularity(2L, 40L), new ProductPopularity(3L, 5L)));
+        when(productRepository.findFirstKeysetPage(Limit.of(2))).thenReturn(List.of(kettle, shelf));
+        when(productRepository.findKeysetPageAfter(shelf.getCreatedAt(), 2L, Limit.of(2))).thenReturn(List.of(lamp));
+
+        // Act
+        productCatalog.rebuild();
+
+        // Assert
+        assertEquals(List.of(2L, 3L), productIds(productSuggestService.suggest("STE", 10)));
+        assertEquals(List.of(1L), productIds(productSuggestService.suggest("desk l", 10)));
+    }
+
+    @Test
+    void suggest_ShouldReturnOnlyTopProducts_WhenMoreMatchThanLimit() {
+        // Arrange
+        for (long productId = 1; productId <= 50; productId++) {
+            name(productId, "Chair " + productId);
+            order(productCatalog, productId, (int) productId);
+        }
+        productCatalog.compact();
+
+        // Act
+        List<ProductSuggestionResponse> suggestions = productSuggestService.suggest("chair", 3);
+
+        // Assert
+        assertEquals(List.of(50L, 49L, 48L), productIds(suggestions));
+    }
+
+    @Test
+    void onProductChanged_ShouldSuggestNewNameAndKeepPopularity_BeforeAndAfterCompaction() {
+        // Arrange
+        name(1L, "Red Kettle");
+        name(2L, "Red Kite");
+        order(productCatalog, 1L, 5);
+        productCatalog.compact();
+
+        // Act
+        name(1L, "Rust Kettle");
+
+        // Assert
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(List.of(1L, 2L), productIds(productSuggestService.suggest("r", 10)));
+            assertEquals(List.of(2L), productIds(productSuggestService.suggest("red", 10)));
+            assertEquals("Rust Kettle", productSuggestService.suggest("rust", 10).get(0).name());
+            productCatalog.compact();
+        }
+    }
+
+    @Test
+    void onProductChanged_ShouldStopSuggestingProduct_WhenProductIsDeleted() {
+        // Arrange
+        name(1L, "Kettle");
+        productCatalog.compact();
+
+        // Act
+        delete(productCatalog, 1L);
+
+        // Assert
+        assertTrue(productSuggestService.suggest("kettle", 10).isEmpty());
+        productCatalog.compact();
+        assertTrue(productSuggestService.suggest("kettle", 10).isEmpty());
+    }
+
+    @Test
+    void onProductStockChanged_ShouldIgnoreRestoredStock_WhenOrderIsCanceled() {
+        // Arrange
+        name(1L, "Kettle");
+        name(2L, "Kite");
+        order(productCatalog, 2L, 3);
+        productCatalog.compact();
+
+        // Act
+        productCatalog.onProductStockChanged(new ProductStockChangedEvent(Map.of(1L, 10)));
+
+        // Assert
+        assertEquals(List.of(2L, 1L), productIds(productSuggestService.suggest("k", 10)));
+    }
+
+    @Test
+    void suggest_ShouldValidateLimitAndIgnoreBlankPrefix() {
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> productSuggestService.suggest("kettle", 0));
+        assertThrows(InvalidInputException.class, () -> productSuggestService.suggest("kettle", ProductSuggestService.MAX_LIMIT + 1));
+        assertTrue(productSuggestService.suggest(" - ", 10).isEmpty());
+    }
+
+    private void name(Long productId, String name) {
+        save(productCatalog, product(productId, name, "Description", "10", 10));
+    }
+}
@@ -0,0 +1,309 @@
+package com.gridiron.ecommerce.reservation;
+
+import com.gridiron.ecommerce.cartItem.CartItemRepository;
+import com.gridiron.ecommerce.cartItem.CartLine;
+import com.gridiron.ecommerce.utility.exception.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationServiceTest {
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+
+    private MutableClock clock;
+
+    private ReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-10-01T12:00:00Z"));
+        reservationService = new ReservationService(cartItemRepository, Duration.ofMinutes(15), clock);
+    }
+
+    @Test
+    void reserve_ShouldHoldStock_WhenEnoughIsAvailable() {
+        // Act
+        reservationService.reserve(1L, 10L, 3, 5);
+        reservationService.reserve(2L, 10L, 2, 5);
+
+        // Assert
+        assertEquals(5, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserve_ShouldThrowInvalidInputException_WhenOtherCartsHoldTheStock() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> reservationService.reserve(2L, 10L, 2, 5));
+        assertEquals(4, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserve_ShouldReplaceOwnHold_WhenCartLineChanges() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+
+        // Act: the same cart growing its own line only needs the difference
+        reservationService.reserve(1L, 10L, 5, 5);
+
+        // Assert
+        assertEquals(5, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserveAll_ShouldChangeNoHold_WhenAnyProductRunsOut() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 1, 5);
+        reservationService.reserve(2L, 11L, 4, 5);
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> reservationService.reserveAll(1L,
+                Map.of(10L, 3, 11L, 2), Map.of(10L, 5, 11L, 5)));
+        assertEquals(1, reservationService.getReservedQuantity(10L));
+        assertEquals(4, reservationService.getReservedQuantity(11L));
+
+        reservationService.reserveAll(1L, Map.of(10L, 3, 11L, 1), Map.of(10L, 5, 11L, 5));
+        assertEquals(3, reservationService.getReservedQuantity(10L));
+        assertEquals(5, reservationService.getReservedQuantity(11L));
+    }
+
+    @Test
+    void release_ShouldFreeStock_WhenLineIsRemoved() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+        reservationService.reserve(1L, 11L, 1, 5);
+
+        // Act
+        reservationService.release(1L, 10L);
+
+        // Assert
+        assertEquals(0, reservationService.getReservedQuantity(10L));
+        assertEquals(1, reservationService.getReservedQuantity(11L));
+        reservationService.reserve(2L, 10L, 5, 5);
+    }
+
+    @Test
+    void releaseAll_ShouldFreeEveryHoldOfTheUser_WhenCartIsCleared() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+        reservationService.reserve(1L, 11L, 1, 5);
+        reservationService.reserve(2L, 11L, 2, 5);
+
+        // Act
+        reservationService.releaseAllAfterCommit(1L);
+
+        // Assert
+        assertEquals(0, reservationService.getReservedQuantity(10L));
+        assertEquals(2, reservationService.getReservedQuantity(11L));
+    }
+
+    @Test
+    void releaseAllForProduct_ShouldFreeEveryHoldOnTheProduct_WhenProductIsDeleted() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+        reservationService.reserve(1L, 11L, 1, 5);
+        reservationService.reserve(2L, 10L, 1, 5);
+
+        // Act
+        reservationService.releaseAllForProductAfterCommit(10L);
+
+        // Assert
+        assertEquals(0, reservationService.getReservedQuantity(10L));
+        assertEquals(1, reservationService.getReservedQuantity(11L));
+        reservationService.reserve(2L, 10L, 5, 5);
+    }
+
+    @Test
+    void releaseExpiredHolds_ShouldOnlyFreeExpiredHolds_WhenTtlPasses() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 4, 5);
+        clock.advance(Duration.ofMinutes(10));
+        reservationService.reserve(2L, 10L, 1, 5);
+
+        // Act
+        clock.advance(Duration.ofMinutes(6));
+        reservationService.releaseExpiredHolds();
+
+        // Assert
+        assertEquals(1, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reconcileFromCarts_ShouldRestoreHolds_WhenCartsWereRecentlyChanged() {
+        // Arrange
+        LocalDateTime updatedAt = LocalDateTime.ofInstant(clock.instant(), clock.getZone()).minusMinutes(5);
+        when(cartItemRepository.findCartLinesUpdatedAfter(any())).thenReturn(List.of(
+                new CartLine(1L, 10L, 3, updatedAt),
+                new CartLine(2L, 10L, 1, updatedAt)));
+
+        // Act
+        reservationService.reconcileFromCarts();
+
+        // Assert
+        assertEquals(4, reservationService.getReservedQuantity(10L));
+        clock.advance(Duration.ofMinutes(11));
+        reservationService.releaseExpiredHolds();
+        assertEquals(0, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserve_ShouldNeverOverbook_WhenManyCartsCompete() throws Exception {
+        // Arrange
+        int carts = 500;
+        int stock = 37;
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        for (int i = 0; i < carts; i++) {
+            long userId = i;
+            executorService.submit(() -> {
+                start.await();
+                try {
+                    reservationService.reserve(userId, 10L, 1, stock);
+                    granted.incrementAndGet();
+                } catch (InvalidInputException ignored) {
+                    // stock is held by other carts
+                }
+                return null;
+            });
+        }
+
+        // Act
+        start.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(stock, granted.get());
+        assertEquals(stock, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserveInTransaction_ShouldPutPreviousHoldBack_WhenTransactionRollsBack() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 2, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            reservationService.reserveInTransaction(1L, 10L, 5, 10);
+            reservationService.reserveAllInTransaction(1L, Map.of(11L, 4), Map.of(11L, 10));
+            assertEquals(5, reservationService.getReservedQuantity(10L));
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            // Assert
+            assertEquals(2, reservationService.getReservedQuantity(10L));
+            assertEquals(0, reservationService.getReservedQuantity(11L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        reservationService.release(1L, 10L);
+        assertEquals(0, reservationService.getReservedQuantity(10L));
+    }
+
+    @Test
+    void reserveInTransaction_ShouldKeepHold_WhenTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            reservationService.reserveInTransaction(1L, 10L, 5, 10);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            // Assert
+            assertEquals(5, reservationService.getReservedQuantity(10L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void releaseAfterCommit_ShouldKeepHold_UntilTransactionCommits() {
+        // Arrange
+        reservationService.reserve(1L, 10L, 3, 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            reservationService.releaseAfterCommit(1L, 10L);
+
+            // Assert: a removal that rolls back leaves the line held, one that commits frees it
+            assertEquals(3, reservationService.getReservedQuantity(10L));
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertEquals(3, reservationService.getReservedQuantity(10L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservationService.releaseAfterCommit(1L, 10L);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            assertEquals(0, reservationService.getReservedQuantity(10L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
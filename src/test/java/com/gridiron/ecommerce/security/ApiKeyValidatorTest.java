@@ -0,0 +1,59 @@
+package com.gridiron.ecommerce.security;
+
+import com.gridiron.ecommerce.utility.security.ApiKeyProperties;
+import com.gridiron.ecommerce.utility.security.ApiKeyValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ApiKeyValidatorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ApiKeyValidator apiKeyValidator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        apiKeyValidator = new ApiKeyValidator(new ApiKeyProperties("default-key",
+                Map.of("partner-a", "partner-a-key", "partner-b", "partner-b-key-ü")), meterRegistry);
+    }
+
+    @Test
+    void authenticate_ShouldReturnClient_WhenKeyIsActive() {
+        // Act & Assert
+        assertEquals(ApiKeyValidator.DEFAULT_CLIENT, apiKeyValidator.authenticate("default-key"));
+        assertEquals("partner-a", apiKeyValidator.authenticate("partner-a-key"));
+        assertEquals("partner-a", apiKeyValidator.authenticate("partner-a-key"));
+        assertEquals("partner-b", apiKeyValidator.authenticate("partner-b-key-ü"));
+
+        assertEquals(2.0, meterRegistry.get("api.requests").tag("client", "partner-a").counter().count());
+        assertEquals(1.0, meterRegistry.get("api.requests").tag("client", "default").counter().count());
+    }
+
+    @Test
+    void authenticate_ShouldReturnNull_WhenKeyIsMissingOrUnknown() {
+        // Act & Assert
+        assertNull(apiKeyValidator.authenticate(null));
+        assertNull(apiKeyValidator.authenticate(""));
+        assertNull(apiKeyValidator.authenticate("partner-a-ke"));
+        assertNull(apiKeyValidator.authenticate("partner-a-key "));
+
+        assertEquals(4.0, meterRegistry.get("api.requests.rejected").counter().count());
+    }
+
+    @Test
+    void authenticate_ShouldAcceptOnlyAdditionalKeys_WhenDefaultKeyIsNotSet() {
+        // Arrange
+        ApiKeyValidator validator = new ApiKeyValidator(new ApiKeyProperties(null, Map.of("partner-a", "partner-a-key")),
+                new SimpleMeterRegistry());
+
+        // Act & Assert
+        assertEquals("partner-a", validator.authenticate("partner-a-key"));
+        assertNull(validator.authenticate("default-key"));
+    }
+}
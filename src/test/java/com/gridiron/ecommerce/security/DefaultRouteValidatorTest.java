@@ -0,0 +1,105 @@
+package com.gridiron.ecommerce.security;
+
+import com.gridiron.ecommerce.utility.security.DefaultRouteValidator;
+import com.gridiron.ecommerce.utility.security.DefaultRouteValidator.RouteClass;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultRouteValidatorTest {
+
+    private final DefaultRouteValidator routeValidator = new DefaultRouteValidator();
+
+    @ParameterizedTest
+    @CsvSource({
+            "/api/v1/users/public/customer, PUBLIC",
+            "/api/v1/users/public/authenticate, PUBLIC",
+            "/api/v1/products/public, PUBLIC",
+            "/api/v1/products/public/search, PUBLIC",
+            "/api/v1/actuator/health, PUBLIC",
+            "/api/v1/users/private/admin, ADMIN",
+            "/api/v1/products/private, ADMIN",
+            "/api/v1/products/private/42, ADMIN",
+            "/api/v1/orders/admin, ADMIN",
+            "/api/v1/orders/admin/42, ADMIN",
+            "/api/v1/carts/private, CUSTOMER",
+            "/api/v1/carts/private/batch, CUSTOMER",
+            "/api/v1/orders/customer, CUSTOMER",
+            "/api/v1/orders/customer/checkouts/abc, CUSTOMER",
+            "/api/v1/orders, AUTHENTICATED",
+            "/api/v1/products, AUTHENTICATED",
+            "/api/v1/users/private, AUTHENTICATED",
+            "/, AUTHENTICATED",
+            "/actuator/health, AUTHENTICATED"
+    })
+    void classify_ShouldReturnRouteClass_WhenPathMatchesLongestPrefix(String path, RouteClass expected) {
+        // Act & Assert
+        assertEquals(expected, routeValidator.classify(path));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "/api/v1/orders/%61dmin, ADMIN",
+            "/api/v1/orders/%61dmin/42, ADMIN",
+            "/api/v1/products/%70rivate/42, ADMIN",
+            "/api/v1/%75sers/private/admin, ADMIN",
+            "/api/v1/carts/%70rivate, CUSTOMER",
+            "/api/v1/products/private;jsessionid=1, ADMIN",
+            "/api/v1/Orders/Admin, ADMIN",
+            "/API/V1/PRODUCTS/PRIVATE/42, ADMIN",
+            "/api/v1/Carts/Private, CUSTOMER",
+            "/api/v1/products/%70ublic, PUBLIC",
+            "/api/v1/products/public%2Fx, PUBLIC"
+    })
+    void classify_ShouldUseDecodedPath_WhenRequestUriIsEncodedOrMixedCase(String uri, RouteClass expected) {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+
+        // Act & Assert
+        assertEquals(expected, routeValidator.classify(request));
+        assertEquals(expected != RouteClass.PUBLIC, routeValidator.isSecured.test(request));
+    }
+
+    @Test
+    void pathOf_ShouldRemoveContextPath_WhenApplicationIsNotAtRoot() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shop/api/v1/orders/%61dmin");
+        request.setContextPath("/shop");
+
+        // Act & Assert
+        assertEquals("/api/v1/orders/admin", routeValidator.pathOf(request));
+        assertEquals(RouteClass.ADMIN, routeValidator.classify(request));
+    }
+
+    @Test
+    void classify_ShouldReturnAuthenticated_WhenPathIsEmpty() {
+        // Act & Assert
+        assertEquals(RouteClass.AUTHENTICATED, routeValidator.classify(""));
+    }
+
+    @Test
+    void isSecured_ShouldMatchPreviousPatterns_WhenPathsAreChecked() {
+        // Arrange: the regular expressions the trie replaced
+        List<Pattern> previousOpenEndpoints = List.of(
+                Pattern.compile("/api/v1/users/public.*"),
+                Pattern.compile("/api/v1/products/public.*"),
+                Pattern.compile("/api/v1/actuator.*"));
+        List<String> paths = List.of("/api/v1/users/public", "/api/v1/users/publicity", "/api/v1/users/pub",
+                "/api/v1/products/public/1", "/api/v1/products/private", "/api/v1/actuator", "/api/v1/actuatorx",
+                "/api/v1/carts/private", "/api/v2/products/public", "/");
+
+        for (String path : paths) {
+            boolean previouslySecured = previousOpenEndpoints.stream()
+                    .noneMatch(pattern -> pattern.matcher(path).matches());
+
+            // Act & Assert
+            assertEquals(previouslySecured, routeValidator.isSecured.test(new MockHttpServletRequest("GET", path)), path);
+        }
+    }
+}
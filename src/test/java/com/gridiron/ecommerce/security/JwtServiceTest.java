@@ -131,6 +131,41 @@ public class JwtServiceTest {
         assertFalse(isValid);
     }
 
+    @Test
+    void extractAllClaims_ShouldVerifyTokenOnce_WhenTokenIsPresentedAgain() {
+        // Arrange
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", "ADMIN");
+        claims.put("userId", 1L);
+        String token = jwtService.generateToken("testUser", claims);
+
+        // Act
+        Claims first = jwtService.extractAllClaims(token);
+        Claims second = jwtService.extractAllClaims("Bearer " + token);
+
+        // Assert: the second call is served from the verified claims cache
+        assertSame(first, second);
+        assertEquals(1L, jwtService.extractUserId(token));
+    }
+
+    @Test
+    void isTokenValid_ShouldReturnFalse_WhenSignatureIsTampered() {
+        // Arrange
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", "ADMIN");
+        String token = jwtService.generateToken("testUser", claims);
+        String forgedToken = Jwts.builder()
+                .setClaims(claims)
+                .setSubject("testUser")
+                .signWith(getSigningKey("anotherSecretKeyanotherSecretKey"))
+                .compact();
+
+        // Act & Assert
+        assertTrue(jwtService.isTokenValid(token));
+        assertFalse(jwtService.isTokenValid(forgedToken));
+        assertFalse(jwtService.isTokenValid(forgedToken));
+    }
+
     // Helper method to get signing key
     private Key getSigningKey(String secretKey) {
         return new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
@@ -0,0 +1,49 @@
+package com.gridiron.ecommerce.security;
+
+import com.gridiron.ecommerce.utility.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher;
+
+    @BeforeEach
+    void setUp() {
+        passwordHasher = new PasswordHasher(5, 1, 10, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void upgradeEncoding_ShouldReturnTrue_WhenStoredCostIsLowerThanStrength() {
+        // Arrange
+        String stored = new BCryptPasswordEncoder(4).encode("password");
+
+        // Act & Assert
+        assertTrue(passwordHasher.upgradeEncoding(stored));
+    }
+
+    @Test
+    void upgradeEncoding_ShouldReturnTrue_WhenStoredCostIsHigherThanStrength() {
+        // Arrange
+        String stored = new BCryptPasswordEncoder(6).encode("password");
+
+        // Act & Assert
+        assertTrue(passwordHasher.upgradeEncoding(stored));
+    }
+
+    @Test
+    void upgradeEncoding_ShouldReturnFalse_WhenStoredCostMatchesStrength() {
+        // Arrange
+        String stored = passwordHasher.encode("password");
+
+        // Act & Assert
+        assertFalse(passwordHasher.upgradeEncoding(stored));
+        assertTrue(passwordHasher.matches("password", stored));
+        assertFalse(passwordHasher.upgradeEncoding("not a bcrypt hash"));
+        assertFalse(passwordHasher.upgradeEncoding(null));
+    }
+}
@@ -0,0 +1,126 @@
+package com.gridiron.ecommerce.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.utility.ratelimit.KeyType;
+import com.gridiron.ecommerce.utility.ratelimit.RateLimitProperties;
+import com.gridiron.ecommerce.utility.ratelimit.RateLimiter;
+import com.gridiron.ecommerce.utility.security.ApiKeyValidator;
+import com.gridiron.ecommerce.utility.security.DefaultRouteValidator;
+import com.gridiron.ecommerce.utility.security.JwtService;
+import com.gridiron.ecommerce.utility.security.RequestFilter;
+import com.gridiron.ecommerce.utility.security.SecurityErrorResponses;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private ApiKeyValidator apiKeyValidator;
+
+    private RequestFilter requestFilter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RateLimitProperties properties = new RateLimitProperties(true, Duration.ofMinutes(10), List.of(
+                new RateLimitProperties.Rule("/api/v1/users/public/authenticate", KeyType.IP, 0.001, 2),
+                new RateLimitProperties.Rule("/api", KeyType.CLIENT, 0.001, 2)));
+        requestFilter = new RequestFilter(jwtService, new DefaultRouteValidator(),
+                new SecurityErrorResponses(new ObjectMapper()), apiKeyValidator,
+                new RateLimiter(properties, new SimpleMeterRegistry()));
+        when(apiKeyValidator.authenticate("key")).thenReturn(ApiKeyValidator.DEFAULT_CLIENT);
+    }
+
+    @Test
+    void doFilterInternal_ShouldApplyIpRule_WhenPathIsPercentEncoded() throws Exception {
+        // Arrange: the IP rule allows two requests, the client rule two more
+        filter(request("POST", "/api/v1/users/public/authenticate"));
+
+        // Act
+        MockHttpServletResponse encoded = filter(request("POST", "/api/v1/users/public/%61uthenticate"));
+        MockHttpServletResponse mixedCase = filter(request("POST", "/api/v1/users/public/Authenticate"));
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), encoded.getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), mixedCase.getStatus());
+    }
+
+    @Test
+    void doFilterInternal_ShouldNotTakeFromClientBucket_WhenTokenIsInvalid() throws Exception {
+        // Arrange
+        when(jwtService.extractAllClaims("bad")).thenThrow(new MalformedJwtException("bad"));
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("GET", "/api/v1/carts/private");
+            request.addHeader("Authorization", "Bearer bad");
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            requestFilter.doFilter(request, response, chain);
+
+            assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+            assertNull(chain.getRequest());
+        }
+
+        // Act
+        MockFilterChain chain = new MockFilterChain();
+        requestFilter.doFilter(request("GET", "/api/v1/products/public"), new MockHttpServletResponse(), chain);
+
+        // Assert: the rejected requests left the shared client bucket untouched
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilterInternal_ShouldRefundIpBucket_WhenClientBucketRejects() throws Exception {
+        // Arrange: another address uses up the client bucket of the default client
+        when(apiKeyValidator.authenticate("other")).thenReturn("other");
+        MockHttpServletRequest first = request("GET", "/api/v1/products/public");
+        first.setRemoteAddr("10.0.0.2");
+        filter(first);
+        filter(first);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+                    filter(request("POST", "/api/v1/users/public/authenticate")).getStatus());
+        }
+
+        // Act: the same address under another client
+        MockHttpServletRequest request = request("POST", "/api/v1/users/public/authenticate");
+        request.removeHeader("X-Api-Key");
+        request.addHeader("X-Api-Key", "other");
+        MockHttpServletResponse response = filter(request);
+
+        // Assert: the requests the client bucket rejected took nothing from the address bucket
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(HttpStatus.OK.value(), filter(request).getStatus());
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        requestFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletRequest request(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("X-Api-Key", "key");
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+}
@@ -0,0 +1,71 @@
+package com.gridiron.ecommerce.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gridiron.ecommerce.utility.ApiResponse;
+import com.gridiron.ecommerce.utility.security.SecurityErrorResponses;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecurityErrorResponsesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SecurityErrorResponses errorResponses;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        errorResponses = new SecurityErrorResponses(objectMapper);
+    }
+
+    @Test
+    void writeInvalidApiKey_ShouldWriteBadRequest_WhenCalled() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        errorResponses.writeInvalidApiKey(response);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertEquals(new ApiResponse(false, "Invalid API Key", null),
+                objectMapper.readValue(response.getContentAsByteArray(), ApiResponse.class));
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+    }
+
+    @Test
+    void writeInvalidJwt_ShouldWriteSameBody_WhenCalledRepeatedly() throws Exception {
+        // Arrange
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        // Act
+        errorResponses.writeInvalidJwt(first);
+        errorResponses.writeInvalidJwt(second);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), second.getStatus());
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertEquals(new ApiResponse(false, "Invalid or missing JWT", null),
+                objectMapper.readValue(second.getContentAsByteArray(), ApiResponse.class));
+    }
+
+    @Test
+    void writeAccessDenied_ShouldNotWrite_WhenResponseIsCommitted() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(HttpStatus.OK.value());
+        response.setCommitted(true);
+
+        // Act
+        errorResponses.writeAccessDenied(response);
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+}
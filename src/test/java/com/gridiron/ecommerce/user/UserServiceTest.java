@@ -6,11 +6,14 @@ import com.gridiron.ecommerce.utility.exception.ResourceExistsException;
 import com.gridiron.ecommerce.utility.exception.ResourceNotFoundException;
 import com.gridiron.ecommerce.utility.exception.UnauthorizedException;
 import com.gridiron.ecommerce.utility.security.JwtService;
+import com.gridiron.ecommerce.utility.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
@@ -31,6 +34,9 @@ public class UserServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Spy
+    private PasswordHasher passwordHasher = new PasswordHasher(10, 2, 16, new SimpleMeterRegistry());
+
     @InjectMocks
     private UserService userService;
 
@@ -120,4 +126,42 @@ public class UserServiceTest {
         // Act & Assert
         assertThrows(UnauthorizedException.class, () -> userService.authenticateUser(email, password));
     }
+
+    @Test
+    void authenticateUser_ShouldRehashPassword_WhenStoredHashUsesAnotherStrength() {
+        // Arrange
+        String email = "john.doe@example.com";
+        String password = "password123";
+        String weakHash = new BCryptPasswordEncoder(4).encode(password);
+        User user = new User("John", "Doe", email, weakHash, Set.of(Role.CUSTOMER));
+
+        when(userRepository.findByEmailIgnoreCase(email)).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(anyString(), anyMap())).thenReturn("mocked-jwt-token");
+
+        // Act
+        userService.authenticateUser(email, password);
+
+        // Assert
+        verify(userRepository, times(1)).save(user);
+        assertNotEquals(weakHash, user.getPassword());
+        assertTrue(user.getPassword().startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches(password, user.getPassword()));
+    }
+
+    @Test
+    void authenticateUser_ShouldNotRehashPassword_WhenStoredHashUsesConfiguredStrength() {
+        // Arrange
+        String email = "john.doe@example.com";
+        String password = "password123";
+        User user = new User("John", "Doe", email, passwordEncoder.encode(password), Set.of(Role.CUSTOMER));
+
+        when(userRepository.findByEmailIgnoreCase(email)).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(anyString(), anyMap())).thenReturn("mocked-jwt-token");
+
+        // Act
+        userService.authenticateUser(email, password);
+
+        // Assert
+        verify(userRepository, never()).save(any(User.class));
+    }
 }
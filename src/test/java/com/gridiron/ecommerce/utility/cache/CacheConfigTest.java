@@ -0,0 +1,62 @@
+package com.gridiron.ecommerce.utility.cache;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheConfigTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES, CacheConfig.CART_IDS})
+    void evict_ShouldTakeEffectAfterCommit_WhenTransactionIsActive(String cacheName) {
+        // Arrange
+        Cache cache = cacheManager().getCache(cacheName);
+        cache.put(1L, "cached");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            cache.evict(1L);
+
+            // Assert: a concurrent read still sees the entry until the change is committed
+            assertNotNull(cache.get(1L));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            assertNull(cache.get(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {CacheConfig.PRODUCTS, CacheConfig.PRODUCT_PAGES})
+    void clear_ShouldTakeEffectImmediately_WhenNoTransactionIsActive(String cacheName) {
+        // Arrange
+        Cache cache = cacheManager().getCache(cacheName);
+        cache.put(1L, "cached");
+
+        // Act
+        cache.clear();
+
+        // Assert
+        assertNull(cache.get(1L));
+    }
+
+    private CacheManager cacheManager() {
+        CacheConfig cacheConfig = new CacheConfig();
+        for (String field : new String[]{"products", "productPages", "checkouts", "cartIds"}) {
+            ReflectionTestUtils.setField(cacheConfig, field + "MaximumSize", 10L);
+            ReflectionTestUtils.setField(cacheConfig, field + "Ttl", Duration.ofMinutes(1));
+        }
+        return cacheConfig.cacheManager();
+    }
+}
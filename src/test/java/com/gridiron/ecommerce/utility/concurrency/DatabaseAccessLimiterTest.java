@@ -0,0 +1,162 @@
+package com.gridiron.ecommerce.utility.concurrency;
+
+import com.gridiron.ecommerce.user.Role;
+import com.gridiron.ecommerce.user.User;
+import com.gridiron.ecommerce.user.UserRepository;
+import com.gridiron.ecommerce.user.UserService;
+import com.gridiron.ecommerce.user.request.CreateUserRequest;
+import com.gridiron.ecommerce.utility.exception.TooManyRequestsException;
+import com.gridiron.ecommerce.utility.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DatabaseAccessLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DatabaseAccessLimiter databaseAccessLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        databaseAccessLimiter = new DatabaseAccessLimiter(1, Duration.ofMillis(100), meterRegistry);
+    }
+
+    @Test
+    void limit_ShouldReusePermit_WhenServiceCallsAnotherService() throws Throwable {
+        // Arrange: the outer call proceeds into a nested call on the same thread
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        when(inner.proceed()).thenReturn("placed");
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> databaseAccessLimiter.limit(inner));
+
+        // Act
+        Object result = databaseAccessLimiter.limit(outer);
+
+        // Assert
+        assertEquals("placed", result);
+        assertEquals(1.0, meterRegistry.get("database.permits.available").gauge().value());
+    }
+
+    @Test
+    void limit_ShouldThrowTooManyRequestsException_WhenAllPermitsAreHeld() throws Throwable {
+        // Arrange: another thread holds the only permit
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ProceedingJoinPoint blocking = mock(ProceedingJoinPoint.class);
+        when(blocking.proceed()).thenAnswer(invocation -> {
+            started.countDown();
+            finish.await();
+            return null;
+        });
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> {
+            try {
+                return databaseAccessLimiter.limit(blocking);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert: a call made by a request is refused rather than left waiting
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertThrows(TooManyRequestsException.class,
+                    () -> databaseAccessLimiter.limit(mock(ProceedingJoinPoint.class)));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        finish.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(1.0, meterRegistry.get("database.permits.available").gauge().value());
+    }
+
+    @Test
+    void withPermit_ShouldWaitForPermit_WhenAllPermitsAreHeld() throws Throwable {
+        // Arrange: another thread holds the only permit for longer than the timeout of requests
+        CountDownLatch started = new CountDownLatch(1);
+        ProceedingJoinPoint blocking = mock(ProceedingJoinPoint.class);
+        when(blocking.proceed()).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(300);
+            return null;
+        });
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> {
+            try {
+                return databaseAccessLimiter.limit(blocking);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        String result = databaseAccessLimiter.withPermit(() -> "placed");
+
+        // Assert: background work is never refused, it waits until the permit is released
+        assertEquals("placed", result);
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(1.0, meterRegistry.get("database.permits.available").gauge().value());
+    }
+
+    @Test
+    void limit_ShouldHoldNoPermit_WhileUserPasswordIsHashed() {
+        // Arrange: the repository is advised as in the application, and every call records the free permits
+        UserRepository userRepository = mock(UserRepository.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(userRepository);
+        proxyFactory.addInterface(UserRepository.class);
+        proxyFactory.addAspect(databaseAccessLimiter);
+        PasswordHasher passwordHasher = mock(PasswordHasher.class);
+        UserService userService = new UserService(proxyFactory.getProxy(), null, passwordHasher);
+
+        List<Double> permitsInRepository = new ArrayList<>();
+        List<Double> permitsWhileHashing = new ArrayList<>();
+        when(userRepository.existsByEmailIgnoreCase("jane@example.com")).thenAnswer(invocation -> {
+            permitsInRepository.add(availablePermits());
+            return false;
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            permitsInRepository.add(availablePermits());
+            return invocation.getArgument(0);
+        });
+        when(passwordHasher.encode("secret-password")).thenAnswer(invocation -> {
+            permitsWhileHashing.add(availablePermits());
+            return "hash";
+        });
+
+        // Act
+        userService.createUser(CreateUserRequest.builder()
+                .firstName("Jane")
+                .lastName("Doe")
+                .email("jane@example.com")
+                .password("secret-password")
+                .build(), Role.CUSTOMER);
+
+        // Assert: the permit is taken for each repository call and released for the hashing in between
+        assertEquals(List.of(0.0, 0.0), permitsInRepository);
+        assertEquals(List.of(1.0), permitsWhileHashing);
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("database.permits.available").gauge().value();
+    }
+}
@@ -0,0 +1,40 @@
+package com.gridiron.ecommerce.utility.concurrency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadEnvironmentPostProcessorTest {
+
+    private final VirtualThreadEnvironmentPostProcessor postProcessor = new VirtualThreadEnvironmentPostProcessor();
+
+    @Test
+    void postProcessEnvironment_ShouldTurnOffOpenInView_WhenVirtualThreadsAreEnabled() {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        // Act
+        postProcessor.postProcessEnvironment(environment, null);
+
+        // Assert
+        assertEquals(false, environment.getProperty("spring.jpa.open-in-view", Boolean.class));
+    }
+
+    @Test
+    void postProcessEnvironment_ShouldKeepOpenInView_WhenSetExplicitlyOrPlatformThreadsAreUsed() {
+        // Arrange
+        MockEnvironment explicit = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", "true")
+                .withProperty("spring.jpa.open-in-view", "true");
+        MockEnvironment platform = new MockEnvironment();
+
+        // Act
+        postProcessor.postProcessEnvironment(explicit, null);
+        postProcessor.postProcessEnvironment(platform, null);
+
+        // Assert
+        assertEquals(true, explicit.getProperty("spring.jpa.open-in-view", Boolean.class));
+        assertNull(platform.getProperty("spring.jpa.open-in-view"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.gridiron.ecommerce.utility.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final String AUTHENTICATE = "/api/v1/users/public/authenticate";
+
+    private final AtomicLong nanoTime = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = rateLimiter(true);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReject_WhenRequestsArriveAtOnce() {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE));
+        }
+        long retryAfterNanos = rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+
+        // Assert: one token is refilled every 500ms
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), retryAfterNanos);
+        assertEquals(1.0, meterRegistry.get("rate_limit.rejected").tag("key", "IP").counter().count());
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillTokens_WhenTimePasses() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        }
+
+        // Act
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // Assert: two tokens are back after a second, not more
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE));
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE));
+        assertTrue(rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE) > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepKeysApart_WhenOneKeyIsExhausted() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        }
+
+        // Act & Assert
+        assertTrue(rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE) > 0);
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.2", AUTHENTICATE));
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.USER, 1L, AUTHENTICATE));
+    }
+
+    @Test
+    void tryAcquire_ShouldApplyEveryMatchingRule_WhenPathPrefixesOverlap() {
+        // Arrange: the user rule on /api allows 3, the stricter authenticate rule is for IPs only
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(KeyType.USER, 7L, "/api/v1/carts/private"));
+        }
+
+        // Act & Assert
+        assertTrue(rateLimiter.tryAcquire(KeyType.USER, 7L, "/api/v1/orders/customer") > 0);
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.USER, 7L, "/actuator/health"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", "/api/v1/products/public"));
+        }
+    }
+
+    @Test
+    void tryAcquire_ShouldRefundPassedBuckets_WhenLaterRuleRejects() {
+        // Arrange: the user rule on /api allows 3, a stricter user rule on orders allows 1
+        RateLimiter limiter = new RateLimiter(new RateLimitProperties(true, Duration.ofMinutes(10), List.of(
+                new RateLimitProperties.Rule("/api", KeyType.USER, 1, 3),
+                new RateLimitProperties.Rule("/api/v1/orders", KeyType.USER, 1, 1))), meterRegistry, nanoTime::get);
+        assertEquals(0, limiter.tryAcquire(KeyType.USER, 7L, "/api/v1/orders/customer"));
+
+        // Act: rejected orders requests keep no token of the /api rule
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(KeyType.USER, 7L, "/api/v1/orders/customer") > 0);
+        }
+
+        // Assert
+        assertEquals(0, limiter.tryAcquire(KeyType.USER, 7L, "/api/v1/carts/private"));
+        assertEquals(0, limiter.tryAcquire(KeyType.USER, 7L, "/api/v1/carts/private"));
+        assertTrue(limiter.tryAcquire(KeyType.USER, 7L, "/api/v1/carts/private") > 0);
+    }
+
+    @Test
+    void refund_ShouldGiveTokenBack_WhenAnotherKeyRejectsTheRequest() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        }
+
+        // Act
+        rateLimiter.refund(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        rateLimiter.refund(KeyType.IP, "10.0.0.9", AUTHENTICATE);
+
+        // Assert: one token is back, and refunding an unknown key creates no bucket
+        assertEquals(0, rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE));
+        assertTrue(rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE) > 0);
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquire_ShouldMatchRuleWithoutCase_WhenPathCaseDiffers() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        }
+
+        // Act & Assert: the same bucket is taken from whatever the case of the path
+        assertTrue(rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", "/api/v1/users/public/Authenticate") > 0);
+        assertTrue(rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", "/API/V1/USERS/PUBLIC/AUTHENTICATE") > 0);
+    }
+
+    @Test
+    void evictIdleBuckets_ShouldDropOnlyIdleBuckets_WhenIdleTimeoutPasses() {
+        // Arrange
+        rateLimiter.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE);
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        rateLimiter.tryAcquire(KeyType.IP, "10.0.0.2", AUTHENTICATE);
+        assertEquals(2, rateLimiter.size());
+
+        // Act
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        rateLimiter.evictIdleBuckets();
+
+        // Assert
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquire_ShouldAlwaysAllow_WhenDisabledOrKeyIsMissing() {
+        // Arrange
+        RateLimiter disabled = rateLimiter(false);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, disabled.tryAcquire(KeyType.IP, "10.0.0.1", AUTHENTICATE));
+            assertEquals(0, rateLimiter.tryAcquire(KeyType.USER, null, AUTHENTICATE));
+        }
+        assertEquals(0, disabled.size());
+    }
+
+    private RateLimiter rateLimiter(boolean enabled) {
+        RateLimitProperties properties = new RateLimitProperties(enabled, Duration.ofMinutes(10), List.of(
+                new RateLimitProperties.Rule(AUTHENTICATE, KeyType.IP, 2, 5),
+                new RateLimitProperties.Rule("/api", KeyType.USER, 1, 3)));
+        return new RateLimiter(properties, meterRegistry, nanoTime::get);
+    }
+}